@@ -16,6 +16,8 @@ package org.apache.maven.plugin.dependency;
  */
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -23,6 +25,7 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.utils.DependencyStatusSets;
 import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.RepositoryUsageJournal;
 import org.apache.maven.plugin.dependency.utils.resolvers.ArtifactsResolver;
 import org.apache.maven.plugin.dependency.utils.resolvers.DefaultArtifactsResolver;
 import org.apache.maven.plugin.dependency.utils.translators.ArtifactTranslator;
@@ -219,6 +222,15 @@ public abstract class AbstractDependencyFilterMojo
      */
     protected boolean prependGroupId = false;
 
+    /**
+     * Record the use of the dependencies in a journal stored in the local repository, so that the
+     * <code>evict-local-repository</code> goal can tell which artifacts have not been used for a long time.
+     *
+     * @since 2.5
+     * @parameter expression="${mdep.recordUsage}" default-value="false"
+     */
+    protected boolean recordUsage;
+
     protected abstract ArtifactsFilter getMarkedArtifactFilter();
 
     /**
@@ -282,7 +294,7 @@ public abstract class AbstractDependencyFilterMojo
                                                 DependencyUtil.cleanToBeTokenizedString( this.excludeArtifactIds ) ) );
 
         // start with all artifacts.
-        Set<Artifact> artifacts = project.getArtifacts();
+        Set<Artifact> artifacts = getProjectArtifacts( project );
 
         // perform filtering
         try
@@ -305,9 +317,40 @@ public abstract class AbstractDependencyFilterMojo
             status = filterMarkedDependencies( artifacts );
         }
 
+        if ( recordUsage )
+        {
+            recordUsage( artifacts );
+        }
+
         return status;
     }
 
+    private void recordUsage( Set<Artifact> artifacts )
+    {
+        try
+        {
+            new RepositoryUsageJournal( new File( getLocal().getBasedir() ) ).record( artifacts );
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Unable to record the use of the dependencies: " + e.getMessage() );
+        }
+    }
+
+    /**
+     * Returns the artifacts of the project the filters are applied to. By default these are the artifacts resolved
+     * by Maven for the current goal.
+     *
+     * @param theProject the project.
+     * @return the transitive dependency artifacts of the project.
+     * @throws MojoExecutionException
+     */
+    protected Set<Artifact> getProjectArtifacts( MavenProject theProject )
+        throws MojoExecutionException
+    {
+        return theProject.getArtifacts();
+    }
+
     /**
      *
      * Transform artifacts
@@ -388,6 +431,20 @@ public abstract class AbstractDependencyFilterMojo
         return new DependencyStatusSets( unMarkedArtifacts, null, skippedArtifacts );
     }
 
+    /**
+     * Checks again whether an artifact has to be processed, once the lock of its destination is held: another build
+     * sharing the destination may have processed it while this one was waiting for the lock.
+     *
+     * @param artifact the artifact.
+     * @return whether the artifact is still to be processed.
+     * @throws MojoExecutionException
+     */
+    protected boolean isStillUnmarked( Artifact artifact )
+        throws MojoExecutionException
+    {
+        return !filterMarkedDependencies( Collections.singleton( artifact ) ).getResolvedDependencies().isEmpty();
+    }
+
     /**
      * @return Returns the markersDirectory.
      */
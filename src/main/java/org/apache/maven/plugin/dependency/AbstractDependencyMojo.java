@@ -20,9 +20,11 @@ package org.apache.maven.plugin.dependency;
  */
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.List;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -31,6 +33,8 @@ import org.apache.maven.artifact.resolver.ArtifactResolver;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.utils.DependencySilentLog;
+import org.apache.maven.plugin.dependency.utils.DestinationLock;
+import org.apache.maven.plugin.dependency.utils.resolvers.ProjectArtifactsCollector;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.archiver.ArchiverException;
@@ -144,23 +148,14 @@ public abstract class AbstractDependencyMojo
      */
     protected boolean outputAbsoluteArtifactFilename;
 
-    private Log log;
+    private final Log silentLog = new DependencySilentLog();
 
     /**
      * @return Returns the log.
      */
     public Log getLog()
     {
-        if ( silent )
-        {
-            log = new DependencySilentLog();
-        }
-        else
-        {
-            log = super.getLog();
-        }
-
-        return this.log;
+        return silent ? silentLog : super.getLog();
     }
 
     /**
@@ -198,6 +193,40 @@ public abstract class AbstractDependencyMojo
         }
     }
 
+    /**
+     * Locks an artifact written to a destination shared with other builds.
+     *
+     * @param destination the file the artifact is copied to, or the directory it is unpacked to.
+     * @param artifact the artifact.
+     * @return the lock, to be released with {@link #unlockDestination(DestinationLock)}.
+     * @throws MojoExecutionException if the lock can not be acquired.
+     */
+    protected DestinationLock lockDestination( File destination, Artifact artifact )
+        throws MojoExecutionException
+    {
+        try
+        {
+            return DestinationLock.acquire( destination, artifact, getLog() );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Cannot lock " + artifact.getId() + " in " + destination, e );
+        }
+    }
+
+    protected void unlockDestination( DestinationLock lock )
+    {
+        try
+        {
+            lock.release();
+        }
+        catch ( IOException e )
+        {
+            // the lock is released when its file is closed anyway
+            getLog().warn( "Cannot release lock: " + e.getMessage() );
+        }
+    }
+
     protected void unpack( File file, File location )
         throws MojoExecutionException
     {
@@ -286,6 +315,15 @@ public abstract class AbstractDependencyMojo
         }
     }
 
+    /**
+     * @return a collector computing the dependency graph of a project from the repository metadata only.
+     */
+    protected ProjectArtifactsCollector getProjectArtifactsCollector()
+    {
+        return new ProjectArtifactsCollector( this.artifactCollector, this.factory, this.artifactMetadataSource,
+                                              this.getLocal() );
+    }
+
     /**
      * @return Returns the factory.
      */
@@ -0,0 +1,343 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.apache.maven.execution.RuntimeInformation;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.treeSerializers.DAGDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.treeSerializers.DOTDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.treeSerializers.GraphmlDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.treeSerializers.JSONDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.treeSerializers.TGFDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.utils.CachingArtifactMetadataSource;
+import org.apache.maven.plugin.dependency.utils.LogWriter;
+import org.apache.maven.plugin.dependency.utils.OutputFiles;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.DependencyTreeBuilder;
+import org.apache.maven.shared.dependency.tree.filter.StateDependencyNodeFilter;
+import org.apache.maven.shared.dependency.tree.traversal.BuildingDependencyNodeVisitor;
+import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
+import org.apache.maven.shared.dependency.tree.traversal.FilteringDependencyNodeVisitor;
+import org.apache.maven.shared.dependency.tree.traversal.SerializingDependencyNodeVisitor;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Displays the dependency trees of all the projects of the reactor. The trees are built concurrently and share a cache
+ * of the metadata read from the POMs, so that an artifact used by several modules is read once.
+ * <p>
+ * The trees are either merged in a single output, the other modules being attached to the root project of the build,
+ * or written to one file per module. In the merged dot, graphml, tgf and json outputs each artifact is a single node,
+ * shared by all the modules depending on it.
+ *
+ * @goal aggregate-tree
+ * @threadSafe
+ * @aggregator
+ * @version $Id$
+ * @since 2.5
+ */
+public class AggregateTreeMojo
+    extends AbstractMojo
+{
+    /**
+     * The root project of the build.
+     *
+     * @parameter expression="${project}"
+     * @required
+     * @readonly
+     */
+    private MavenProject project;
+
+    /**
+     * The projects of the reactor.
+     *
+     * @parameter expression="${reactorProjects}"
+     * @required
+     * @readonly
+     */
+    private List<MavenProject> reactorProjects;
+
+    /**
+     * @parameter expression="${localRepository}"
+     * @required
+     * @readonly
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * @component
+     * @required
+     * @readonly
+     */
+    private ArtifactFactory artifactFactory;
+
+    /**
+     * @component
+     * @required
+     * @readonly
+     */
+    private ArtifactMetadataSource artifactMetadataSource;
+
+    /**
+     * @component
+     * @required
+     * @readonly
+     */
+    private ArtifactCollector artifactCollector;
+
+    /**
+     * @component
+     * @required
+     * @readonly
+     */
+    private DependencyTreeBuilder dependencyTreeBuilder;
+
+    /**
+     * The format of the trees: text, dot, graphml, tgf or json.
+     *
+     * @parameter expression="${outputType}" default-value="text"
+     */
+    private String outputType = "text";
+
+    /**
+     * Whether to merge the trees of the modules in a single output. Otherwise each tree is written to its own file in
+     * the <code>outputDirectory</code>.
+     *
+     * @parameter expression="${merge}" default-value="true"
+     */
+    private boolean merge = true;
+
+    /**
+     * The file the merged tree is written to, instead of the console.
+     *
+     * @parameter expression="${outputFile}"
+     */
+    private File outputFile;
+
+    /**
+     * The directory the trees of the modules are written to when they are not merged, as
+     * <code>artifactId.extension</code>.
+     *
+     * @parameter expression="${outputDirectory}" default-value="${project.build.directory}/dependency-trees"
+     */
+    private File outputDirectory;
+
+    /**
+     * The scope to filter by when resolving the dependency trees, or <code>null</code> to include dependencies from
+     * all scopes.
+     *
+     * @parameter expression="${scope}"
+     */
+    private String scope;
+
+    /**
+     * Whether to include omitted nodes in the serialized dependency trees.
+     *
+     * @parameter expression="${verbose}" default-value="false"
+     */
+    private boolean verbose;
+
+    /**
+     * The number of trees built concurrently. A single tree is built at a time with Maven 2.x, whose artifact
+     * collector is not thread-safe.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     */
+    private int threads = 4;
+
+    /**
+     * Used to check whether the artifact resolver of the running Maven is thread-safe.
+     *
+     * @component role="org.apache.maven.execution.RuntimeInformation"
+     */
+    private RuntimeInformation rti;
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        if ( !merge && outputDirectory == null )
+        {
+            throw new MojoFailureException( "The trees of the modules can only be written to an outputDirectory" );
+        }
+
+        final CachingArtifactMetadataSource metadataSource =
+            new CachingArtifactMetadataSource( artifactMetadataSource );
+        final ArtifactFilter artifactFilter = scope != null ? new ScopeArtifactFilter( scope ) : null;
+
+        List<Callable<DependencyNode>> tasks = new ArrayList<Callable<DependencyNode>>();
+        for ( final MavenProject reactorProject : reactorProjects )
+        {
+            tasks.add( new Callable<DependencyNode>()
+            {
+                public DependencyNode call()
+                    throws Exception
+                {
+                    DependencyNode rootNode =
+                        dependencyTreeBuilder.buildDependencyTree( reactorProject, localRepository, artifactFactory,
+                                                                   metadataSource, artifactFilter,
+                                                                   artifactCollector );
+                    if ( !merge )
+                    {
+                        File file = new File( outputDirectory, reactorProject.getArtifactId() + "." + getExtension() );
+                        serialize( rootNode, file, false );
+                    }
+                    return rootNode;
+                }
+            } );
+        }
+        List<DependencyNode> rootNodes =
+            ParallelTasks.invokeAll( ParallelTasks.getResolverThreads( threads, rti, getLog() ), tasks,
+                                     "Cannot build dependency trees" );
+
+        getLog().debug( "Metadata cache: " + metadataSource.getHits() + " hits, " + metadataSource.getMisses()
+                            + " misses" );
+
+        if ( !merge )
+        {
+            getLog().info( "Wrote " + rootNodes.size() + " dependency trees to: " + outputDirectory );
+            return;
+        }
+
+        try
+        {
+            serialize( mergeTrees( project, reactorProjects, rootNodes ), outputFile, true );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Cannot serialise the aggregated dependency tree", e );
+        }
+        if ( outputFile != null )
+        {
+            getLog().info( "Wrote aggregated dependency tree to: " + outputFile );
+        }
+    }
+
+    /**
+     * Attaches the trees of the other modules to the tree of the root project of the build.
+     *
+     * @param rootProject the root project of the build.
+     * @param projects the projects of the reactor.
+     * @param rootNodes the trees of the projects, in the same order.
+     * @return the merged tree.
+     */
+    static DependencyNode mergeTrees( MavenProject rootProject, List<MavenProject> projects,
+                                      List<DependencyNode> rootNodes )
+    {
+        int rootIndex = projects.indexOf( rootProject );
+        DependencyNode mergedNode =
+            rootIndex >= 0 ? rootNodes.get( rootIndex ) : new DependencyNode( rootProject.getArtifact() );
+        for ( int i = 0; i < rootNodes.size(); i++ )
+        {
+            if ( i != rootIndex )
+            {
+                mergedNode.addChild( rootNodes.get( i ) );
+            }
+        }
+        return mergedNode;
+    }
+
+    private void serialize( DependencyNode rootNode, File file, boolean merged )
+        throws IOException
+    {
+        Writer out;
+        if ( file != null )
+        {
+            out = OutputFiles.openWriter( file, false );
+        }
+        else
+        {
+            out = new LogWriter( getLog() );
+        }
+
+        try
+        {
+            PrintWriter writer = new PrintWriter( out );
+            DependencyNodeVisitor visitor = new BuildingDependencyNodeVisitor( getSerializingVisitor( writer, merged ) );
+            if ( !verbose )
+            {
+                visitor = new FilteringDependencyNodeVisitor( visitor, StateDependencyNodeFilter.INCLUDED );
+            }
+            rootNode.accept( visitor );
+
+            writer.flush();
+            if ( writer.checkError() )
+            {
+                throw new IOException( "Cannot write the dependency tree" );
+            }
+            OutputFiles.commit( out );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    private DependencyNodeVisitor getSerializingVisitor( Writer writer, boolean merged )
+    {
+        if ( "json".equals( outputType ) )
+        {
+            return new JSONDependencyNodeVisitor( writer, merged );
+        }
+        else if ( merged && ( DAGDependencyNodeVisitor.GRAPHML.equals( outputType )
+            || DAGDependencyNodeVisitor.TGF.equals( outputType ) || DAGDependencyNodeVisitor.DOT.equals( outputType ) ) )
+        {
+            return new DAGDependencyNodeVisitor( writer, outputType );
+        }
+        else if ( "graphml".equals( outputType ) )
+        {
+            return new GraphmlDependencyNodeVisitor( writer );
+        }
+        else if ( "tgf".equals( outputType ) )
+        {
+            return new TGFDependencyNodeVisitor( writer );
+        }
+        else if ( "dot".equals( outputType ) )
+        {
+            return new DOTDependencyNodeVisitor( writer );
+        }
+        else
+        {
+            return new SerializingDependencyNodeVisitor( writer, SerializingDependencyNodeVisitor.STANDARD_TOKENS );
+        }
+    }
+
+    private String getExtension()
+    {
+        return "json".equals( outputType ) || "graphml".equals( outputType ) || "tgf".equals( outputType )
+            || "dot".equals( outputType ) ? outputType : "txt";
+    }
+}
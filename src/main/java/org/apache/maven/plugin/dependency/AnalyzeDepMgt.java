@@ -27,12 +27,17 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.model.Exclusion;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.resolvers.ProjectArtifactsCollector;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
 
@@ -49,7 +54,8 @@ import org.codehaus.plexus.util.StringUtils;
  * @author <a href="mailto:brianefox@gmail.com">Brian Fox</a>
  * @version $Id: AnalyzeDepMgt.java 1085777 2011-03-26 18:13:19Z hboutemy $
  * @goal analyze-dep-mgt
- * @requiresDependencyResolution test
+ * @threadSafe
+ * @requiresDependencyCollection test
  * @since 2.0-alpha-3
  */
 public class AnalyzeDepMgt
@@ -66,6 +72,42 @@ public class AnalyzeDepMgt
      */
     private MavenProject project;
 
+    /**
+     * The artifact repository to use.
+     *
+     * @parameter expression="${localRepository}"
+     * @required
+     * @readonly
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * The artifact factory to use.
+     *
+     * @component
+     * @required
+     * @readonly
+     */
+    private ArtifactFactory artifactFactory;
+
+    /**
+     * The artifact metadata source to use.
+     *
+     * @component
+     * @required
+     * @readonly
+     */
+    private ArtifactMetadataSource artifactMetadataSource;
+
+    /**
+     * The artifact collector to use.
+     *
+     * @component
+     * @required
+     * @readonly
+     */
+    private ArtifactCollector artifactCollector;
+
     /**
      * Fail the build if a problem is detected.
      *
@@ -136,8 +178,11 @@ public class AnalyzeDepMgt
                 exclusions.putAll( addExclusions( depMgtDependency.getExclusions() ) );
             }
 
-            // get dependencies for the project (including transitive)
-            Set<Artifact> allDependencyArtifacts = new HashSet<Artifact>( project.getArtifacts() );
+            // get dependencies for the project (including transitive), from the POMs only
+            ProjectArtifactsCollector collector =
+                new ProjectArtifactsCollector( artifactCollector, artifactFactory, artifactMetadataSource,
+                                               localRepository );
+            Set<Artifact> allDependencyArtifacts = new HashSet<Artifact>( collector.getArtifacts( project ) );
 
             // don't warn if a dependency that is directly listed overrides
             // depMgt. That's ok.
@@ -145,7 +190,10 @@ public class AnalyzeDepMgt
             {
                 getLog().info( "\tIgnoring Direct Dependencies." );
                 Set<Artifact> directDependencies = project.getDependencyArtifacts();
-                allDependencyArtifacts.removeAll( directDependencies );
+                if ( directDependencies != null )
+                {
+                    allDependencyArtifacts.removeAll( directDependencies );
+                }
             }
 
             // log exclusion errors
@@ -44,6 +44,7 @@ import org.codehaus.plexus.util.ReaderFactory;
  * @author <a href="mailto:vincent.siveton@gmail.com">Vincent Siveton</a>
  * @version $Id: AnalyzeDuplicateMojo.java 1085777 2011-03-26 18:13:19Z hboutemy $
  * @goal analyze-duplicate
+ * @threadSafe
  * @aggregator false
  */
 public class AnalyzeDuplicateMojo
@@ -30,6 +30,7 @@ package org.apache.maven.plugin.dependency;
  * @see AnalyzeOnlyMojo
  * 
  * @goal analyze
+ * @threadSafe
  * @requiresDependencyResolution test
  * @execute phase="test-compile"
  */
@@ -31,6 +31,7 @@ package org.apache.maven.plugin.dependency;
  * @see AnalyzeMojo
  * 
  * @goal analyze-only
+ * @threadSafe
  * @requiresDependencyResolution test
  * @phase verify
  */
@@ -43,6 +43,7 @@ import org.apache.maven.shared.dependency.analyzer.ProjectDependencyAnalyzerExce
  * @version $Id: AnalyzeReportMojo.java 1081021 2011-03-13 00:17:39Z hboutemy $
  * @since 2.0-alpha-5
  * @goal analyze-report
+ * @threadSafe
  * @requiresDependencyResolution test
  * @execute phase="test-compile"
  */
@@ -20,27 +20,34 @@ package org.apache.maven.plugin.dependency;
  */
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.dependency.utils.ClasspathIndex;
 import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.DigestWriter;
+import org.apache.maven.plugin.dependency.utils.OutputFiles;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectHelper;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
 import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
+import org.apache.maven.shared.artifact.filter.collection.ScopeFilter;
+import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.StringUtils;
 
@@ -48,6 +55,7 @@ import org.codehaus.plexus.util.StringUtils;
  * This goal will output a classpath string of dependencies from the local repository to a file or log.
  *
  * @goal build-classpath
+ * @threadSafe
  * @requiresDependencyResolution test
  * @phase generate-sources
  * @author ankostis
@@ -150,6 +158,64 @@ public class BuildClasspathMojo
      */
     boolean followProjectLinks;
 
+    /**
+     * A pathing jar to write: a jar holding only a manifest, whose <code>Class-Path</code> lists the dependencies as
+     * URIs relative to the jar. Launchers then only put the pathing jar on their command line.
+     *
+     * @since 2.5
+     * @parameter expression="${mdep.pathingJar}"
+     */
+    private File pathingJar;
+
+    /**
+     * A java argument file to write, holding the <code>-classpath</code> option with the classpath string, for
+     * launchers passing it as <code>@file</code> to the java command of Java 9 and later.
+     *
+     * @since 2.5
+     * @parameter expression="${mdep.argFile}"
+     */
+    private File argFile;
+
+    /**
+     * A comma-separated list of scopes to build a classpath for, e.g. <code>compile,runtime,test</code>. The
+     * dependencies are resolved and filtered once, each classpath keeping those of its scope as the scope of a
+     * dependency resolution would. The outputs of each classpath are written to the output files, with the scope
+     * appended to their base name, e.g. <code>classpath-compile.txt</code> for <code>classpath.txt</code>.
+     *
+     * @since 2.5
+     * @parameter expression="${mdep.scopes}"
+     */
+    private String scopes;
+
+    /**
+     * A package index to write, in the format of a jar <code>INDEX.LIST</code>: for each jar of the classpath, its
+     * URI as in the <code>Class-Path</code> of the pathing jar followed by its packages, so that class loaders can find
+     * the jar of a class without probing every jar. The URIs are relative to the pathing jar, or to the index without
+     * pathing jar, and the index is not written if a jar can't be reached by a relative URI.
+     *
+     * @since 2.5
+     * @parameter expression="${mdep.packageIndex}"
+     */
+    private File packageIndex;
+
+    /**
+     * A class list to write for class data sharing, listing every class of the jars of the classpath. This is a
+     * skeleton to be trimmed down to the classes loaded at startup.
+     *
+     * @since 2.5
+     * @parameter expression="${mdep.classList}"
+     */
+    private File classList;
+
+    /**
+     * The number of jars read concurrently to write the package index and class list. Reading them doesn't call the
+     * artifact resolver, so all the threads are used with Maven 2.x too.
+     *
+     * @since 2.5
+     * @parameter expression="${threads}" default-value="4"
+     */
+    private int threads = 4;
+
     /**
      * Maven ProjectHelper
      *
@@ -192,6 +258,41 @@ public class BuildClasspathMojo
         Set<Artifact> artifacts = getResolvedDependencies(true)  ;
         
         
+        if ( StringUtils.isEmpty( scopes ) )
+        {
+            buildClasspath( artifacts, null );
+            return;
+        }
+
+        // the dependencies are resolved once for all the scopes, each classpath keeping those of its scope
+        String[] classpathScopes = StringUtils.split( scopes, "," );
+        for ( int i = 0; i < classpathScopes.length; i++ )
+        {
+            String classpathScope = classpathScopes[i].trim();
+            Set<Artifact> scopeArtifacts;
+            try
+            {
+                scopeArtifacts = new ScopeFilter( classpathScope, null ).filter( artifacts );
+            }
+            catch ( ArtifactFilterException e )
+            {
+                throw new MojoExecutionException( e.getMessage(), e );
+            }
+            buildClasspath( scopeArtifacts, classpathScope );
+        }
+    }
+
+    /**
+     * Builds the classpath of a set of dependencies and writes its outputs.
+     *
+     * @param artifacts the dependencies.
+     * @param classpathScope the scope of the classpath, appended to the names of the output files, or
+     *            <code>null</code>.
+     * @throws MojoExecutionException with a message if an error occurs.
+     */
+    private void buildClasspath( Set<Artifact> artifacts, String classpathScope )
+        throws MojoExecutionException
+    {
         Set<MavenProject> referencedProjects = new HashSet<MavenProject>();
         
         if(project.getParent() != null && followProjectLinks)
@@ -217,79 +318,160 @@ public class BuildClasspathMojo
         }
 
         List<Artifact> artList = new ArrayList<Artifact>( artifacts );
+        Classpath classpath = new Classpath( referencedProjects, artList );
 
-        StringBuffer sb = new StringBuffer();
-        
-        if(!referencedProjects.isEmpty())
+        if ( pathingJar != null )
         {
-        	for(MavenProject p : referencedProjects)
-        	{
-        		sb.append(p.getBasedir().getAbsolutePath() + "/target/classes");
-                sb.append( isPathSepSet ? this.pathSeparator : File.pathSeparator );
-        		sb.append(p.getBasedir().getAbsolutePath() + "/target/test-classes");
-                sb.append( isPathSepSet ? this.pathSeparator : File.pathSeparator );
-        	}
+            writePathingJar( getScopeFile( pathingJar, classpathScope ), referencedProjects, artList );
         }
-        
-        Iterator<Artifact> i = artList.iterator();
-
-        if ( i.hasNext() )
+        if ( argFile != null )
         {
-            appendArtifactPath( i.next(), sb );
+            writeArgFile( getScopeFile( argFile, classpathScope ), classpath );
+        }
+        if ( packageIndex != null || classList != null )
+        {
+            writeClasspathIndex( getScopeFile( packageIndex, classpathScope ), getScopeFile( classList, classpathScope ),
+                                 getScopeFile( pathingJar, classpathScope ), artList );
+        }
 
-            while ( i.hasNext() )
+        if ( outputFile == null )
+        {
+            StringWriter cpString = new StringWriter();
+            try
+            {
+                classpath.writeFileContent( cpString );
+            }
+            catch ( IOException e )
+            {
+                // not thrown by a string writer
+                throw new MojoExecutionException( e.getMessage(), e );
+            }
+            getLog().info( "Dependencies classpath" + ( classpathScope != null ? " of scope " + classpathScope : "" )
+                + ":\n" + cpString );
+        }
+        else
+        {
+            File scopeOutputFile = getScopeFile( outputFile, classpathScope );
+            String digest = classpath.getDigest();
+            if ( regenerateFile || !isUpdToDate( digest, scopeOutputFile ) )
+            {
+                storeClasspathFile( classpath, scopeOutputFile );
+                storeDigest( digest, scopeOutputFile );
+            }
+            else
             {
-                sb.append( isPathSepSet ? this.pathSeparator : File.pathSeparator );
-                appendArtifactPath( (Artifact) i.next(), sb );
+                this.getLog().info( "Skipped writing classpath file '" + scopeOutputFile + "'.  No changes found." );
             }
         }
+        if ( attach )
+        {
+            attachFile( classpath, classpathScope == null ? "classpath" : "classpath-" + classpathScope );
+        }
+    }
 
-        String cpString = sb.toString();
+    /**
+     * @return the file an output of the classpath of a scope is written to, or the file itself if there is no scope.
+     */
+    private static File getScopeFile( File file, String classpathScope )
+    {
+        return file != null && classpathScope != null ? DependencyUtil.getScopeFile( file, classpathScope ) : file;
+    }
+    
+    /**
+     * The classpath string of a set of dependencies, written entry by entry rather than built in memory.
+     */
+    private class Classpath
+    {
+        private final Set<MavenProject> referencedProjects;
 
-        // if file separator is set, I need to replace the default one from all
-        // the file paths that were pulled from the artifacts
-        if ( isFileSepSet )
+        private final List<Artifact> artList;
+
+        Classpath( Set<MavenProject> theReferencedProjects, List<Artifact> theArtList )
         {
-            // Escape file separators to be used as literal strings
-            final String pattern = Pattern.quote( File.separator );
-            final String replacement = Matcher.quoteReplacement( fileSeparator );
-            cpString = cpString.replaceAll( pattern, replacement );
+            this.referencedProjects = theReferencedProjects;
+            this.artList = theArtList;
         }
 
-        //make the string valid for filtering
-        if ( outputFilterFile )
+        /**
+         * Writes the content of the classpath file: the classpath string, in the filtering format if requested.
+         */
+        void writeFileContent( Writer out )
+            throws IOException
         {
-            cpString = "classpath=" + cpString;
+            //make the string valid for filtering
+            if ( outputFilterFile )
+            {
+                out.write( "classpath=" );
+            }
+            write( out, false );
         }
 
-        if ( outputFile == null )
+        /**
+         * Writes the classpath string.
+         *
+         * @param out the writer.
+         * @param quoted whether to escape the backslashes and quotes of the paths, for a java argument file.
+         */
+        void write( Writer out, boolean quoted )
+            throws IOException
         {
-            getLog().info( "Dependencies classpath:\n" + cpString );
+            String separator = isPathSepSet ? pathSeparator : File.pathSeparator;
+            for ( MavenProject p : referencedProjects )
+            {
+                writePath( out, p.getBasedir().getAbsolutePath() + "/target/classes", quoted );
+                writePath( out, separator, quoted );
+                writePath( out, p.getBasedir().getAbsolutePath() + "/target/test-classes", quoted );
+                writePath( out, separator, quoted );
+            }
+
+            StringBuffer sb = new StringBuffer();
+            for ( int i = 0; i < artList.size(); i++ )
+            {
+                if ( i > 0 )
+                {
+                    writePath( out, separator, quoted );
+                }
+                sb.setLength( 0 );
+                appendArtifactPath( artList.get( i ), sb );
+                writePath( out, sb.toString(), quoted );
+            }
         }
-        else
+
+        /**
+         * @return the digest of the content of the classpath file.
+         */
+        String getDigest()
+            throws MojoExecutionException
         {
-            if ( regenerateFile || !isUpdToDate( cpString ) )
+            DigestWriter digestWriter = new DigestWriter();
+            try
             {
-                storeClasspathFile( cpString, outputFile );
+                writeFileContent( digestWriter );
+                return digestWriter.getDigest();
             }
-            else
+            catch ( IOException e )
             {
-                this.getLog().info( "Skipped writing classpath file '" + outputFile + "'.  No changes found." );
+                throw new MojoExecutionException( "Error while computing the classpath digest: " + e.getMessage(), e );
             }
         }
-        if ( attach )
+
+        private void writePath( Writer out, String path, boolean quoted )
+            throws IOException
         {
-            attachFile( cpString );
+            // if file separator is set, I need to replace the default one from all
+            // the file paths that were pulled from the artifacts
+            String s = isFileSepSet ? StringUtils.replace( path, File.separator, fileSeparator ) : path;
+            out.write( quoted ? escapeArgument( s ) : s );
         }
     }
-    
-    protected void attachFile( String cpString )
+
+    protected void attachFile( Classpath classpath, String classifier )
         throws MojoExecutionException
     {
-        File attachedFile = new File( project.getBuild().getDirectory(), "classpath" );
-        storeClasspathFile( cpString, attachedFile );
+        File attachedFile = new File( project.getBuild().getDirectory(), classifier );
+        storeClasspathFile( classpath, attachedFile );
 
-        projectHelper.attachArtifact( project, attachedFile, "classpath" );
+        projectHelper.attachArtifact( project, attachedFile, classifier );
     }
 
     /**
@@ -320,44 +502,301 @@ public class BuildClasspathMojo
     }
 
     /**
-     * Checks that new classpath differs from that found inside the old classpathFile.
+     * Writes the pathing jar, its <code>Class-Path</code> listing the classes directories of the referenced projects
+     * and the artifacts.
+     */
+    private void writePathingJar( File jarFile, Set<MavenProject> referencedProjects, List<Artifact> artList )
+        throws MojoExecutionException
+    {
+        File directory = jarFile.getAbsoluteFile().getParentFile();
+        StringBuffer classPath = new StringBuffer();
+        for ( MavenProject p : referencedProjects )
+        {
+            File classes = new File( p.getBasedir(), "target/classes" );
+            File testClasses = new File( p.getBasedir(), "target/test-classes" );
+            appendClassPathEntry( getRelativeUri( directory, classes, true ), classPath );
+            appendClassPathEntry( getRelativeUri( directory, testClasses, true ), classPath );
+        }
+        for ( Artifact art : artList )
+        {
+            appendClassPathEntry( getClassPathEntry( directory, art ), classPath );
+        }
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put( Attributes.Name.MANIFEST_VERSION, "1.0" );
+        manifest.getMainAttributes().put( Attributes.Name.CLASS_PATH, classPath.toString() );
+
+        JarOutputStream out = null;
+        try
+        {
+            out = new JarOutputStream( OutputFiles.openStream( jarFile, false ), manifest );
+            OutputFiles.commit( out );
+            getLog().info( "Wrote pathing jar '" + jarFile + "'." );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error while writing pathing jar '" + jarFile + "'", e );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    /**
+     * @return the URI of an artifact in the <code>Class-Path</code> of a jar of the given directory.
+     */
+    private String getClassPathEntry( File directory, Artifact art )
+        throws MojoExecutionException
+    {
+        if ( prefix == null )
+        {
+            return getRelativeUri( directory, art.getFile(), false );
+        }
+
+        String path = prefix.replace( '\\', '/' ) + '/'
+            + DependencyUtil.getFormattedFileName( art, this.stripVersion, this.prependGroupId );
+        try
+        {
+            return new URI( null, null, path, null ).toASCIIString();
+        }
+        catch ( URISyntaxException e )
+        {
+            throw new MojoExecutionException( "Invalid classpath entry: " + path, e );
+        }
+    }
+
+    private static void appendClassPathEntry( String uri, StringBuffer classPath )
+    {
+        if ( classPath.length() > 0 )
+        {
+            classPath.append( ' ' );
+        }
+        classPath.append( uri );
+    }
+
+    /**
+     * Computes the URI of a file relative to a directory, as used in the <code>Class-Path</code> of a manifest.
+     *
+     * @param directory the directory.
+     * @param file the file.
+     * @param isDirectory whether the file is a directory, whose URI ends with a slash.
+     * @return the relative URI, or the absolute URI of the file if it is on another root than the directory.
+     */
+    static String getRelativeUri( File directory, File file, boolean isDirectory )
+    {
+        String base = directory.getAbsoluteFile().toURI().normalize().getRawPath();
+        if ( !base.endsWith( "/" ) )
+        {
+            base += "/";
+        }
+        URI target = file.getAbsoluteFile().toURI().normalize();
+        String path = target.getRawPath();
+        if ( isDirectory && !path.endsWith( "/" ) )
+        {
+            path += "/";
+        }
+
+        // the length of the common directories
+        int common = 0;
+        for ( int i = 0; i < base.length() && i < path.length() && base.charAt( i ) == path.charAt( i ); i++ )
+        {
+            if ( base.charAt( i ) == '/' )
+            {
+                common = i + 1;
+            }
+        }
+        if ( common <= 1 )
+        {
+            return "file:" + path;
+        }
+
+        StringBuffer uri = new StringBuffer();
+        for ( int i = common; i < base.length(); i++ )
+        {
+            if ( base.charAt( i ) == '/' )
+            {
+                uri.append( "../" );
+            }
+        }
+        return uri.append( path.substring( common ) ).toString();
+    }
+
+    /**
+     * Writes the package index and the class list of the jars of the classpath. The jars are named in the index as in
+     * the <code>Class-Path</code> of the pathing jar, or of a jar next to the index without pathing jar.
+     */
+    private void writeClasspathIndex( File indexFile, File listFile, File jarFile, List<Artifact> artList )
+        throws MojoExecutionException
+    {
+        File directory = ( jarFile != null ? jarFile : indexFile != null ? indexFile : listFile ).getAbsoluteFile()
+            .getParentFile();
+        List<File> jars = new ArrayList<File>( artList.size() );
+        List<String> names = new ArrayList<String>( artList.size() );
+        boolean relative = true;
+        for ( Artifact art : artList )
+        {
+            // the poms, zips and other files of the classpath hold no classes to index
+            if ( art.getFile().isFile() && art.getFile().getName().endsWith( ".jar" ) )
+            {
+                jars.add( art.getFile() );
+                String name = getClassPathEntry( directory, art );
+                if ( indexFile != null && relative && name.startsWith( "file:" ) )
+                {
+                    getLog().warn( "Not writing package index '" + indexFile + "': " + art.getFile()
+                        + " has no URI relative to " + directory );
+                    relative = false;
+                }
+                names.add( name );
+            }
+        }
+        ClasspathIndex index = new ClasspathIndex( jars, threads );
+
+        File file = null;
+        Writer w = null;
+        try
+        {
+            if ( indexFile != null && relative )
+            {
+                file = indexFile;
+                w = OutputFiles.openWriter( file, false );
+                index.writePackageIndex( w, names );
+                OutputFiles.commit( w );
+                getLog().info( "Wrote package index '" + file + "'." );
+            }
+            if ( listFile != null )
+            {
+                file = listFile;
+                w = OutputFiles.openWriter( file, false );
+                index.writeClassList( w );
+                OutputFiles.commit( w );
+                getLog().info( "Wrote class list '" + file + "'." );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error while writing '" + file + "'", e );
+        }
+        finally
+        {
+            IOUtil.close( w );
+        }
+    }
+
+    /**
+     * Writes the java argument file.
+     */
+    private void writeArgFile( File file, Classpath classpath )
+        throws MojoExecutionException
+    {
+        Writer w = null;
+        try
+        {
+            w = OutputFiles.openWriter( file, false );
+            w.write( "-classpath\n\"" );
+            classpath.write( w, true );
+            w.write( "\"\n" );
+            OutputFiles.commit( w );
+            getLog().info( "Wrote argument file '" + file + "'." );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Error while writing argument file '" + file + "'", e );
+        }
+        finally
+        {
+            IOUtil.close( w );
+        }
+    }
+
+    /**
+     * Escapes the backslashes and quotes of a quoted argument of a java argument file.
+     */
+    static String escapeArgument( String argument )
+    {
+        if ( argument.indexOf( '\\' ) < 0 && argument.indexOf( '"' ) < 0 )
+        {
+            return argument;
+        }
+        StringBuffer escaped = new StringBuffer( argument.length() + 8 );
+        for ( int i = 0; i < argument.length(); i++ )
+        {
+            char c = argument.charAt( i );
+            if ( c == '\\' || c == '"' )
+            {
+                escaped.append( '\\' );
+            }
+            escaped.append( c );
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Checks that the new classpath equals the one written to the classpath file, by comparing its digest to the one
+     * stored next to the file when it was written, so that the file itself is not read.
      *
-     * @param cpString
-     * @return true if the specified classpath equals to that found inside the file, false otherwise (including when
-     *         file does not exists but new classpath does).
+     * @param digest the digest of the new content of the classpath file.
+     * @param file the classpath file.
+     * @return true if the file exists and the digest stored with it equals the specified one, false otherwise
+     *         (including when the file or its digest does not exist).
      */
-    private boolean isUpdToDate( String cpString )
+    private boolean isUpdToDate( String digest, File file )
     {
+        File digestFile = getDigestFile( file );
+        if ( !file.isFile() || !digestFile.isFile() )
+        {
+            return false;
+        }
         try
         {
-            String oldCp = readClasspathFile();
-            return ( cpString == oldCp || ( cpString != null && cpString.equals( oldCp ) ) );
+            return digest.equals( FileUtils.fileRead( digestFile, "UTF-8" ).trim() );
         }
-        catch ( Exception ex )
+        catch ( IOException ex )
         {
-            this.getLog().warn( "Error while reading old classpath file '" + outputFile + "' for up-to-date check: " + ex );
+            this.getLog().warn( "Error while reading digest file '" + digestFile + "' for up-to-date check: " + ex );
 
             return false;
         }
     }
 
     /**
-     * It stores the specified string into that file.
+     * @return the file the digest of a classpath file is stored to.
+     */
+    static File getDigestFile( File file )
+    {
+        return new File( file.getPath() + ".sha1" );
+    }
+
+    private void storeDigest( String digest, File file )
+        throws MojoExecutionException
+    {
+        File digestFile = getDigestFile( file );
+        try
+        {
+            OutputFiles.write( digest + "\n", digestFile, false );
+        }
+        catch ( IOException ex )
+        {
+            throw new MojoExecutionException( "Error while writing digest file '" + digestFile + "': " + ex.toString(),
+                                              ex );
+        }
+    }
+
+    /**
+     * It writes the specified classpath into that file.
      *
-     * @param cpString the string to be written into the file.
+     * @param classpath the classpath to be written into the file.
      * @throws MojoExecutionException
      */
-    private void storeClasspathFile( String cpString, File out )
+    private void storeClasspathFile( Classpath classpath, File out )
         throws MojoExecutionException
     {
-        //make sure the parent path exists.
-        out.getParentFile().mkdirs();
-
         Writer w = null;
         try
         {
-            w = new BufferedWriter( new FileWriter( out ) );
-            w.write( cpString );
+            w = OutputFiles.openWriter( out, false );
+            classpath.writeFileContent( w );
+            OutputFiles.commit( w );
             getLog().info( "Wrote classpath file '" + out + "'." );
         }
         catch ( IOException ex )
@@ -387,7 +826,13 @@ public class BuildClasspathMojo
                                                 "The outputFile parameter cannot be null if the file is intended to be read." );
         }
 
-        if ( !outputFile.isFile() )
+        return readClasspathFile( outputFile );
+    }
+
+    private String readClasspathFile( File file )
+        throws IOException
+    {
+        if ( !file.isFile() )
         {
             return null;
         }
@@ -396,7 +841,7 @@ public class BuildClasspathMojo
 
         try
         {
-            r = new BufferedReader( new FileReader( outputFile ) );
+            r = new BufferedReader( new FileReader( file ) );
             String l;
             while ( ( l = r.readLine() ) != null )
             {
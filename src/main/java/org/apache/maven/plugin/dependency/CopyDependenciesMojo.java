@@ -33,6 +33,7 @@ import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.utils.DependencyStatusSets;
 import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.DestinationLock;
 import org.apache.maven.plugin.dependency.utils.filters.DestFileFilter;
 import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
 
@@ -41,6 +42,7 @@ import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
  * location.
  *
  * @goal copy-dependencies
+ * @threadSafe
  * @requiresDependencyResolution test
  * @phase process-sources
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
@@ -194,7 +196,22 @@ public class CopyDependenciesMojo
                                                               artifact );
         File destFile = new File( destDir, destFileName );
 
-        copyFile( artifact.getFile(), destFile );
+        DestinationLock lock = lockDestination( destFile, artifact );
+        try
+        {
+            if ( isStillUnmarked( artifact ) )
+            {
+                copyFile( artifact.getFile(), destFile );
+            }
+            else
+            {
+                getLog().info( artifact.getFile().getName() + " already copied by another build." );
+            }
+        }
+        finally
+        {
+            unlockDestination( lock );
+        }
     }
 
     /**
@@ -213,9 +230,17 @@ public class CopyDependenciesMojo
             {
                 File pomDestFile = new File( destDir, DependencyUtil.getFormattedFileName( pomArtifact, removeVersion,
                                                                                            prependGroupId) );
-                if ( ! pomDestFile.exists() )
+                DestinationLock lock = lockDestination( pomDestFile, pomArtifact );
+                try
+                {
+                    if ( ! pomDestFile.exists() )
+                    {
+                        copyFile( pomArtifact.getFile(), pomDestFile );
+                    }
+                }
+                finally
                 {
-                    copyFile( pomArtifact.getFile(), pomDestFile );
+                    unlockDestination( lock );
                 }
             }
         }
@@ -0,0 +1,306 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.FileHashIndex;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
+import org.codehaus.plexus.util.Os;
+import org.codehaus.plexus.util.cli.CommandLineException;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
+import org.codehaus.plexus.util.cli.Commandline;
+
+/**
+ * Replaces the files of the local repository having identical content, e.g. the same jar installed under several
+ * coordinates or relocated, with hard links to a single copy.
+ * <p>
+ * The hashes of the files are kept in an index at the root of the repository, so that later runs only hash the files
+ * which were added or modified since. A file sharing its content through a link must never be written in place, as
+ * the write would go to every linked file. Maven writes the files it installs in place, so the files Maven rewrites on
+ * each build are never linked: the non-timestamped <code>-SNAPSHOT</code> files and the repository metadata. The goal
+ * should not be used on a repository whose files are edited by hand, or whose releases are installed again.
+ *
+ * @goal dedup-local-repository
+ * @threadSafe
+ * @requiresProject false
+ * @version $Id$
+ * @since 2.5
+ */
+public class DedupLocalRepositoryMojo
+    extends AbstractMojo
+{
+    /**
+     * The name of the hash index, at the root of the repository.
+     */
+    public static final String INDEX_FILE_NAME = ".dependency-hashes";
+
+    /**
+     * The local repository to deduplicate.
+     *
+     * @parameter default-value="${localRepository}"
+     * @required
+     * @readonly
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * The minimum size of the files to deduplicate, in bytes. Smaller files such as checksums and metadata are not
+     * worth a link.
+     *
+     * @parameter expression="${minSize}" default-value="1024"
+     */
+    private long minSize = 1024;
+
+    /**
+     * Only report the files that would be linked and the space it would save.
+     *
+     * @parameter expression="${dryRun}" default-value="false"
+     */
+    private boolean dryRun;
+
+    /**
+     * The number of threads used to hash and link the files. None of these tasks calls the artifact resolver, so they
+     * use all the threads with Maven 2.x too.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     */
+    private int threads = 4;
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        File repositoryDirectory = new File( localRepository.getBasedir() );
+        final FileHashIndex index = new FileHashIndex( new File( repositoryDirectory, INDEX_FILE_NAME ) );
+        try
+        {
+            index.load();
+        }
+        catch ( IOException e )
+        {
+            getLog().warn( "Couldn't read the hash index, all the files will be hashed: " + e.getMessage() );
+        }
+
+        final Map<String, File> files = new TreeMap<String, File>();
+        findFiles( repositoryDirectory, "", files );
+
+        // only hash the files the index doesn't know about or which changed since
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        for ( final Map.Entry<String, File> file : files.entrySet() )
+        {
+            FileHashIndex.Entry entry = index.get( file.getKey() );
+            if ( entry == null || !entry.isValid( file.getValue() ) )
+            {
+                tasks.add( new Callable<String>()
+                {
+                    public String call()
+                        throws IOException
+                    {
+                        File f = file.getValue();
+                        long lastModified = f.lastModified();
+                        long size = f.length();
+                        index.put( file.getKey(), new FileHashIndex.Entry( FileHashIndex.hash( f ), size,
+                                                                           lastModified ) );
+                        return file.getKey();
+                    }
+                } );
+            }
+        }
+        getLog().info( "Hashing " + tasks.size() + " of " + files.size() + " files" );
+        ParallelTasks.invokeAll( threads, tasks, "Couldn't hash file" );
+
+        // group the files by content, the first path of each group being the copy the others are linked to
+        Map<String, List<String>> groups = new TreeMap<String, List<String>>();
+        for ( String path : files.keySet() )
+        {
+            FileHashIndex.Entry entry = index.get( path );
+            String key = entry.getHash() + "-" + entry.getSize();
+            List<String> group = groups.get( key );
+            if ( group == null )
+            {
+                group = new ArrayList<String>();
+                groups.put( key, group );
+            }
+            group.add( path );
+        }
+
+        long alreadySaved = 0;
+        long saved = 0;
+        List<Callable<String>> links = new ArrayList<Callable<String>>();
+        for ( List<String> group : groups.values() )
+        {
+            final String canonicalPath = group.get( 0 );
+            final File canonical = files.get( canonicalPath );
+            for ( final String path : group.subList( 1, group.size() ) )
+            {
+                final FileHashIndex.Entry entry = index.get( path );
+                if ( canonicalPath.equals( entry.getLinkedTo() ) )
+                {
+                    alreadySaved += entry.getSize();
+                    continue;
+                }
+
+                saved += entry.getSize();
+                getLog().info( ( dryRun ? "Would link " : "Linking " ) + path + " to " + canonicalPath );
+                if ( !dryRun )
+                {
+                    links.add( new Callable<String>()
+                    {
+                        public String call()
+                            throws IOException
+                        {
+                            File duplicate = files.get( path );
+                            link( canonical, duplicate );
+                            FileHashIndex.Entry linked =
+                                new FileHashIndex.Entry( entry.getHash(), duplicate.length(), duplicate.lastModified() );
+                            linked.setLinkedTo( canonicalPath );
+                            index.put( path, linked );
+                            return path;
+                        }
+                    } );
+                }
+            }
+        }
+
+        try
+        {
+            ParallelTasks.invokeAll( threads, links, "Couldn't link file" );
+        }
+        finally
+        {
+            index.removeMissing( repositoryDirectory );
+            try
+            {
+                index.save();
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Couldn't write the hash index: " + e.getMessage() );
+            }
+        }
+
+        getLog().info( ( dryRun ? "Would save " : "Saved " ) + FileUtils.byteCountToDisplaySize( saved ) + " ("
+                           + FileUtils.byteCountToDisplaySize( alreadySaved ) + " saved by previous runs)." );
+    }
+
+    /**
+     * Finds the files of the repository worth deduplicating, skipping the files at its root such as the indexes, and
+     * the files Maven writes in place.
+     */
+    private void findFiles( File directory, String path, Map<String, File> files )
+    {
+        File[] children = directory.listFiles();
+        if ( children == null )
+        {
+            return;
+        }
+
+        for ( File child : children )
+        {
+            String childPath = path.length() == 0 ? child.getName() : path + "/" + child.getName();
+            if ( child.isDirectory() )
+            {
+                if ( !child.getName().startsWith( "." ) )
+                {
+                    findFiles( child, childPath, files );
+                }
+            }
+            else if ( path.length() > 0 && child.length() >= minSize && !isWrittenInPlace( child.getName() ) )
+            {
+                files.put( childPath, child );
+            }
+        }
+    }
+
+    /**
+     * @param name the name of a file of the repository.
+     * @return whether Maven writes the file in place when it installs or resolves an artifact again: the
+     *         non-timestamped files of a snapshot, installed on every build, and the repository metadata.
+     */
+    static boolean isWrittenInPlace( String name )
+    {
+        return name.indexOf( "-SNAPSHOT" ) >= 0 || name.startsWith( "maven-metadata" );
+    }
+
+    /**
+     * Replaces a file with a hard link to another one. The link is created next to the file then renamed over it, so
+     * that the file is never missing on platforms where a rename replaces its target.
+     *
+     * @param target the file to link to.
+     * @param file the file to replace.
+     * @throws IOException if the link can not be created.
+     */
+    static void link( File target, File file )
+        throws IOException
+    {
+        File tmp = new File( file.getPath() + ".dedup" );
+        tmp.delete();
+
+        // no hard link API before Java 7: use the platform command
+        Commandline cl = new Commandline();
+        if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
+        {
+            cl.setExecutable( "cmd" );
+            cl.createArg().setValue( "/c" );
+            cl.createArg().setValue( "mklink" );
+            cl.createArg().setValue( "/H" );
+            cl.createArg().setFile( tmp );
+            cl.createArg().setFile( target );
+        }
+        else
+        {
+            cl.setExecutable( "ln" );
+            cl.createArg().setFile( target );
+            cl.createArg().setFile( tmp );
+        }
+
+        CommandLineUtils.StringStreamConsumer err = new CommandLineUtils.StringStreamConsumer();
+        int exitCode;
+        try
+        {
+            exitCode = CommandLineUtils.executeCommandLine( cl, new CommandLineUtils.StringStreamConsumer(), err );
+        }
+        catch ( CommandLineException e )
+        {
+            throw new IOException( "Couldn't link " + file + " to " + target + ": " + e.getMessage() );
+        }
+        if ( exitCode != 0 || !tmp.exists() )
+        {
+            throw new IOException( "Couldn't link " + file + " to " + target + ": " + err.getOutput().trim() );
+        }
+
+        if ( !tmp.renameTo( file ) && !( file.delete() && tmp.renameTo( file ) ) )
+        {
+            tmp.delete();
+            throw new IOException( "Couldn't replace " + file + " with a link to " + target );
+        }
+    }
+}
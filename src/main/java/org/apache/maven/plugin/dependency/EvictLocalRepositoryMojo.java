@@ -0,0 +1,238 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.LocalRepositoryScanner;
+import org.apache.maven.plugin.dependency.utils.LocalRepositoryScanner.VersionDirectory;
+import org.apache.maven.plugin.dependency.utils.RepositoryUsageJournal;
+
+/**
+ * Evicts the least recently used artifact versions from the local repository until it fits in a size budget, and/or
+ * the versions which have not been used for a given number of days.
+ * <p>
+ * The last use of a version directory is the most recent of the modification time of its files and of the time
+ * recorded in the usage journal that the dependency goals write when their <code>mdep.recordUsage</code> parameter is
+ * set.
+ *
+ * @goal evict-local-repository
+ * @threadSafe
+ * @requiresProject false
+ * @version $Id$
+ * @since 2.5
+ */
+public class EvictLocalRepositoryMojo
+    extends AbstractMojo
+{
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * The local repository to evict artifacts from.
+     *
+     * @parameter default-value="${localRepository}"
+     * @required
+     * @readonly
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * The maximum size of the repository once the eviction is done, in bytes, or with a <code>k</code>,
+     * <code>m</code> or <code>g</code> unit suffix, e.g. <code>20g</code>.
+     *
+     * @parameter expression="${maxSize}"
+     */
+    private String maxSize;
+
+    /**
+     * Evict the artifact versions which have not been used for this number of days. Disabled when 0 or less.
+     *
+     * @parameter expression="${maxAge}" default-value="0"
+     */
+    private int maxAge;
+
+    /**
+     * Only report the artifact versions that would be evicted and the space it would free.
+     *
+     * @parameter expression="${dryRun}" default-value="false"
+     */
+    private boolean dryRun;
+
+    /**
+     * The number of threads used to scan the repository and delete the evicted versions. None of these tasks calls
+     * the artifact resolver, so they use all the threads with Maven 2.x too.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     */
+    private int threads = 4;
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        long maxBytes = maxSize == null ? -1 : parseSize( maxSize );
+        if ( maxBytes < 0 && maxAge <= 0 )
+        {
+            throw new MojoFailureException( "You must specify a maxSize and/or a maxAge, e.g. -DmaxSize=20g" );
+        }
+
+        File repositoryDirectory = new File( localRepository.getBasedir() );
+        RepositoryUsageJournal journal = new RepositoryUsageJournal( repositoryDirectory );
+        Map<String, Long> usages;
+        try
+        {
+            usages = journal.read();
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't read the usage journal: " + e.getMessage(), e );
+        }
+
+        LocalRepositoryScanner scanner = new LocalRepositoryScanner( repositoryDirectory, threads, getLog() );
+        List<VersionDirectory> versions = scanner.scan();
+        long totalSize = 0;
+        for ( VersionDirectory version : versions )
+        {
+            Long recorded = usages.get( version.getPath() );
+            if ( recorded != null )
+            {
+                version.setLastUse( Math.max( version.getLastUse(), recorded.longValue() ) );
+            }
+            totalSize += version.getSize();
+        }
+
+        List<VersionDirectory> evicted = selectEvicted( versions, totalSize, maxBytes,
+                                                        maxAge > 0 ? System.currentTimeMillis() - maxAge * DAY : -1 );
+        long freed = 0;
+        for ( VersionDirectory version : evicted )
+        {
+            freed += version.getSize();
+            getLog().info( ( dryRun ? "Would evict " : "Evicting " ) + version.getPath() + " ("
+                               + FileUtils.byteCountToDisplaySize( version.getSize() ) + ", last used "
+                               + new Date( version.getLastUse() ) + ")" );
+        }
+
+        if ( !dryRun )
+        {
+            scanner.delete( evicted );
+
+            Map<String, Long> removed = new HashMap<String, Long>();
+            for ( VersionDirectory version : evicted )
+            {
+                removed.put( version.getPath(), Long.valueOf( version.getLastUse() ) );
+            }
+            try
+            {
+                journal.compact( removed );
+            }
+            catch ( IOException e )
+            {
+                getLog().warn( "Couldn't compact the usage journal: " + e.getMessage() );
+            }
+        }
+
+        getLog().info( ( dryRun ? "Would free " : "Freed " ) + FileUtils.byteCountToDisplaySize( freed ) + " ("
+                           + evicted.size() + " of " + versions.size() + " artifact versions), the repository "
+                           + ( dryRun ? "would use " : "uses " ) + FileUtils.byteCountToDisplaySize( totalSize - freed )
+                           + "." );
+    }
+
+    /**
+     * Selects the versions to evict, the least recently used first.
+     *
+     * @param versions the versions of the repository.
+     * @param totalSize the size of all the versions.
+     * @param maxBytes the size the repository must fit in, or a negative value.
+     * @param oldestUse the time before which versions are evicted whatever the size, or a negative value.
+     * @return the versions to evict.
+     */
+    static List<VersionDirectory> selectEvicted( List<VersionDirectory> versions, long totalSize, long maxBytes,
+                                                 long oldestUse )
+    {
+        List<VersionDirectory> sorted = new ArrayList<VersionDirectory>( versions );
+        Collections.sort( sorted, new Comparator<VersionDirectory>()
+        {
+            public int compare( VersionDirectory v1, VersionDirectory v2 )
+            {
+                long lastUse1 = v1.getLastUse();
+                long lastUse2 = v2.getLastUse();
+                return lastUse1 < lastUse2 ? -1 : ( lastUse1 == lastUse2 ? 0 : 1 );
+            }
+        } );
+
+        List<VersionDirectory> evicted = new ArrayList<VersionDirectory>();
+        long size = totalSize;
+        for ( VersionDirectory version : sorted )
+        {
+            if ( ( maxBytes >= 0 && size > maxBytes ) || version.getLastUse() < oldestUse )
+            {
+                evicted.add( version );
+                size -= version.getSize();
+            }
+            else
+            {
+                break;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @param size a size in bytes, with an optional <code>k</code>, <code>m</code>, <code>g</code> or
+     *            <code>t</code> unit suffix.
+     * @return the size in bytes.
+     */
+    static long parseSize( String size )
+        throws MojoFailureException
+    {
+        String value = size.trim().toLowerCase();
+        long unit = 1;
+        if ( value.endsWith( "b" ) )
+        {
+            value = value.substring( 0, value.length() - 1 );
+        }
+        int index = "kmgt".indexOf( value.length() > 0 ? value.charAt( value.length() - 1 ) : ' ' );
+        if ( index >= 0 )
+        {
+            unit = 1L << ( 10 * ( index + 1 ) );
+            value = value.substring( 0, value.length() - 1 );
+        }
+        try
+        {
+            return Long.parseLong( value.trim() ) * unit;
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new MojoFailureException( "Invalid size " + size + ", expected e.g. 500m or 20g" );
+        }
+    }
+}
@@ -0,0 +1,758 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactResolutionException;
+import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Extension;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.LocalRepositoryScanner;
+import org.apache.maven.plugin.dependency.utils.LocalRepositoryScanner.VersionDirectory;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectBuilder;
+import org.apache.maven.project.ProjectBuildingException;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Deletes from the local repository every artifact version which is not referenced, the references being computed
+ * from the projects of the reactor and/or from resolution manifests. The references of a project are its transitive
+ * dependencies, its plugins, reports and build extensions with their runtime dependencies, and the parent and imported
+ * POMs of all of them. The plugins bound to the default lifecycles which the POM doesn't configure, whose version
+ * Maven 2.x only selects when running them, are kept with all their versions found in the repository. This plugin and
+ * its dependencies are kept too.
+ * <p>
+ * A manifest is a text file listing one artifact per line as <code>groupId:artifactId:version</code>,
+ * <code>groupId:artifactId:type:version</code> or in the format of the <code>list</code> goal output, e.g. the output
+ * file of <code>dependency:list</code> stored by a previous build, with or without the scopes and the absolute file
+ * names. The output of <code>dependency:resolve-plugins</code> only holds file names and can't be used. Any other line
+ * fails the build, as the artifacts it was meant to reference would be deleted.
+ *
+ * @goal gc-local-repository
+ * @threadSafe
+ * @aggregator
+ * @requiresProject false
+ * @version $Id$
+ * @since 2.5
+ */
+public class GarbageCollectLocalRepositoryMojo
+    extends AbstractDependencyMojo
+{
+    /**
+     * The headings of the <code>list</code> goal output.
+     */
+    private static final Set<String> LIST_HEADINGS =
+        new HashSet<String>( Arrays.asList( new String[] { "The following files have been resolved:", "none",
+            "The following files were skipped:", "The following files have NOT been resolved:" } ) );
+
+    /**
+     * The plugins bound to the default lifecycles of the standard packagings.
+     */
+    private static final String[] LIFECYCLE_PLUGINS =
+        { "maven-clean-plugin", "maven-resources-plugin", "maven-compiler-plugin", "maven-surefire-plugin",
+            "maven-jar-plugin", "maven-war-plugin", "maven-ear-plugin", "maven-ejb-plugin", "maven-rar-plugin",
+            "maven-plugin-plugin", "maven-install-plugin", "maven-deploy-plugin", "maven-site-plugin" };
+
+    private static final String LIFECYCLE_PLUGINS_GROUP_ID = "org.apache.maven.plugins";
+
+    private static final Set<String> SCOPES =
+        new HashSet<String>( Arrays.asList( new String[] { Artifact.SCOPE_COMPILE, Artifact.SCOPE_PROVIDED,
+            Artifact.SCOPE_RUNTIME, Artifact.SCOPE_TEST, Artifact.SCOPE_SYSTEM, "import" } ) );
+
+    /**
+     * @component role="org.apache.maven.project.MavenProjectBuilder"
+     * @required
+     * @readonly
+     */
+    private MavenProjectBuilder mavenProjectBuilder;
+
+    /**
+     * @parameter expression="${project.pluginArtifactRepositories}"
+     * @required
+     * @readonly
+     */
+    private List<ArtifactRepository> remotePluginRepositories;
+
+    /**
+     * This plugin and its dependencies, needed by the build running it.
+     *
+     * @parameter expression="${plugin.artifacts}"
+     * @readonly
+     */
+    private List<Artifact> pluginArtifacts;
+
+    /**
+     * The resolution manifests listing referenced artifacts.
+     *
+     * @parameter
+     */
+    private List<File> manifests;
+
+    /**
+     * Comma-separated list of resolution manifests. This is a command-line alternative to the <code>manifests</code>
+     * parameter.
+     *
+     * @parameter expression="${manifest}"
+     */
+    private String manifest;
+
+    /**
+     * Whether the projects of the reactor are roots of the references. Disable it to collect the repository from the
+     * manifests only.
+     *
+     * @parameter expression="${useReactor}" default-value="true"
+     */
+    private boolean useReactor;
+
+    /**
+     * Determines what is kept for a referenced artifact, as the <code>resolutionFuzziness</code> of the
+     * <code>purge-local-repository</code> goal determines what is deleted: <b>version</b> <i>(default)</i> keeps its
+     * version directory, <b>artifactId</b> all its versions, and <b>groupId</b> all the artifacts of its groupId.
+     * Collecting at the file level is not supported, <b>file</b> is handled as <b>version</b>.
+     *
+     * @parameter expression="${resolutionFuzziness}" default-value="version"
+     */
+    private String resolutionFuzziness;
+
+    /**
+     * Only report what would be deleted.
+     *
+     * @parameter expression="${dryRun}" default-value="false"
+     */
+    private boolean dryRun;
+
+    /**
+     * The number of threads used to read the POMs, scan the repository and delete the unreferenced versions. None of
+     * these tasks calls the artifact resolver, so they use all the threads with Maven 2.x too.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     */
+    private int threads = 4;
+
+    private File repositoryDirectory;
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        repositoryDirectory = new File( getLocal().getBasedir() );
+
+        // mark
+        Map<String, Artifact> referenced = new LinkedHashMap<String, Artifact>();
+        Set<String> kept = new HashSet<String>();
+        List<Model> models = new ArrayList<Model>();
+        if ( useReactor )
+        {
+            for ( MavenProject reactorProject : reactorProjects )
+            {
+                markProject( reactorProject, referenced, kept );
+                models.add( reactorProject.getOriginalModel() );
+            }
+        }
+        for ( File manifestFile : getManifests() )
+        {
+            markManifest( manifestFile, referenced );
+        }
+        if ( referenced.isEmpty() && kept.isEmpty() )
+        {
+            throw new MojoFailureException( "No referenced artifact found, refusing to delete the whole repository." );
+        }
+        if ( pluginArtifacts != null )
+        {
+            for ( Artifact artifact : pluginArtifacts )
+            {
+                mark( artifact, referenced );
+            }
+        }
+        markPoms( models, referenced );
+
+        for ( Artifact artifact : referenced.values() )
+        {
+            kept.add( getKeptPath( artifact ) );
+        }
+        getLog().info( "Found " + referenced.size() + " referenced artifacts." );
+
+        // sweep
+        LocalRepositoryScanner scanner = new LocalRepositoryScanner( repositoryDirectory, threads, getLog() );
+        List<VersionDirectory> versions = scanner.scan();
+        List<VersionDirectory> unreferenced = new ArrayList<VersionDirectory>();
+        for ( VersionDirectory version : versions )
+        {
+            if ( !isKept( version.getPath(), kept ) )
+            {
+                unreferenced.add( version );
+            }
+        }
+
+        report( unreferenced, versions.size() );
+
+        if ( !dryRun )
+        {
+            scanner.delete( unreferenced );
+        }
+    }
+
+    private List<File> getManifests()
+    {
+        List<File> files = new ArrayList<File>();
+        if ( manifest != null )
+        {
+            for ( String name : DependencyUtil.tokenizer( manifest ) )
+            {
+                files.add( new File( name ) );
+            }
+        }
+        else if ( manifests != null )
+        {
+            files.addAll( manifests );
+        }
+        return files;
+    }
+
+    /**
+     * Marks the project artifact, its transitive dependencies, its plugins, reports and build extensions and their
+     * dependencies.
+     */
+    private void markProject( MavenProject theProject, Map<String, Artifact> referenced, Set<String> kept )
+        throws MojoExecutionException
+    {
+        mark( theProject.getArtifact(), referenced );
+        for ( Artifact artifact : getProjectArtifactsCollector().collect( theProject, null ) )
+        {
+            mark( artifact, referenced );
+        }
+
+        Set<Artifact> buildArtifacts = new LinkedHashSet<Artifact>();
+        buildArtifacts.addAll( theProject.getPluginArtifacts() );
+        buildArtifacts.addAll( theProject.getReportArtifacts() );
+        if ( theProject.getExtensionArtifacts() != null )
+        {
+            buildArtifacts.addAll( theProject.getExtensionArtifacts() );
+        }
+        for ( Extension extension : (List<Extension>) theProject.getBuildExtensions() )
+        {
+            if ( extension.getVersion() == null )
+            {
+                markLocalVersions( extension.getGroupId(), extension.getArtifactId(), referenced, kept );
+            }
+            else
+            {
+                buildArtifacts.add( factory.createBuildArtifact( extension.getGroupId(), extension.getArtifactId(),
+                                                                 extension.getVersion(), "jar" ) );
+            }
+        }
+        for ( Artifact artifact : buildArtifacts )
+        {
+            markBuildArtifact( artifact, referenced, kept );
+        }
+
+        Set<String> pluginKeys = new HashSet<String>();
+        for ( Plugin plugin : (List<Plugin>) theProject.getBuildPlugins() )
+        {
+            pluginKeys.add( plugin.getKey() );
+            markPluginDependencies( theProject, plugin, referenced, kept );
+        }
+        for ( String artifactId : LIFECYCLE_PLUGINS )
+        {
+            if ( !pluginKeys.contains( Plugin.constructKey( LIFECYCLE_PLUGINS_GROUP_ID, artifactId ) ) )
+            {
+                markLocalVersions( LIFECYCLE_PLUGINS_GROUP_ID, artifactId, referenced, kept );
+            }
+        }
+    }
+
+    /**
+     * Marks a plugin, report or build extension and its runtime dependencies.
+     */
+    private void markBuildArtifact( Artifact artifact, Map<String, Artifact> referenced, Set<String> kept )
+        throws MojoExecutionException
+    {
+        if ( artifact.getVersion() == null || Artifact.RELEASE_VERSION.equals( artifact.getVersion() )
+            || Artifact.LATEST_VERSION.equals( artifact.getVersion() ) )
+        {
+            // the version Maven will use is not known
+            markLocalVersions( artifact.getGroupId(), artifact.getArtifactId(), referenced, kept );
+            return;
+        }
+        if ( !mark( artifact, referenced ) )
+        {
+            return;
+        }
+
+        try
+        {
+            Artifact pomArtifact =
+                factory.createProjectArtifact( artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion() );
+            MavenProject buildProject =
+                mavenProjectBuilder.buildFromRepository( pomArtifact, remotePluginRepositories, getLocal() );
+            for ( Artifact dependency : getProjectArtifactsCollector().collect( buildProject,
+                                                                                new ScopeArtifactFilter(
+                                                                                    Artifact.SCOPE_RUNTIME ) ) )
+            {
+                mark( dependency, referenced );
+            }
+        }
+        catch ( ProjectBuildingException e )
+        {
+            getLog().warn( "Keeping all the versions of " + artifact.getDependencyConflictId()
+                               + ", its dependencies can't be computed: " + e.getMessage() );
+            kept.add( getKeptPath( artifact, PurgeLocalRepositoryMojo.ARTIFACT_ID_FUZZINESS ) );
+        }
+    }
+
+    /**
+     * Keeps all the versions of a plugin or build extension found in the repository, and marks their runtime
+     * dependencies.
+     */
+    private void markLocalVersions( String groupId, String artifactId, Map<String, Artifact> referenced,
+                                    Set<String> kept )
+        throws MojoExecutionException
+    {
+        String path = getKeptPath( factory.createProjectArtifact( groupId, artifactId, "none" ),
+                                   PurgeLocalRepositoryMojo.ARTIFACT_ID_FUZZINESS );
+        if ( !kept.add( path ) )
+        {
+            return;
+        }
+
+        File[] versions = new File( repositoryDirectory, path ).listFiles();
+        if ( versions == null )
+        {
+            return;
+        }
+        for ( File version : versions )
+        {
+            Artifact pom = factory.createProjectArtifact( groupId, artifactId, version.getName() );
+            if ( version.isDirectory() && new File( repositoryDirectory, getLocal().pathOf( pom ) ).isFile() )
+            {
+                markBuildArtifact( pom, referenced, kept );
+            }
+        }
+    }
+
+    /**
+     * Marks the dependencies added to a plugin in the POM, and their transitive runtime dependencies.
+     */
+    private void markPluginDependencies( MavenProject theProject, Plugin plugin, Map<String, Artifact> referenced,
+                                         Set<String> kept )
+        throws MojoExecutionException
+    {
+        Set<Artifact> dependencies = new LinkedHashSet<Artifact>();
+        for ( Dependency dependency : (List<Dependency>) plugin.getDependencies() )
+        {
+            VersionRange versionRange = null;
+            try
+            {
+                versionRange = dependency.getVersion() == null ? null
+                                : VersionRange.createFromVersionSpec( dependency.getVersion() );
+            }
+            catch ( InvalidVersionSpecificationException e )
+            {
+                // handled below
+            }
+            if ( versionRange == null )
+            {
+                getLog().warn( "Keeping all the versions of " + dependency.getManagementKey() + ", a dependency of "
+                                   + plugin.getKey() + " with an invalid version: " + dependency.getVersion() );
+                kept.add( getKeptPath( factory.createProjectArtifact( dependency.getGroupId(),
+                                                                      dependency.getArtifactId(), "0" ),
+                                       PurgeLocalRepositoryMojo.ARTIFACT_ID_FUZZINESS ) );
+                continue;
+            }
+            dependencies.add( factory.createDependencyArtifact( dependency.getGroupId(), dependency.getArtifactId(),
+                                                                versionRange, dependency.getType(),
+                                                                dependency.getClassifier(), Artifact.SCOPE_RUNTIME ) );
+        }
+        if ( dependencies.isEmpty() )
+        {
+            return;
+        }
+
+        try
+        {
+            ArtifactResolutionResult result =
+                artifactCollector.collect( dependencies, theProject.getArtifact(), getLocal(),
+                                           remotePluginRepositories, artifactMetadataSource,
+                                           new ScopeArtifactFilter( Artifact.SCOPE_RUNTIME ), Collections.EMPTY_LIST );
+            for ( Artifact artifact : (Set<Artifact>) result.getArtifacts() )
+            {
+                mark( artifact, referenced );
+            }
+        }
+        catch ( ArtifactResolutionException e )
+        {
+            throw new MojoExecutionException( "Couldn't collect the dependencies of " + plugin.getKey() + ": "
+                + e.getMessage(), e );
+        }
+    }
+
+    private void markManifest( File manifestFile, Map<String, Artifact> referenced )
+        throws MojoExecutionException, MojoFailureException
+    {
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader( new FileReader( manifestFile ) );
+            String line;
+            for ( int lineNumber = 1; ( line = reader.readLine() ) != null; lineNumber++ )
+            {
+                String[] coordinates;
+                try
+                {
+                    coordinates = parseManifestLine( line );
+                }
+                catch ( MojoFailureException e )
+                {
+                    throw new MojoFailureException( manifestFile + ":" + lineNumber + ": " + e.getMessage() );
+                }
+                if ( coordinates != null )
+                {
+                    markCoordinates( coordinates[0], coordinates[1], coordinates[2], referenced );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't read manifest " + manifestFile + ": " + e.getMessage(), e );
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+    }
+
+    /**
+     * Parses a line of a resolution manifest.
+     *
+     * @param line the line.
+     * @return the groupId, artifactId and version, or <code>null</code> if the line is empty, a comment or a heading
+     *         of the <code>list</code> goal output.
+     * @throws MojoFailureException if the line is in none of the supported formats.
+     */
+    static String[] parseManifestLine( String line )
+        throws MojoFailureException
+    {
+        String trimmed = line.trim();
+        if ( trimmed.length() == 0 || trimmed.startsWith( "#" ) || LIST_HEADINGS.contains( trimmed ) )
+        {
+            return null;
+        }
+
+        List<String> tokens = new ArrayList<String>( Arrays.asList( trimmed.split( ":", -1 ) ) );
+        removeFileName( tokens );
+        boolean scoped = tokens.size() > 4 && SCOPES.contains( tokens.get( tokens.size() - 1 ) );
+        if ( scoped )
+        {
+            tokens.remove( tokens.size() - 1 );
+        }
+        boolean valid = true;
+        for ( String token : tokens )
+        {
+            valid &= token.length() > 0 && token.indexOf( ' ' ) < 0;
+        }
+
+        switch ( valid ? tokens.size() : 0 )
+        {
+            case 3:
+                // groupId:artifactId:version
+                return new String[] { tokens.get( 0 ), tokens.get( 1 ), tokens.get( 2 ) };
+            case 4:
+                // groupId:artifactId:type:version
+                return new String[] { tokens.get( 0 ), tokens.get( 1 ), tokens.get( 3 ) };
+            case 5:
+                // groupId:artifactId:type:classifier:version
+                return new String[] { tokens.get( 0 ), tokens.get( 1 ), tokens.get( 4 ) };
+            default:
+                throw new MojoFailureException( "Unrecognized manifest line '" + trimmed
+                    + "', expected groupId:artifactId:version or the output of dependency:list" );
+        }
+    }
+
+    /**
+     * Removes the absolute file name the <code>list</code> goal appends with
+     * <code>outputAbsoluteArtifactFilename</code>, which may hold a drive letter followed by a colon.
+     */
+    private static void removeFileName( List<String> tokens )
+    {
+        for ( int i = 4; i < tokens.size(); i++ )
+        {
+            String token = tokens.get( i );
+            boolean drive = token.length() == 1 && i + 1 < tokens.size() && isAbsolute( tokens.get( i + 1 ) );
+            if ( drive || isAbsolute( token ) || ( "null".equals( token ) && i == tokens.size() - 1 ) )
+            {
+                tokens.subList( i, tokens.size() ).clear();
+                return;
+            }
+        }
+    }
+
+    private static boolean isAbsolute( String token )
+    {
+        return token.startsWith( "/" ) || token.startsWith( "\\" );
+    }
+
+    /**
+     * Marks the parent and imported POMs of the given models and of all the marked artifacts, transitively. The POMs
+     * of each round are read in parallel, their paths being computed beforehand so that the tasks only parse files.
+     */
+    private void markPoms( List<Model> models, Map<String, Artifact> referenced )
+        throws MojoExecutionException
+    {
+        List<Artifact> frontier = new ArrayList<Artifact>();
+        for ( Model model : models )
+        {
+            for ( String[] coordinates : getReferencedPoms( model ) )
+            {
+                frontier.add( factory.createProjectArtifact( coordinates[0], coordinates[1], coordinates[2] ) );
+            }
+        }
+        frontier.addAll( referenced.values() );
+
+        Set<String> visited = new HashSet<String>();
+        while ( !frontier.isEmpty() )
+        {
+            List<Callable<List<String[]>>> tasks = new ArrayList<Callable<List<String[]>>>();
+            for ( Artifact artifact : frontier )
+            {
+                if ( visited.add( getKeptPath( artifact, PurgeLocalRepositoryMojo.VERSION_FUZZINESS ) ) )
+                {
+                    final File pom = getPomFile( artifact );
+                    tasks.add( new Callable<List<String[]>>()
+                    {
+                        public List<String[]> call()
+                            throws Exception
+                        {
+                            return getReferencedPoms( pom );
+                        }
+                    } );
+                }
+            }
+
+            frontier = new ArrayList<Artifact>();
+            for ( List<String[]> poms : ParallelTasks.invokeAll( threads, tasks, "Couldn't read POM" ) )
+            {
+                for ( String[] coordinates : poms )
+                {
+                    Artifact pom = markCoordinates( coordinates[0], coordinates[1], coordinates[2], referenced );
+                    if ( pom != null )
+                    {
+                        frontier.add( pom );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the POM of the artifact in the local repository.
+     */
+    private File getPomFile( Artifact artifact )
+    {
+        return new File( repositoryDirectory, getLocal().pathOf(
+            factory.createProjectArtifact( artifact.getGroupId(), artifact.getArtifactId(),
+                                           artifact.getBaseVersion() ) ) );
+    }
+
+    /**
+     * @return the coordinates of the parent and imported POMs read from a POM of the local repository.
+     */
+    private List<String[]> getReferencedPoms( File pom )
+    {
+        if ( !pom.exists() )
+        {
+            return Collections.emptyList();
+        }
+
+        Reader reader = null;
+        try
+        {
+            reader = new FileReader( pom );
+            return getReferencedPoms( new MavenXpp3Reader().read( reader, false ) );
+        }
+        catch ( IOException e )
+        {
+            getLog().debug( "Couldn't read " + pom + ": " + e.getMessage() );
+        }
+        catch ( XmlPullParserException e )
+        {
+            getLog().debug( "Couldn't parse " + pom + ": " + e.getMessage() );
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+        return Collections.emptyList();
+    }
+
+    private static List<String[]> getReferencedPoms( Model model )
+    {
+        List<String[]> poms = new ArrayList<String[]>();
+        Parent parent = model.getParent();
+        if ( parent != null )
+        {
+            poms.add( new String[] { parent.getGroupId(), parent.getArtifactId(), parent.getVersion() } );
+        }
+        if ( model.getDependencyManagement() != null )
+        {
+            for ( Dependency dependency : (List<Dependency>) model.getDependencyManagement().getDependencies() )
+            {
+                if ( "import".equals( dependency.getScope() ) )
+                {
+                    poms.add( new String[] { dependency.getGroupId(), dependency.getArtifactId(),
+                        dependency.getVersion() } );
+                }
+            }
+        }
+        return poms;
+    }
+
+    /**
+     * Marks an artifact given by its coordinates, which are ignored if they are not literal.
+     *
+     * @return the marked artifact, or <code>null</code> if it was already marked or is ignored.
+     */
+    private Artifact markCoordinates( String groupId, String artifactId, String version,
+                                      Map<String, Artifact> referenced )
+    {
+        if ( groupId == null || artifactId == null || version == null || ( groupId + artifactId + version ).indexOf(
+            "${" ) >= 0 )
+        {
+            return null;
+        }
+        Artifact artifact = factory.createProjectArtifact( groupId, artifactId, version );
+        return mark( artifact, referenced ) ? artifact : null;
+    }
+
+    private boolean mark( Artifact artifact, Map<String, Artifact> referenced )
+    {
+        String key = artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getBaseVersion();
+        if ( referenced.containsKey( key ) )
+        {
+            return false;
+        }
+        referenced.put( key, artifact );
+        return true;
+    }
+
+    private String getKeptPath( Artifact artifact )
+    {
+        boolean coarser = PurgeLocalRepositoryMojo.ARTIFACT_ID_FUZZINESS.equals( resolutionFuzziness )
+            || PurgeLocalRepositoryMojo.GROUP_ID_FUZZINESS.equals( resolutionFuzziness );
+        return getKeptPath( artifact, coarser ? resolutionFuzziness : PurgeLocalRepositoryMojo.VERSION_FUZZINESS );
+    }
+
+    /**
+     * @return the path of the directory kept for the artifact, relative to the repository.
+     */
+    private String getKeptPath( Artifact artifact, String fuzziness )
+    {
+        // without version only the artifactId and groupId directories are meaningful
+        String version = artifact.getVersion() == null ? "none" : artifact.getBaseVersion();
+        Artifact pom = factory.createProjectArtifact( artifact.getGroupId(), artifact.getArtifactId(), version );
+        File target =
+            PurgeLocalRepositoryMojo.getFuzzinessTarget( new File( repositoryDirectory, getLocal().pathOf( pom ) ),
+                                                         fuzziness );
+        String base = repositoryDirectory.getAbsolutePath() + File.separator;
+        return target.getAbsolutePath().substring( base.length() ).replace( File.separatorChar, '/' );
+    }
+
+    /**
+     * @return whether the path or one of its ancestors is kept.
+     */
+    static boolean isKept( String path, Set<String> kept )
+    {
+        for ( String ancestor = path; ancestor.length() > 0; )
+        {
+            if ( kept.contains( ancestor ) )
+            {
+                return true;
+            }
+            int index = ancestor.lastIndexOf( '/' );
+            ancestor = index > 0 ? ancestor.substring( 0, index ) : "";
+        }
+        return false;
+    }
+
+    private void report( List<VersionDirectory> unreferenced, int total )
+    {
+        final Map<String, long[]> bytesByGroupId = new HashMap<String, long[]>();
+        long freed = 0;
+        for ( VersionDirectory version : unreferenced )
+        {
+            getLog().debug( ( dryRun ? "Would delete " : "Deleting " ) + version.getPath() );
+            long[] bytes = bytesByGroupId.get( version.getGroupId() );
+            if ( bytes == null )
+            {
+                bytes = new long[1];
+                bytesByGroupId.put( version.getGroupId(), bytes );
+            }
+            bytes[0] += version.getSize();
+            freed += version.getSize();
+        }
+
+        List<String> groupIds = new ArrayList<String>( bytesByGroupId.keySet() );
+        Collections.sort( groupIds, new Comparator<String>()
+        {
+            public int compare( String g1, String g2 )
+            {
+                long b1 = bytesByGroupId.get( g1 )[0];
+                long b2 = bytesByGroupId.get( g2 )[0];
+                return b1 > b2 ? -1 : ( b1 == b2 ? g1.compareTo( g2 ) : 1 );
+            }
+        } );
+        for ( String groupId : groupIds )
+        {
+            getLog().info( "  " + groupId + ": " + FileUtils.byteCountToDisplaySize( bytesByGroupId.get( groupId )[0] ) );
+        }
+        getLog().info( ( dryRun ? "Would reclaim " : "Reclaiming " ) + FileUtils.byteCountToDisplaySize( freed )
+                           + " (" + unreferenced.size() + " of " + total + " artifact versions are unreferenced)." );
+    }
+}
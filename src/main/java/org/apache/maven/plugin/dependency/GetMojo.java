@@ -19,13 +19,19 @@ package org.apache.maven.plugin.dependency;
  * under the License.
  */
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,18 +43,28 @@ import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.ArtifactRepositoryFactory;
 import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
 import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
-import org.apache.maven.artifact.resolver.AbstractArtifactResolutionException;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
+import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
+import org.apache.maven.artifact.resolver.ResolutionNode;
+import org.apache.maven.execution.RuntimeInformation;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
+import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.StringUtils;
 
 /**
- * Downloads a single artifact transitively from the specified remote repositories. Caveat: will always check the
+ * Downloads one or more artifacts transitively from the specified remote repositories. Caveat: will always check the
  * central repository defined in the super pom. You could use a mirror entry in your settings.xml
+ * <p>
+ * When several artifacts are requested, their dependency graphs are collected and the artifacts downloaded in
+ * parallel, each distinct artifact of the batch being downloaded only once.
  * 
  * @goal get
+ * @threadSafe
  * @requiresProject false
  */
 public class GetMojo
@@ -56,6 +72,8 @@ public class GetMojo
 {
     private static final Pattern ALT_REPO_SYNTAX_PATTERN = Pattern.compile( "(.+)::(.*)::(.+)" );
 
+    private static final String DOWNLOAD_FAILURE = "Couldn't download artifact";
+
     /**
      * @component
      * @readonly
@@ -68,6 +86,12 @@ public class GetMojo
      */
     private ArtifactResolver artifactResolver;
 
+    /**
+     * @component
+     * @readonly
+     */
+    private ArtifactCollector artifactCollector;
+
     /**
      * @component
      * @readonly
@@ -156,7 +180,42 @@ public class GetMojo
     private String artifact;
 
     /**
-     * The destination file to copy the artifact to, if other than the local repository
+     * A comma separated list of artifacts to download, each of the form
+     * groupId:artifactId:version[:packaging][:classifier].
+     *
+     * @parameter expression="${artifacts}"
+     * @since 2.5
+     */
+    private String artifacts;
+
+    /**
+     * A file listing the artifacts to download, one groupId:artifactId:version[:packaging][:classifier] per line.
+     * Empty lines and lines starting with <code>#</code> are ignored.
+     *
+     * @parameter expression="${artifactsFile}"
+     * @since 2.5
+     */
+    private File artifactsFile;
+
+    /**
+     * The number of threads used to collect and download the artifacts. A single thread is used with Maven 2.x, whose
+     * artifact resolver is not thread-safe.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     * @since 2.5
+     */
+    private int threads = 4;
+
+    /**
+     * Used to check whether the artifact resolver of the running Maven is thread-safe.
+     *
+     * @component role="org.apache.maven.execution.RuntimeInformation"
+     */
+    private RuntimeInformation rti;
+
+    /**
+     * The destination file to copy the artifact to, if other than the local repository. When several artifacts are
+     * downloaded, or when it denotes an existing directory, the artifacts are copied into this directory.
      * @parameter expression="${dest}"
      * @since 2.4
      */
@@ -179,41 +238,8 @@ public class GetMojo
     public void execute()
         throws MojoExecutionException, MojoFailureException
     {
+        List<Artifact> toDownload = createArtifactsToDownload();
 
-        if ( artifactId == null && artifact == null )
-        {
-            throw new MojoFailureException( "You must specify an artifact, "
-                + "e.g. -Dartifact=org.apache.maven.plugins:maven-downloader-plugin:1.0" );
-        }
-        if ( artifact != null )
-        {
-            String[] tokens = StringUtils.split( artifact, ":" );
-            if ( tokens.length < 3 || tokens.length > 5 )
-            {
-                throw new MojoFailureException(
-                    "Invalid artifact, you must specify groupId:artifactId:version[:packaging][:classifier] "
-                        + artifact );
-            }
-            groupId = tokens[0];
-            artifactId = tokens[1];
-            version = tokens[2];
-            if ( tokens.length >= 4 )
-            {
-                packaging = tokens[3];
-            }
-            if ( tokens.length == 5 )
-            {
-                classifier = tokens[4];
-            }
-            else
-            {
-                classifier = null;
-            }
-        }
-
-        Artifact toDownload = classifier == null
-            ? artifactFactory.createBuildArtifact( groupId, artifactId, version, packaging )
-            : artifactFactory.createArtifactWithClassifier( groupId, artifactId, version, packaging, classifier );
         Artifact dummyOriginatingArtifact =
             artifactFactory.createBuildArtifact( "org.apache.maven.plugins", "maven-downloader-plugin", "1.0", "jar" );
 
@@ -247,41 +273,213 @@ public class GetMojo
             repoList.add( remoteRepo );
         }
 
-        try
+        Map<String, Artifact> resolved = resolveArtifacts( toDownload, dummyOriginatingArtifact, repoList );
+
+        if ( toDownload.size() > 1 )
+        {
+            getLog().info( "Downloaded " + toDownload.size() + " artifacts (" + resolved.size()
+                + " distinct artifacts including dependencies)." );
+        }
+
+        if ( destination != null )
+        {
+            File dest = new File( destination );
+            boolean toDirectory = toDownload.size() > 1 || dest.isDirectory();
+            for ( Artifact artifact : toDownload )
+            {
+                File src = resolved.get( artifact.getId() ).getFile();
+                copyArtifactFile( src, toDirectory ? new File( dest, src.getName() ) : dest );
+            }
+        }
+    }
+
+    /**
+     * Builds the list of artifacts to download from the <code>artifact</code>, <code>artifacts</code> and
+     * <code>artifactsFile</code> parameters, or from the <code>groupId</code>, <code>artifactId</code>,
+     * <code>version</code>, <code>packaging</code> and <code>classifier</code> ones if none of them is set.
+     */
+    private List<Artifact> createArtifactsToDownload()
+        throws MojoExecutionException, MojoFailureException
+    {
+        List<String> coordinates = new ArrayList<String>();
+        if ( artifact != null )
+        {
+            coordinates.add( artifact );
+        }
+        if ( artifacts != null )
+        {
+            coordinates.addAll( Arrays.asList( DependencyUtil.tokenizer( artifacts ) ) );
+        }
+        if ( artifactsFile != null )
+        {
+            coordinates.addAll( readArtifactsFile( artifactsFile ) );
+        }
+
+        List<Artifact> toDownload = new ArrayList<Artifact>();
+        if ( coordinates.isEmpty() )
         {
-            if ( transitive )
+            if ( artifactId == null )
             {
-                artifactResolver.resolveTransitively( Collections.singleton( toDownload ), dummyOriginatingArtifact,
-                                                      repoList, localRepository, source );
+                throw new MojoFailureException( "You must specify an artifact, "
+                    + "e.g. -Dartifact=org.apache.maven.plugins:maven-downloader-plugin:1.0" );
             }
-            else
+            toDownload.add( createArtifact( groupId, artifactId, version, packaging, classifier ) );
+        }
+        for ( String coordinate : coordinates )
+        {
+            toDownload.add( parseArtifact( coordinate ) );
+        }
+        return toDownload;
+    }
+
+    Artifact parseArtifact( String coordinate )
+        throws MojoFailureException
+    {
+        String[] tokens = StringUtils.split( coordinate, ":" );
+        if ( tokens.length < 3 || tokens.length > 5 )
+        {
+            throw new MojoFailureException(
+                "Invalid artifact, you must specify groupId:artifactId:version[:packaging][:classifier] "
+                    + coordinate );
+        }
+        return createArtifact( tokens[0], tokens[1], tokens[2], tokens.length >= 4 ? tokens[3] : "jar",
+                               tokens.length == 5 ? tokens[4] : null );
+    }
+
+    private Artifact createArtifact( String theGroupId, String theArtifactId, String theVersion, String thePackaging,
+                                     String theClassifier )
+    {
+        return theClassifier == null
+            ? artifactFactory.createBuildArtifact( theGroupId, theArtifactId, theVersion, thePackaging )
+            : artifactFactory.createArtifactWithClassifier( theGroupId, theArtifactId, theVersion, thePackaging,
+                                                            theClassifier );
+    }
+
+    private List<String> readArtifactsFile( File file )
+        throws MojoExecutionException
+    {
+        List<String> coordinates = new ArrayList<String>();
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader( new FileReader( file ) );
+            String line;
+            while ( ( line = reader.readLine() ) != null )
             {
-                artifactResolver.resolve( toDownload, repoList, localRepository );
+                line = line.trim();
+                if ( line.length() > 0 && !line.startsWith( "#" ) )
+                {
+                    coordinates.add( line );
+                }
             }
         }
-        catch ( AbstractArtifactResolutionException e )
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't read artifacts file " + file + ": " + e.getMessage(), e );
+        }
+        finally
         {
-            throw new MojoExecutionException( "Couldn't download artifact: " + e.getMessage(), e );
+            IOUtil.close( reader );
         }
+        return coordinates;
+    }
 
-        if ( destination != null )
+    /**
+     * Downloads the artifacts and, in transitive mode, their dependencies. The dependency graphs of all the requested
+     * artifacts are collected first, so that an artifact shared by several of them is downloaded only once.
+     *
+     * @return the distinct downloaded artifacts, keyed by id.
+     */
+    private Map<String, Artifact> resolveArtifacts( List<Artifact> toDownload, final Artifact originatingArtifact,
+                                                    final List<ArtifactRepository> repoList )
+        throws MojoExecutionException
+    {
+        int resolverThreads = ParallelTasks.getResolverThreads( threads, rti, getLog() );
+        final Map<String, Artifact> unique = new LinkedHashMap<String, Artifact>();
+        final Map<String, List<ArtifactRepository>> uniqueRepositories =
+            new HashMap<String, List<ArtifactRepository>>();
+
+        if ( transitive )
         {
-            File src = toDownload.getFile();
-            File dest = new File( destination );
-            if ( getLog().isInfoEnabled() )
+            List<Callable<ArtifactResolutionResult>> collectTasks =
+                new ArrayList<Callable<ArtifactResolutionResult>>();
+            for ( final Artifact root : toDownload )
             {
-                getLog().info( "Copying " + src.getAbsolutePath() + " to " + dest.getAbsolutePath() );
+                collectTasks.add( new Callable<ArtifactResolutionResult>()
+                {
+                    public ArtifactResolutionResult call()
+                        throws Exception
+                    {
+                        return artifactCollector.collect( Collections.singleton( root ), originatingArtifact,
+                                                          localRepository, repoList, source, null,
+                                                          Collections.EMPTY_LIST );
+                    }
+                } );
             }
-            try
+
+            List<ArtifactResolutionResult> results =
+                ParallelTasks.invokeAll( resolverThreads, collectTasks, DOWNLOAD_FAILURE );
+            for ( ArtifactResolutionResult result : results )
             {
-                FileUtils.copyFile( toDownload.getFile(), new File( destination ) );
+                Set<ResolutionNode> nodes = result.getArtifactResolutionNodes();
+                for ( ResolutionNode node : nodes )
+                {
+                    String id = node.getArtifact().getId();
+                    if ( !unique.containsKey( id ) )
+                    {
+                        unique.put( id, node.getArtifact() );
+                        uniqueRepositories.put( id, node.getRemoteRepositories() );
+                    }
+                }
             }
-            catch ( IOException e )
+        }
+        else
+        {
+            for ( Artifact root : toDownload )
             {
-                throw new MojoExecutionException( "Couldn't copy downloaded artifact from " + src.getAbsolutePath()
-                    + " to " + dest.getAbsolutePath() + " : " + e.getMessage(), e );
+                if ( !unique.containsKey( root.getId() ) )
+                {
+                    unique.put( root.getId(), root );
+                    uniqueRepositories.put( root.getId(), repoList );
+                }
             }
         }
+
+        List<Callable<Artifact>> resolveTasks = new ArrayList<Callable<Artifact>>();
+        for ( final Map.Entry<String, Artifact> entry : unique.entrySet() )
+        {
+            resolveTasks.add( new Callable<Artifact>()
+            {
+                public Artifact call()
+                    throws Exception
+                {
+                    artifactResolver.resolve( entry.getValue(), uniqueRepositories.get( entry.getKey() ),
+                                              localRepository );
+                    return entry.getValue();
+                }
+            } );
+        }
+        ParallelTasks.invokeAll( resolverThreads, resolveTasks, DOWNLOAD_FAILURE );
+
+        return unique;
+    }
+
+    private void copyArtifactFile( File src, File dest )
+        throws MojoExecutionException
+    {
+        if ( getLog().isInfoEnabled() )
+        {
+            getLog().info( "Copying " + src.getAbsolutePath() + " to " + dest.getAbsolutePath() );
+        }
+        try
+        {
+            FileUtils.copyFile( src, dest );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't copy downloaded artifact from " + src.getAbsolutePath()
+                + " to " + dest.getAbsolutePath() + " : " + e.getMessage(), e );
+        }
     }
 
     ArtifactRepository parseRepository( String repo, ArtifactRepositoryPolicy policy )
@@ -0,0 +1,643 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryFactory;
+import org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout;
+import org.apache.maven.artifact.repository.metadata.ArtifactRepositoryMetadata;
+import org.apache.maven.artifact.repository.metadata.RepositoryMetadataInstallationException;
+import org.apache.maven.artifact.repository.metadata.RepositoryMetadataManager;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.SnapshotArtifactRepositoryMetadata;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.execution.RuntimeInformation;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.OutputFiles;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Goal that installs all the jars and POMs found in a directory into the local repository, or into another
+ * repository directory shared by several builds.
+ * <p>
+ * The coordinates of a jar are read from the POM lying next to it (same base name with a <code>.pom</code>
+ * extension), or else from the <code>META-INF/maven/&lt;groupId&gt;/&lt;artifactId&gt;/pom.properties</code> file
+ * Maven embeds in the jars it builds. A classifier jar without a POM of its own, such as
+ * <code>artifactId-version-sources.jar</code>, takes its coordinates from the <code>artifactId-version.pom</code> of
+ * its main artifact. POMs without a jar are installed as <code>pom</code> packaging artifacts. The artifacts of a same
+ * groupId and artifactId are installed by a single task, the tasks running in parallel, and the repository metadata
+ * of each of them is written once. Snapshots also get the version level metadata <code>install:install-file</code>
+ * writes for them.
+ *
+ * @goal install-directory
+ * @threadSafe
+ * @requiresProject false
+ * @version $Id$
+ * @since 2.5
+ */
+public class InstallDirectoryMojo
+    extends AbstractMojo
+{
+    private static final String POM_PROPERTIES = "/pom.properties";
+
+    /**
+     * @component
+     * @readonly
+     */
+    private ArtifactFactory artifactFactory;
+
+    /**
+     * @component
+     * @readonly
+     */
+    private ArtifactRepositoryFactory repositoryFactory;
+
+    /**
+     * @component role="org.apache.maven.artifact.repository.layout.ArtifactRepositoryLayout"
+     * @readonly
+     */
+    private Map<String, ArtifactRepositoryLayout> repositoryLayouts;
+
+    /**
+     * @component
+     * @readonly
+     */
+    private RepositoryMetadataManager repositoryMetadataManager;
+
+    /**
+     * @parameter expression="${localRepository}"
+     * @required
+     * @readonly
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * The directory scanned, recursively, for the jars and POMs to install.
+     *
+     * @parameter expression="${directory}"
+     * @required
+     */
+    private File directory;
+
+    /**
+     * The repository directory the artifacts are installed into. Defaults to the local repository.
+     *
+     * @parameter expression="${repositoryDirectory}"
+     */
+    private File repositoryDirectory;
+
+    /**
+     * Replace the artifacts already present in the repository.
+     *
+     * @parameter expression="${overWrite}" default-value="false"
+     */
+    private boolean overWrite;
+
+    /**
+     * The number of threads used to install the artifacts. A single thread is used with Maven 2.x, whose repository
+     * metadata manager is not thread-safe.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     */
+    private int threads = 4;
+
+    /**
+     * Used to check whether the artifact resolver of the running Maven is thread-safe.
+     *
+     * @component role="org.apache.maven.execution.RuntimeInformation"
+     */
+    private RuntimeInformation rti;
+
+    /**
+     * A file to install: either the file found in the directory, or the content of a POM read from a jar or
+     * generated.
+     */
+    static class InstallableFile
+    {
+        final Artifact artifact;
+
+        final File file;
+
+        final byte[] content;
+
+        InstallableFile( Artifact theArtifact, File theFile, byte[] theContent )
+        {
+            this.artifact = theArtifact;
+            this.file = theFile;
+            this.content = theContent;
+        }
+    }
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        if ( !directory.isDirectory() )
+        {
+            throw new MojoFailureException( "Directory " + directory + " does not exist." );
+        }
+
+        final ArtifactRepository targetRepository = createTargetRepository();
+        Map<String, List<InstallableFile>> filesByArtifact = scanDirectory();
+
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for ( final List<InstallableFile> files : filesByArtifact.values() )
+        {
+            tasks.add( new Callable<Integer>()
+            {
+                public Integer call()
+                    throws Exception
+                {
+                    return Integer.valueOf( install( files, targetRepository ) );
+                }
+            } );
+        }
+
+        int installed = 0;
+        int installThreads = ParallelTasks.getResolverThreads( threads, rti, getLog() );
+        for ( Integer count : ParallelTasks.invokeAll( installThreads, tasks, "Couldn't install artifact" ) )
+        {
+            installed += count.intValue();
+        }
+
+        getLog().info( "Installed " + installed + " files of " + filesByArtifact.size() + " artifacts into "
+                           + targetRepository.getBasedir() );
+    }
+
+    private ArtifactRepository createTargetRepository()
+        throws MojoExecutionException
+    {
+        if ( repositoryDirectory == null )
+        {
+            return localRepository;
+        }
+
+        try
+        {
+            String url = repositoryDirectory.toURI().toURL().toExternalForm();
+            return repositoryFactory.createDeploymentArtifactRepository( "local", url,
+                                                                         repositoryLayouts.get( "default" ),
+                                                                         false /* uniqueVersion */ );
+        }
+        catch ( MalformedURLException e )
+        {
+            throw new MojoExecutionException( "Could not create repository " + repositoryDirectory, e );
+        }
+    }
+
+    /**
+     * Scans the directory for the files to install.
+     *
+     * @return the files to install grouped by <code>groupId:artifactId</code>.
+     */
+    Map<String, List<InstallableFile>> scanDirectory()
+        throws MojoExecutionException
+    {
+        Map<String, List<InstallableFile>> filesByArtifact = new LinkedHashMap<String, List<InstallableFile>>();
+        List<File> files;
+        try
+        {
+            files = FileUtils.getFiles( directory, "**/*.jar,**/*.pom", null );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't scan directory " + directory + ": " + e.getMessage(), e );
+        }
+
+        for ( File file : files )
+        {
+            List<InstallableFile> installables;
+            if ( file.getName().endsWith( ".jar" ) )
+            {
+                installables = readJar( file );
+            }
+            else if ( !new File( file.getParentFile(), baseName( file ) + ".jar" ).exists() )
+            {
+                installables = readPom( file );
+            }
+            else
+            {
+                // installed along with its jar
+                continue;
+            }
+
+            for ( InstallableFile installable : installables )
+            {
+                String key = installable.artifact.getGroupId() + ":" + installable.artifact.getArtifactId();
+                List<InstallableFile> group = filesByArtifact.get( key );
+                if ( group == null )
+                {
+                    group = new ArrayList<InstallableFile>();
+                    filesByArtifact.put( key, group );
+                }
+                group.add( installable );
+            }
+        }
+        return filesByArtifact;
+    }
+
+    private List<InstallableFile> readPom( File pom )
+        throws MojoExecutionException
+    {
+        List<InstallableFile> installables = new ArrayList<InstallableFile>();
+        Model model = readModel( pom );
+        Artifact artifact =
+            artifactFactory.createProjectArtifact( getGroupId( model ), model.getArtifactId(), getVersion( model ) );
+        installables.add( new InstallableFile( artifact, pom, null ) );
+        return installables;
+    }
+
+    private List<InstallableFile> readJar( File jar )
+        throws MojoExecutionException
+    {
+        List<InstallableFile> installables = new ArrayList<InstallableFile>();
+        String groupId;
+        String artifactId;
+        String version;
+
+        File sidecarPom = new File( jar.getParentFile(), baseName( jar ) + ".pom" );
+        Model mainModel;
+        if ( sidecarPom.exists() )
+        {
+            Model model = readModel( sidecarPom );
+            groupId = getGroupId( model );
+            artifactId = model.getArtifactId();
+            version = getVersion( model );
+            installables.add( new InstallableFile( artifactFactory.createProjectArtifact( groupId, artifactId,
+                                                                                          version ),
+                                                   sidecarPom, null ) );
+        }
+        else if ( ( mainModel = findMainModel( jar ) ) != null )
+        {
+            // a classifier jar, the POM being installed along with the main jar or on its own
+            groupId = getGroupId( mainModel );
+            artifactId = mainModel.getArtifactId();
+            version = getVersion( mainModel );
+        }
+        else
+        {
+            Properties properties = new Properties();
+            byte[] pomContent = readEmbeddedPom( jar, properties );
+            if ( pomContent == null && properties.isEmpty() )
+            {
+                getLog().warn( "Skipping " + jar + ": no POM next to it and no Maven descriptor in it." );
+                return installables;
+            }
+            groupId = properties.getProperty( "groupId" );
+            artifactId = properties.getProperty( "artifactId" );
+            version = properties.getProperty( "version" );
+            if ( groupId == null || artifactId == null || version == null )
+            {
+                getLog().warn( "Skipping " + jar + ": incomplete pom.properties." );
+                return installables;
+            }
+            if ( getClassifier( jar, artifactId, version ) == null )
+            {
+                if ( pomContent == null )
+                {
+                    pomContent = generatePom( groupId, artifactId, version );
+                }
+                installables.add( new InstallableFile( artifactFactory.createProjectArtifact( groupId, artifactId,
+                                                                                              version ),
+                                                       null, pomContent ) );
+            }
+        }
+
+        String classifier = getClassifier( jar, artifactId, version );
+        Artifact artifact =
+            classifier == null ? artifactFactory.createBuildArtifact( groupId, artifactId, version, "jar" )
+                            : artifactFactory.createArtifactWithClassifier( groupId, artifactId, version, "jar",
+                                                                            classifier );
+        installables.add( new InstallableFile( artifact, jar, null ) );
+        return installables;
+    }
+
+    /**
+     * Finds the POM of the main artifact of a classifier jar, lying next to it with the base name of the jar minus its
+     * classifier.
+     *
+     * @return the model of the POM, or <code>null</code> if there is none.
+     */
+    private Model findMainModel( File jar )
+        throws MojoExecutionException
+    {
+        String name = baseName( jar );
+        for ( int index = name.lastIndexOf( '-' ); index > 0; index = name.lastIndexOf( '-', index - 1 ) )
+        {
+            File pom = new File( jar.getParentFile(), name.substring( 0, index ) + ".pom" );
+            if ( pom.exists() )
+            {
+                Model model = readModel( pom );
+                if ( getClassifier( jar, model.getArtifactId(), getVersion( model ) ) != null )
+                {
+                    return model;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the Maven descriptor embedded in a jar, choosing the one matching the jar name if there are several.
+     *
+     * @param jar the jar to read.
+     * @param properties filled with the content of the chosen <code>pom.properties</code>.
+     * @return the content of the chosen <code>pom.xml</code>, or <code>null</code> if there is none.
+     */
+    byte[] readEmbeddedPom( File jar, Properties properties )
+        throws MojoExecutionException
+    {
+        ZipFile zip = null;
+        try
+        {
+            zip = new ZipFile( jar );
+            List<ZipEntry> descriptors = new ArrayList<ZipEntry>();
+            for ( Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); )
+            {
+                ZipEntry entry = entries.nextElement();
+                if ( entry.getName().startsWith( "META-INF/maven/" ) && entry.getName().endsWith( POM_PROPERTIES ) )
+                {
+                    descriptors.add( entry );
+                }
+            }
+
+            for ( ZipEntry descriptor : descriptors )
+            {
+                Properties candidate = new Properties();
+                InputStream in = zip.getInputStream( descriptor );
+                try
+                {
+                    candidate.load( in );
+                }
+                finally
+                {
+                    IOUtil.close( in );
+                }
+
+                if ( descriptors.size() == 1
+                    || jar.getName().startsWith( candidate.getProperty( "artifactId" ) + "-"
+                        + candidate.getProperty( "version" ) ) )
+                {
+                    properties.putAll( candidate );
+                    String pomName = StringUtils.chomp( descriptor.getName(), POM_PROPERTIES ) + "/pom.xml";
+                    ZipEntry pom = zip.getEntry( pomName );
+                    return pom == null ? null : IOUtil.toByteArray( zip.getInputStream( pom ) );
+                }
+            }
+
+            if ( descriptors.size() > 1 )
+            {
+                getLog().warn( jar + " contains several Maven descriptors, none of them matching its name." );
+            }
+            return null;
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't read " + jar + ": " + e.getMessage(), e );
+        }
+        finally
+        {
+            if ( zip != null )
+            {
+                try
+                {
+                    zip.close();
+                }
+                catch ( IOException e )
+                {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Installs the files of an artifact, then updates its repository metadata with all the installed versions, and the
+     * metadata of its snapshot versions.
+     *
+     * @return the number of files installed.
+     */
+    private int install( List<InstallableFile> files, ArtifactRepository targetRepository )
+        throws MojoExecutionException
+    {
+        Versioning versioning = new Versioning();
+        Map<String, Artifact> snapshots = new LinkedHashMap<String, Artifact>();
+        int installed = 0;
+        for ( InstallableFile installable : files )
+        {
+            Artifact artifact = installable.artifact;
+            File destination = new File( targetRepository.getBasedir(), targetRepository.pathOf( artifact ) );
+            if ( !destination.exists() || overWrite )
+            {
+                copy( installable, destination );
+                installed++;
+            }
+            else
+            {
+                getLog().debug( artifact.getId() + " already exists in " + targetRepository.getBasedir() );
+            }
+
+            if ( !versioning.getVersions().contains( artifact.getBaseVersion() ) )
+            {
+                versioning.addVersion( artifact.getBaseVersion() );
+            }
+            if ( artifact.isSnapshot() && !snapshots.containsKey( artifact.getBaseVersion() ) )
+            {
+                snapshots.put( artifact.getBaseVersion(), artifact );
+            }
+        }
+        versioning.updateTimestamp();
+
+        Artifact artifact = files.get( 0 ).artifact;
+        try
+        {
+            repositoryMetadataManager.install( new ArtifactRepositoryMetadata( artifact, versioning ),
+                                               targetRepository );
+            for ( Artifact snapshotArtifact : snapshots.values() )
+            {
+                // as the installer does for a locally built snapshot
+                Snapshot snapshot = new Snapshot();
+                snapshot.setLocalCopy( true );
+                repositoryMetadataManager.install( new SnapshotArtifactRepositoryMetadata( snapshotArtifact,
+                                                                                           snapshot ),
+                                                   targetRepository );
+            }
+        }
+        catch ( RepositoryMetadataInstallationException e )
+        {
+            throw new MojoExecutionException( "Couldn't update the metadata of " + artifact.getGroupId() + ":"
+                + artifact.getArtifactId() + ": " + e.getMessage(), e );
+        }
+        return installed;
+    }
+
+    private void copy( InstallableFile installable, File destination )
+        throws MojoExecutionException
+    {
+        getLog().info( "Installing " + ( installable.file != null ? installable.file.getPath()
+                        : installable.artifact.getId() ) + " to " + destination );
+        // written to a temporary file renamed into place, as the destination may be hard linked to other artifacts
+        OutputStream out = null;
+        InputStream in = null;
+        try
+        {
+            out = OutputFiles.openStream( destination, false );
+            if ( installable.file != null )
+            {
+                in = new FileInputStream( installable.file );
+                IOUtil.copy( in, out );
+            }
+            else
+            {
+                out.write( installable.content );
+            }
+            OutputFiles.commit( out );
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't install " + installable.artifact.getId() + ": "
+                + e.getMessage(), e );
+        }
+        finally
+        {
+            IOUtil.close( in );
+            IOUtil.close( out );
+        }
+    }
+
+    private Model readModel( File pom )
+        throws MojoExecutionException
+    {
+        Reader reader = null;
+        try
+        {
+            reader = new FileReader( pom );
+            Model model = new MavenXpp3Reader().read( reader );
+            if ( getGroupId( model ) == null || model.getArtifactId() == null || getVersion( model ) == null )
+            {
+                throw new MojoExecutionException( "Incomplete coordinates in " + pom );
+            }
+            return model;
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't read " + pom + ": " + e.getMessage(), e );
+        }
+        catch ( XmlPullParserException e )
+        {
+            throw new MojoExecutionException( "Couldn't parse " + pom + ": " + e.getMessage(), e );
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+    }
+
+    private byte[] generatePom( String groupId, String artifactId, String version )
+        throws MojoExecutionException
+    {
+        Model model = new Model();
+        model.setModelVersion( "4.0.0" );
+        model.setGroupId( groupId );
+        model.setArtifactId( artifactId );
+        model.setVersion( version );
+        model.setDescription( "POM was created by the dependency plugin" );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try
+        {
+            OutputStreamWriter writer = new OutputStreamWriter( out, "UTF-8" );
+            new MavenXpp3Writer().write( writer, model );
+            writer.close();
+        }
+        catch ( IOException e )
+        {
+            throw new MojoExecutionException( "Couldn't generate the POM of " + artifactId + ": " + e.getMessage(),
+                                              e );
+        }
+        return out.toByteArray();
+    }
+
+    private static String getGroupId( Model model )
+    {
+        if ( model.getGroupId() == null && model.getParent() != null )
+        {
+            return model.getParent().getGroupId();
+        }
+        return model.getGroupId();
+    }
+
+    private static String getVersion( Model model )
+    {
+        if ( model.getVersion() == null && model.getParent() != null )
+        {
+            return model.getParent().getVersion();
+        }
+        return model.getVersion();
+    }
+
+    /**
+     * @return the classifier found in the name of a jar after its artifactId and version, or <code>null</code>.
+     */
+    static String getClassifier( File jar, String artifactId, String version )
+    {
+        String prefix = artifactId + "-" + version + "-";
+        String name = baseName( jar );
+        return name.startsWith( prefix ) && name.length() > prefix.length() ? name.substring( prefix.length() )
+                        : null;
+    }
+
+    private static String baseName( File file )
+    {
+        String name = file.getName();
+        int index = name.lastIndexOf( '.' );
+        return index > 0 ? name.substring( 0, index ) : name;
+    }
+}
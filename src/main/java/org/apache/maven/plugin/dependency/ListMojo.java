@@ -19,19 +19,77 @@ package org.apache.maven.plugin.dependency;
  * under the License.    
  */
 
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.resolvers.ResolveDependenciesMojo;
+import org.apache.maven.plugin.dependency.utils.DependencyStatusSets;
+import org.apache.maven.plugin.dependency.utils.resolvers.ArtifactsResolver;
+import org.apache.maven.plugin.dependency.utils.resolvers.DefaultArtifactsResolver;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.StringUtils;
 
 /**
- * Displays the list of dependencies for this project.
+ * Displays the list of dependencies for this project. The dependency graph is collected from the POMs first, and
+ * only the listed artifacts are downloaded afterwards, unless <code>metadataOnly</code> is set.
  * 
  * @author <a href="mailto:markhobson@gmail.com">Mark Hobson</a>
  * @version $Id: ListMojo.java 1085777 2011-03-26 18:13:19Z hboutemy $
  * @since 2.0-alpha-5
  * @goal list
- * @requiresDependencyResolution test
+ * @threadSafe
+ * @requiresDependencyCollection test
  */
 public class ListMojo
     extends ResolveDependenciesMojo
 {
     // alias for dependency:resolve
+
+    /**
+     * Only compute the list from the repository metadata (POMs), without downloading the artifact files. Use this to
+     * audit the coordinates of a dependency graph quickly, e.g. on a build agent with an empty local repository.
+     *
+     * @parameter expression="${mdep.metadataOnly}" default-value="false"
+     * @since 2.5
+     */
+    protected boolean metadataOnly;
+
+    protected Set<Artifact> getProjectArtifacts( MavenProject theProject )
+        throws MojoExecutionException
+    {
+        return getProjectArtifactsCollector().getArtifacts( theProject );
+    }
+
+    protected DependencyStatusSets getDependencySets( boolean stopOnFailure, MavenProject theProject )
+        throws MojoExecutionException
+    {
+        DependencyStatusSets status = super.getDependencySets( stopOnFailure, theProject );
+
+        // classifier translated artifacts have already been resolved
+        if ( !metadataOnly && StringUtils.isEmpty( classifier ) )
+        {
+            ArtifactsResolver artifactsResolver =
+                new DefaultArtifactsResolver( this.resolver, this.getLocal(), this.remoteRepos, true );
+            artifactsResolver.resolve( status.getResolvedDependencies(), getLog() );
+        }
+
+        return status;
+    }
+
+    /**
+     * @return true if only the repository metadata is used to compute the list.
+     */
+    public boolean isMetadataOnly()
+    {
+        return this.metadataOnly;
+    }
+
+    /**
+     * @param theMetadataOnly true to only use the repository metadata to compute the list.
+     */
+    public void setMetadataOnly( boolean theMetadataOnly )
+    {
+        this.metadataOnly = theMetadataOnly;
+    }
 }
@@ -32,6 +32,7 @@ import org.apache.maven.project.MavenProject;
  * form groupId:artifactId:type:[classifier] and contains the path to the resolved artifact.
  * 
  * @goal properties
+ * @threadSafe
  * @requiresDependencyResolution test
  * @phase initialize
  * @author Paul Gier
@@ -30,32 +30,41 @@ import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.execution.RuntimeInformation;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.ArtifactPurger;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
+import org.apache.maven.plugin.dependency.utils.SnapshotRetention;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.plexus.util.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Remove the project dependencies from the local repository, and optionally
- * re-resolve them.
+ * re-resolve them. The dependencies of all the projects of the reactor are
+ * gathered first, so that each artifact is deleted and re-resolved only once.
  *
  * @author jdcasey
  * @version $Id: PurgeLocalRepositoryMojo.java 1190290 2011-10-28 13:01:39Z olamy $
  * @goal purge-local-repository
+ * @threadSafe
  * @aggregator
  * @since 2.0
  */
@@ -179,28 +188,173 @@ public class PurgeLocalRepositoryMojo
      */
     private boolean snapshotsOnly;
 
+    /**
+     * Instead of purging the dependencies, keep this number of timestamped builds per classifier in the directory of
+     * each snapshot dependency and delete the older ones. Releases are left untouched and nothing is re-resolved.
+     * Disabled when 0.
+     *
+     * @parameter expression="${snapshotRetention}" default-value="0"
+     * @since 2.5
+     */
+    private int snapshotRetention;
+
+    /**
+     * The number of threads used to delete, re-resolve and trim the artifacts. A single thread is used to delete and
+     * re-resolve them with Maven 2.x, whose artifact resolver is not thread-safe.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     * @since 2.5
+     */
+    private int threads = 4;
+
+    /**
+     * Used to check whether the artifact resolver of the running Maven is thread-safe.
+     *
+     * @component role="org.apache.maven.execution.RuntimeInformation"
+     */
+    private RuntimeInformation rti;
 
     public void execute()
         throws MojoExecutionException, MojoFailureException
     {
         List<String> exclusionPatterns = buildExclusionPatternsList();
 
+        // the union of the dependencies of all the projects, each artifact being purged once
+        Map<String, Artifact> artifacts = new LinkedHashMap<String, Artifact>();
+        Map<String, List<ArtifactRepository>> artifactRepositories = new HashMap<String, List<ArtifactRepository>>();
         for ( MavenProject project : projects )
         {
-            try
+            Map<String, Artifact> deps = createArtifactMap( project );
+
+            if ( deps.isEmpty() )
             {
-                refreshDependenciesForProject( project, exclusionPatterns );
+                getLog().info( "Nothing to do for project: " + project.getId() );
+                continue;
             }
-            catch ( ArtifactResolutionException e )
+
+            removeExcludedArtifacts( project, deps, exclusionPatterns );
+
+            verbose( "Processing dependencies for project: " + project.getId() );
+
+            for ( Artifact artifact : deps.values() )
             {
-                MojoFailureException failure =
-                    new MojoFailureException( this, "Failed to refresh project dependencies for: " + project.getId(),
-                                              "Artifact resolution failed for project: " + project.getId() );
-                failure.initCause( e );
+                if ( !artifacts.containsKey( artifact.getId() ) )
+                {
+                    verbose( "Processing artifact: " + artifact.getId() );
 
-                throw failure;
+                    artifacts.put( artifact.getId(), artifact );
+                    artifactRepositories.put( artifact.getId(), project.getRemoteArtifactRepositories() );
+                }
             }
         }
+
+        if ( artifacts.isEmpty() )
+        {
+            return;
+        }
+
+        if ( snapshotRetention > 0 )
+        {
+            trimSnapshots( artifacts.values() );
+            return;
+        }
+
+        // compute all the targets before deleting anything, as the groupId fuzziness looks at the siblings
+        Set<File> deleteTargets = new LinkedHashSet<File>();
+        for ( Artifact artifact : artifacts.values() )
+        {
+            deleteTargets.add( findDeleteTarget( artifact ) );
+        }
+        ArtifactPurger purger =
+            new ArtifactPurger( resolver, localRepository, ParallelTasks.getResolverThreads( threads, rti, getLog() ),
+                                getLog(), verbose );
+        purger.delete( removeNestedTargets( deleteTargets ) );
+
+        if ( reResolve )
+        {
+            reResolveArtifacts( purger, artifacts.values(), artifactRepositories );
+        }
+    }
+
+    private void trimSnapshots( Collection<Artifact> artifacts )
+        throws MojoExecutionException
+    {
+        final SnapshotRetention retention = new SnapshotRetention( snapshotRetention );
+
+        Map<File, String> versionDirectories = new LinkedHashMap<File, String>();
+        for ( Artifact artifact : artifacts )
+        {
+            if ( artifact.isSnapshot() && artifact.getFile() != null
+                && artifact.getFile().getParentFile().getName().endsWith( Artifact.SNAPSHOT_VERSION ) )
+            {
+                versionDirectories.put( artifact.getFile().getParentFile(), artifact.getArtifactId() );
+            }
+        }
+
+        List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+        for ( final Map.Entry<File, String> entry : versionDirectories.entrySet() )
+        {
+            tasks.add( new Callable<Long>()
+            {
+                public Long call()
+                    throws Exception
+                {
+                    verbose( "Trimming: " + entry.getKey() );
+
+                    return Long.valueOf( retention.trim( entry.getKey(), entry.getValue() ) );
+                }
+            } );
+        }
+
+        long freed = 0;
+        for ( Long bytes : ParallelTasks.invokeAll( threads, tasks, "Cannot trim snapshot in the local repository" ) )
+        {
+            freed += bytes.longValue();
+        }
+        getLog().info( "Freed " + freed + " bytes in " + versionDirectories.size() + " snapshot directories." );
+    }
+
+    /**
+     * Removes the targets lying inside another target, which are deleted along with it.
+     *
+     * @param targets the files or directories to delete.
+     * @return the targets which are not inside another one.
+     */
+    static List<File> removeNestedTargets( Collection<File> targets )
+    {
+        Set<File> all = new HashSet<File>( targets );
+        List<File> outermost = new ArrayList<File>();
+        for ( File target : targets )
+        {
+            File parent = target.getParentFile();
+            while ( parent != null && !all.contains( parent ) )
+            {
+                parent = parent.getParentFile();
+            }
+            if ( parent == null )
+            {
+                outermost.add( target );
+            }
+        }
+        return outermost;
+    }
+
+    private void reResolveArtifacts( ArtifactPurger purger, Collection<Artifact> artifacts,
+                                     Map<String, List<ArtifactRepository>> artifactRepositories )
+        throws MojoExecutionException, MojoFailureException
+    {
+        List<Artifact> missingArtifacts = purger.reResolve( artifacts, artifactRepositories );
+
+        if ( missingArtifacts.size() > 0 )
+        {
+            String message = "required artifacts missing:\n";
+            for ( Artifact missingArtifact : missingArtifacts )
+            {
+                message += "  " + missingArtifact.getId() + "\n";
+            }
+
+            throw new MojoFailureException( this, "Failed to refresh project dependencies", message );
+        }
     }
 
     private List<String> buildExclusionPatternsList()
@@ -314,128 +468,43 @@ public class PurgeLocalRepositoryMojo
         }
     }
 
-    private void refreshDependenciesForProject( MavenProject project, List<String> exclusionPatterns )
-        throws ArtifactResolutionException, MojoFailureException
+    private void removeExcludedArtifacts( MavenProject project, Map<String, Artifact> deps,
+                                          List<String> exclusionPatterns )
     {
-        Map<String, Artifact> deps = createArtifactMap( project );
-
-        if ( deps.isEmpty() )
-        {
-            getLog().info( "Nothing to do for project: " + project.getId() );
-            return;
-        }
-
-        if ( !exclusionPatterns.isEmpty() )
+        for ( String excludedKey : exclusionPatterns )
         {
-            for ( String excludedKey : exclusionPatterns )
+            if ( GROUP_ID_FUZZINESS.equals( resolutionFuzziness ) )
             {
-                if ( GROUP_ID_FUZZINESS.equals( resolutionFuzziness ) )
-                {
-                    verbose( "Excluding groupId: " + excludedKey + " from refresh operation for project: "
-                                 + project.getId() );
+                verbose( "Excluding groupId: " + excludedKey + " from refresh operation for project: "
+                             + project.getId() );
 
-                    for ( Iterator<Map.Entry<String, Artifact>> deps_it = deps.entrySet().iterator();
-                          deps_it.hasNext(); )
-                    {
-                        Map.Entry<String, Artifact> dependency = deps_it.next();
-
-                        Artifact artifact = dependency.getValue();
-
-                        if ( artifact.getGroupId().equals( excludedKey ) )
-                        {
-                            deps_it.remove();
-                        }
-                    }
-                }
-                else
+                for ( Iterator<Map.Entry<String, Artifact>> deps_it = deps.entrySet().iterator(); deps_it.hasNext(); )
                 {
-                    verbose( "Excluding: " + excludedKey + " from refresh operation for project: " + project.getId() );
+                    Map.Entry<String, Artifact> dependency = deps_it.next();
 
-                    deps.remove( excludedKey );
-                }
-            }
-        }
-
-        verbose( "Processing dependencies for project: " + project.getId() );
-
-        List<Artifact> missingArtifacts = new ArrayList<Artifact>();
-        for ( Map.Entry<String, Artifact> entry : deps.entrySet() )
-        {
-            Artifact artifact = entry.getValue();
-
-            verbose( "Processing artifact: " + artifact.getId() );
+                    Artifact artifact = dependency.getValue();
 
-            File deleteTarget = findDeleteTarget( artifact );
-
-            verbose( "Deleting: " + deleteTarget );
-
-            if ( deleteTarget.isDirectory() )
-            {
-                try
-                {
-                    FileUtils.deleteDirectory( deleteTarget );
-                }
-                catch ( IOException e )
-                {
-                    throw new MojoFailureException( this, "Cannot delete dependency from the local repository: "
-                        + artifact.getId(), "Failed to delete: " + deleteTarget );
+                    if ( artifact.getGroupId().equals( excludedKey ) )
+                    {
+                        deps_it.remove();
+                    }
                 }
             }
             else
             {
-                deleteTarget.delete();
-            }
-
-            if ( reResolve )
-            {
-                verbose( "Re-resolving." );
-
-                artifact.setResolved( false );
+                verbose( "Excluding: " + excludedKey + " from refresh operation for project: " + project.getId() );
 
-                try
-                {
-                    resolver.resolveAlways( artifact, project.getRemoteArtifactRepositories(), localRepository );
-                }
-                catch ( ArtifactResolutionException e )
-                {
-                    getLog().debug( e.getMessage() );
-                    missingArtifacts.add( artifact );
-                }
-                catch ( ArtifactNotFoundException e )
-                {
-                    getLog().debug( e.getMessage() );
-                    missingArtifacts.add( artifact );
-                }
+                deps.remove( excludedKey );
             }
         }
-
-        if ( missingArtifacts.size() > 0 )
-        {
-            String message = "required artifacts missing:\n";
-            for ( Artifact missingArtifact : missingArtifacts )
-            {
-                message += "  " + missingArtifact.getId() + "\n";
-            }
-            message += "\nfor the artifact:";
-
-            throw new ArtifactResolutionException( message, project.getArtifact(),
-                                                   project.getRemoteArtifactRepositories() );
-        }
-
     }
 
     private File findDeleteTarget( Artifact artifact )
     {
-        File deleteTarget = artifact.getFile();
+        File deleteTarget = getFuzzinessTarget( artifact.getFile(), resolutionFuzziness );
 
         if ( GROUP_ID_FUZZINESS.equals( resolutionFuzziness ) )
         {
-            // get the artifactId dir.
-            deleteTarget = deleteTarget.getParentFile().getParentFile();
-
-            // get the first groupId dir.
-            deleteTarget = deleteTarget.getParentFile();
-
             String[] path = localRepository.pathOf( artifact ).split( "\\/" );
 
             // subtract the artifact filename, version dir, artifactId dir, and
@@ -468,19 +537,39 @@ public class PurgeLocalRepositoryMojo
             }
 
         }
-        else if ( ARTIFACT_ID_FUZZINESS.equals( resolutionFuzziness ) )
+
+        return deleteTarget;
+    }
+
+    /**
+     * Returns the file or directory of the local repository matching a resolution fuzziness.
+     *
+     * @param artifactFile the file of an artifact in the local repository.
+     * @param fuzziness the resolution fuzziness.
+     * @return the file itself, or its version, artifactId or groupId directory.
+     */
+    static File getFuzzinessTarget( File artifactFile, String fuzziness )
+    {
+        File target = artifactFile;
+
+        if ( GROUP_ID_FUZZINESS.equals( fuzziness ) )
+        {
+            // get the first groupId dir.
+            target = target.getParentFile().getParentFile().getParentFile();
+        }
+        else if ( ARTIFACT_ID_FUZZINESS.equals( fuzziness ) )
         {
             // get the artifactId dir.
-            deleteTarget = deleteTarget.getParentFile().getParentFile();
+            target = target.getParentFile().getParentFile();
         }
-        else if ( VERSION_FUZZINESS.equals( resolutionFuzziness ) )
+        else if ( VERSION_FUZZINESS.equals( fuzziness ) )
         {
             // get the version dir.
-            deleteTarget = deleteTarget.getParentFile();
+            target = target.getParentFile();
         }
         // else it's file fuzziness.
 
-        return deleteTarget;
+        return target;
     }
 
 }
@@ -19,14 +19,17 @@ package org.apache.maven.plugin.dependency;
  * under the License.
  */
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -41,36 +44,45 @@ import org.apache.maven.execution.RuntimeInformation;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.DependencyPathIndex;
+import org.apache.maven.plugin.dependency.utils.DependencyTreeCache;
+import org.apache.maven.plugin.dependency.utils.DependencyTreeDiff;
 import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.LogWriter;
+import org.apache.maven.plugin.dependency.utils.OutputFiles;
+import org.apache.maven.plugin.dependency.utils.filters.CompiledPatternArtifactFilter;
+import org.apache.maven.plugin.dependency.utils.filters.IndexedAncestorOrSelfDependencyNodeFilter;
+import org.apache.maven.plugin.dependency.treeSerializers.BinaryDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.treeSerializers.DAGDependencyNodeVisitor;
 import org.apache.maven.plugin.dependency.treeSerializers.GraphmlDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.treeSerializers.JSONDependencyNodeVisitor;
 import org.apache.maven.plugin.dependency.treeSerializers.TGFDependencyNodeVisitor;
 import org.apache.maven.plugin.dependency.treeSerializers.DOTDependencyNodeVisitor;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.shared.artifact.filter.StrictPatternExcludesArtifactFilter;
-import org.apache.maven.shared.artifact.filter.StrictPatternIncludesArtifactFilter;
 import org.apache.maven.shared.dependency.tree.DependencyNode;
 import org.apache.maven.shared.dependency.tree.DependencyTreeBuilder;
 import org.apache.maven.shared.dependency.tree.DependencyTreeBuilderException;
-import org.apache.maven.shared.dependency.tree.filter.AncestorOrSelfDependencyNodeFilter;
 import org.apache.maven.shared.dependency.tree.filter.AndDependencyNodeFilter;
 import org.apache.maven.shared.dependency.tree.filter.ArtifactDependencyNodeFilter;
 import org.apache.maven.shared.dependency.tree.filter.DependencyNodeFilter;
 import org.apache.maven.shared.dependency.tree.filter.StateDependencyNodeFilter;
 import org.apache.maven.shared.dependency.tree.traversal.BuildingDependencyNodeVisitor;
-import org.apache.maven.shared.dependency.tree.traversal.CollectingDependencyNodeVisitor;
 import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
 import org.apache.maven.shared.dependency.tree.traversal.FilteringDependencyNodeVisitor;
 import org.apache.maven.shared.dependency.tree.traversal.SerializingDependencyNodeVisitor;
 import org.apache.maven.shared.dependency.tree.traversal.SerializingDependencyNodeVisitor.TreeTokens;
+import org.codehaus.plexus.util.IOUtil;
 
 /**
- * Displays the dependency tree for this project.
+ * Displays the dependency tree for this project. The tree is computed from the POMs only, the artifact files are not
+ * downloaded.
  *
  * @author <a href="mailto:markhobson@gmail.com">Mark Hobson</a>
  * @version $Id: TreeMojo.java 1085777 2011-03-26 18:13:19Z hboutemy $
  * @since 2.0-alpha-5
  * @goal tree
- * @requiresDependencyResolution test
+ * @threadSafe
+ * @requiresDependencyCollection test
  */
 public class TreeMojo extends AbstractMojo
 {
@@ -148,16 +160,28 @@ public class TreeMojo extends AbstractMojo
 
     /**
      * If specified, this parameter will cause the dependency tree to be written using the specified format. Currently
-     * supported format are text, dot, graphml and tgf.
+     * supported format are text, dot, graphml, tgf, json and binary.
      *
      * These formats can be plotted to image files. An example of how to plot a dot file using
      * pygraphviz can be found <a href="http://networkx.lanl.gov/pygraphviz/tutorial.html#layout-and-drawing">here</a>
      *
+     * The json and binary formats are meant for tools, the binary format being described in
+     * <code>BinaryDependencyNodeVisitor</code>. The binary format requires an <code>outputFile</code>.
+     *
      * @parameter expression="${outputType}" default-value="text"
      * @since 2.1
      */
     private String outputType;
 
+    /**
+     * Whether the dot, graphml, tgf and json formats write the dependency graph instead of the tree: each artifact is
+     * then written once with a dense numeric id, and each edge once, however many paths lead to them.
+     *
+     * @parameter expression="${dag}" default-value="false"
+     * @since 2.5
+     */
+    private boolean dag;
+
     /**
      * The scope to filter by when resolving the dependency tree, or <code>null</code> to include dependencies from
      * all scopes. Note that this feature does not currently work due to MNG-3236.
@@ -169,6 +193,18 @@ public class TreeMojo extends AbstractMojo
      */
     private String scope;
 
+    /**
+     * A comma-separated list of scopes to write a view of the dependency tree for, e.g.
+     * <code>compile,runtime,test</code>. The tree is built once for all the scopes, each view keeping the nodes
+     * included in its scope, as the classpath of this scope would. When set, <code>scope</code> is ignored and each
+     * view is written to the <code>outputFile</code> with the scope appended to its base name, e.g.
+     * <code>tree-compile.txt</code>.
+     *
+     * @parameter expression="${scopes}"
+     * @since 2.5
+     */
+    private String scopes;
+
     /**
      * Whether to include omitted nodes in the serialized dependency tree.
      *
@@ -212,6 +248,67 @@ public class TreeMojo extends AbstractMojo
      */
     private String excludes;
 
+    /**
+     * Whether to cache the dependency tree in the <code>cacheFile</code>. The cached tree is used as long as the
+     * dependencies, managed dependencies and repositories of the project, the resolved scope, and the POMs of the
+     * tree in the local repository are unchanged.
+     *
+     * @parameter expression="${cacheTree}" default-value="false"
+     * @since 2.5
+     */
+    private boolean cacheTree;
+
+    /**
+     * The file the dependency tree is cached in.
+     *
+     * @parameter expression="${cacheFile}" default-value="${project.build.directory}/dependency-tree.cache"
+     * @since 2.5
+     */
+    private File cacheFile;
+
+    /**
+     * A baseline of the resolved dependencies to compare the tree to. The added, removed, version changed and scope
+     * changed dependencies are reported. The baseline is written instead if it does not exist yet, or if
+     * <code>saveBaseline</code> is set.
+     *
+     * @parameter expression="${baseline}"
+     * @since 2.5
+     */
+    private File baseline;
+
+    /**
+     * Whether to write the <code>baseline</code> from the current tree rather than compare the tree to it.
+     *
+     * @parameter expression="${saveBaseline}" default-value="false"
+     * @since 2.5
+     */
+    private boolean saveBaseline;
+
+    /**
+     * Whether to fail the build when the tree differs from the <code>baseline</code>.
+     *
+     * @parameter expression="${failOnDrift}" default-value="false"
+     * @since 2.5
+     */
+    private boolean failOnDrift;
+
+    /**
+     * A comma-separated list of artifacts to explain: instead of the tree, only the paths from the project to these
+     * artifacts are written, each distinct path once. The artifact syntax is the one of <code>includes</code>.
+     *
+     * @parameter expression="${why}"
+     * @since 2.5
+     */
+    private String why;
+
+    /**
+     * The maximum number of paths written for <code>why</code>.
+     *
+     * @parameter expression="${maxPaths}" default-value="100"
+     * @since 2.5
+     */
+    private int maxPaths = 100;
+
     /**
      * Runtime Information used to check the Maven version
      * @since 2.0
@@ -270,21 +367,72 @@ public class TreeMojo extends AbstractMojo
         {
             // TODO: note that filter does not get applied due to MNG-3236
 
-            rootNode =
-                dependencyTreeBuilder.buildDependencyTree( project, localRepository, artifactFactory,
-                                                           artifactMetadataSource, artifactFilter, artifactCollector );
+            DependencyTreeCache cache = null;
+            String fingerprint = null;
+            rootNode = null;
+            if ( cacheTree )
+            {
+                cache = new DependencyTreeCache( cacheFile, localRepository, artifactFactory );
+                fingerprint = DependencyTreeCache.fingerprint( project, scopes != null ? null : scope );
+                rootNode = cache.load( fingerprint );
+                getLog().info( "Dependency tree cache " + ( rootNode != null ? "hit" : "miss" ) + ": " + cacheFile );
+            }
 
-            String dependencyTreeString = serializeDependencyTree( rootNode );
+            if ( rootNode == null )
+            {
+                rootNode =
+                    dependencyTreeBuilder.buildDependencyTree( project, localRepository, artifactFactory,
+                                                               artifactMetadataSource, artifactFilter,
+                                                               artifactCollector );
+                if ( cache != null )
+                {
+                    try
+                    {
+                        cache.save( fingerprint, rootNode );
+                    }
+                    catch ( IOException e )
+                    {
+                        getLog().warn( "Cannot write the dependency tree cache " + cacheFile + ": " + e.getMessage() );
+                    }
+                }
+            }
+
+            if ( baseline != null )
+            {
+                compareToBaseline();
+            }
 
-            if ( outputFile != null )
+            if ( why != null )
             {
-                DependencyUtil.write( dependencyTreeString, outputFile, this.appendOutput ,getLog() );
+                Writer writer = openWriter( outputFile );
+                try
+                {
+                    writeDependencyPaths( writer );
+                    OutputFiles.commit( writer );
+                }
+                finally
+                {
+                    IOUtil.close( writer );
+                }
+                return;
+            }
 
-                getLog().info( "Wrote dependency tree to: " + outputFile );
+            if ( scopes != null )
+            {
+                // the tree holds every scope: each view is a filtered traversal of it
+                for ( String viewScope : DependencyUtil.tokenizer( scopes ) )
+                {
+                    if ( outputFile == null )
+                    {
+                        getLog().info( "Dependency tree for scope " + viewScope + ":" );
+                    }
+                    File viewFile = outputFile != null ? DependencyUtil.getScopeFile( outputFile, viewScope ) : null;
+                    writeDependencyTree( viewFile, viewScope );
+                }
             }
             else
             {
-                DependencyUtil.log( dependencyTreeString, getLog() );
+                writeDependencyTree( outputFile, null );
             }
         }
         catch ( DependencyTreeBuilderException exception )
@@ -330,8 +478,8 @@ public class TreeMojo extends AbstractMojo
     {
         ArtifactFilter filter;
 
-        // filter scope
-        if ( scope != null )
+        // filter scope, unless the views are filtered instead
+        if ( scopes == null && scope != null )
         {
             getLog().debug( "+ Resolving dependency tree for scope '" + scope + "'" );
 
@@ -346,41 +494,245 @@ public class TreeMojo extends AbstractMojo
     }
 
     /**
-     * Serializes the specified dependency tree to a string.
+     * Writes the dependency tree, or a scope view of it.
+     *
+     * @param file
+     *            the file to write to, or <code>null</code> to write to the log
+     * @param viewScope
+     *            the scope the tree is filtered by, or <code>null</code> not to filter the tree by scope
+     * @throws IOException
+     *            if the tree can not be written
+     * @throws MojoFailureException
+     *            if the output type requires a file
+     */
+    private void writeDependencyTree( File file, String viewScope )
+        throws IOException, MojoFailureException
+    {
+        if ( "binary".equals( outputType ) )
+        {
+            if ( file == null )
+            {
+                throw new MojoFailureException( "The binary output type requires an outputFile" );
+            }
+            OutputStream out = new BufferedOutputStream( OutputFiles.openStream( file, appendOutput ) );
+            try
+            {
+                BinaryDependencyNodeVisitor visitor = new BinaryDependencyNodeVisitor( out );
+                rootNode.accept( createFilteringDependencyNodeVisitor( rootNode, visitor, viewScope ) );
+                visitor.checkError();
+                OutputFiles.commit( out );
+            }
+            finally
+            {
+                IOUtil.close( out );
+            }
+        }
+        else
+        {
+            Writer writer = openWriter( file );
+            try
+            {
+                serializeDependencyTree( rootNode, writer, viewScope );
+                OutputFiles.commit( writer );
+            }
+            finally
+            {
+                IOUtil.close( writer );
+            }
+        }
+
+        if ( file != null )
+        {
+            getLog().info( "Wrote dependency tree to: " + file );
+        }
+    }
+
+    /**
+     * Opens the writer the output goes to.
+     *
+     * @param file
+     *            the file to write to, or <code>null</code> to write to the log
+     * @return the writer
+     * @throws IOException
+     *            if the file can not be opened
+     */
+    private Writer openWriter( File file )
+        throws IOException
+    {
+        if ( file != null )
+        {
+            return OutputFiles.openWriter( file, appendOutput );
+        }
+        return new LogWriter( getLog() );
+    }
+
+    /**
+     * Writes the paths from the root of the dependency tree to the artifacts matching the <code>why</code> patterns.
+     *
+     * @param out
+     *            the writer to write to
+     * @throws IOException
+     *            if the paths can not be written
+     */
+    private void writeDependencyPaths( Writer out )
+        throws IOException
+    {
+        List<String> patterns = Arrays.asList( why.split( "," ) );
+        getLog().debug( "+ Finding the dependency paths to: " + patterns );
+
+        DependencyPathIndex index = new DependencyPathIndex( rootNode, verbose );
+        List<List<Artifact>> paths = index.findPaths( new CompiledPatternArtifactFilter( patterns, true ), maxPaths );
+
+        PrintWriter writer = new PrintWriter( out );
+        if ( paths.isEmpty() )
+        {
+            writer.println( "No dependency matches " + why );
+        }
+        for ( List<Artifact> path : paths )
+        {
+            StringBuffer line = new StringBuffer();
+            for ( Artifact artifact : path )
+            {
+                line.append( line.length() == 0 ? "" : " -> " ).append( artifact );
+            }
+            writer.println( line );
+        }
+        if ( index.isTruncated() )
+        {
+            writer.println( "... stopped after " + maxPaths + " paths" );
+        }
+
+        writer.flush();
+        if ( writer.checkError() )
+        {
+            throw new IOException( "Cannot write the dependency paths" );
+        }
+    }
+
+    /**
+     * Compares the dependency tree to the baseline, or writes the baseline.
+     *
+     * @throws IOException
+     *            if the baseline can not be read or written
+     * @throws MojoFailureException
+     *            if the tree differs from the baseline and <code>failOnDrift</code> is set
+     */
+    private void compareToBaseline()
+        throws IOException, MojoFailureException
+    {
+        if ( saveBaseline || !baseline.exists() )
+        {
+            DependencyTreeDiff.writeBaseline( rootNode, baseline );
+            getLog().info( "Wrote dependency tree baseline to: " + baseline );
+            return;
+        }
+
+        DependencyTreeDiff diff = new DependencyTreeDiff( baseline );
+        rootNode.accept( diff );
+        if ( !diff.hasChanges() )
+        {
+            getLog().info( "The dependency tree matches the baseline " + baseline );
+            return;
+        }
+
+        getLog().warn( "The dependency tree differs from the baseline " + baseline + ":" );
+        logChanges( "Added", diff.getAdded() );
+        logChanges( "Removed", diff.getRemoved() );
+        logChanges( "Version changed", diff.getVersionChanges() );
+        logChanges( "Scope changed", diff.getScopeChanges() );
+        if ( failOnDrift )
+        {
+            throw new MojoFailureException( "The dependency tree differs from the baseline " + baseline );
+        }
+    }
+
+    private void logChanges( String title, List<String> changes )
+    {
+        for ( String change : changes )
+        {
+            getLog().warn( "   " + title + ": " + change );
+        }
+    }
+
+    /**
+     * Serializes the specified dependency tree to a writer, node by node.
      *
      * @param rootNode
      *            the dependency tree root node to serialize
-     * @return the serialized dependency tree
+     * @param out
+     *            the writer to serialize to
+     * @param viewScope
+     *            the scope the tree is filtered by, or <code>null</code>
+     * @throws IOException
+     *            if the tree can not be written
      */
-    private String serializeDependencyTree( DependencyNode rootNode )
+    private void serializeDependencyTree( DependencyNode rootNode, Writer out, String viewScope )
+        throws IOException
     {
-        StringWriter writer = new StringWriter();
+        // the serializers print to the writer as they visit the nodes: it must not be flushed on every line
+        PrintWriter writer = new PrintWriter( out );
 
         DependencyNodeVisitor visitor = getSerializingDependencyNodeVisitor( writer );
 
+        rootNode.accept( createFilteringDependencyNodeVisitor( rootNode, visitor, viewScope ) );
+
+        writer.flush();
+        if ( writer.checkError() )
+        {
+            throw new IOException( "Cannot write the dependency tree" );
+        }
+    }
+
+    /**
+     * Wraps a serializing visitor so that it only visits the nodes selected by the filters of the mojo.
+     *
+     * @param rootNode
+     *            the dependency tree root node
+     * @param serializingVisitor
+     *            the visitor serializing the nodes
+     * @param viewScope
+     *            the scope the tree is filtered by, or <code>null</code>
+     * @return the visitor to pass to the root node
+     */
+    private DependencyNodeVisitor createFilteringDependencyNodeVisitor( DependencyNode rootNode,
+                                                                        DependencyNodeVisitor serializingVisitor,
+                                                                        String viewScope )
+    {
         // TODO: remove the need for this when the serializer can calculate last nodes from visitor calls only
-        visitor = new BuildingDependencyNodeVisitor( visitor );
+        DependencyNodeVisitor visitor = new BuildingDependencyNodeVisitor( serializingVisitor );
 
         DependencyNodeFilter filter = createDependencyNodeFilter();
 
-        if ( filter != null )
+        if ( viewScope != null )
         {
-            CollectingDependencyNodeVisitor collectingVisitor = new CollectingDependencyNodeVisitor();
-            DependencyNodeVisitor firstPassVisitor = new FilteringDependencyNodeVisitor( collectingVisitor, filter );
-            rootNode.accept( firstPassVisitor );
-
-            DependencyNodeFilter secondPassFilter = new AncestorOrSelfDependencyNodeFilter( collectingVisitor.getNodes() );
-            visitor = new FilteringDependencyNodeVisitor( visitor, secondPassFilter );
+            // the scopes of the nodes are already narrowed along their paths: no node of the view is below one
+            // out of the view
+            DependencyNodeFilter scopeFilter = new ArtifactDependencyNodeFilter( new ScopeArtifactFilter( viewScope ) );
+            visitor = new FilteringDependencyNodeVisitor( visitor, scopeFilter );
         }
 
-        rootNode.accept( visitor );
+        if ( filter != null )
+        {
+            // one pass to mark the matching nodes and their ancestors, then each node is a lookup
+            visitor = new FilteringDependencyNodeVisitor( visitor, new IndexedAncestorOrSelfDependencyNodeFilter(
+                rootNode, filter ) );
+        }
 
-        return writer.toString();
+        return visitor;
     }
 
     public DependencyNodeVisitor getSerializingDependencyNodeVisitor( Writer writer )
     {
-        if ( "graphml".equals( outputType ) )
+        if ( dag && ( DAGDependencyNodeVisitor.GRAPHML.equals( outputType )
+            || DAGDependencyNodeVisitor.TGF.equals( outputType ) || DAGDependencyNodeVisitor.DOT.equals( outputType ) ) )
+        {
+            return new DAGDependencyNodeVisitor( writer, outputType );
+        }
+        else if ( "json".equals( outputType ) )
+        {
+            return new JSONDependencyNodeVisitor( writer, dag );
+        }
+        else if ( "graphml".equals( outputType ) )
         {
             return new GraphmlDependencyNodeVisitor( writer );
         }
@@ -453,7 +805,7 @@ public class TreeMojo extends AbstractMojo
 
             getLog().debug( "+ Filtering dependency tree by artifact include patterns: " + patterns );
 
-            ArtifactFilter artifactFilter = new StrictPatternIncludesArtifactFilter( patterns );
+            ArtifactFilter artifactFilter = new CompiledPatternArtifactFilter( patterns, true );
             filters.add( new ArtifactDependencyNodeFilter( artifactFilter ) );
         }
 
@@ -464,7 +816,7 @@ public class TreeMojo extends AbstractMojo
 
             getLog().debug( "+ Filtering dependency tree by artifact exclude patterns: " + patterns );
 
-            ArtifactFilter artifactFilter = new StrictPatternExcludesArtifactFilter( patterns );
+            ArtifactFilter artifactFilter = new CompiledPatternArtifactFilter( patterns, false );
             filters.add( new ArtifactDependencyNodeFilter( artifactFilter ) );
         }
 
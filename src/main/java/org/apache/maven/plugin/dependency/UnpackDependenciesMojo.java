@@ -25,6 +25,7 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.utils.DependencyStatusSets;
 import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.DestinationLock;
 import org.apache.maven.plugin.dependency.utils.filters.MarkerFileFilter;
 import org.apache.maven.plugin.dependency.utils.markers.DefaultFileMarkerHandler;
 import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
@@ -34,6 +35,7 @@ import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
  * location.
  *
  * @goal unpack-dependencies
+ * @threadSafe
  * @requiresDependencyResolution test
  * @phase process-sources
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
@@ -85,9 +87,24 @@ public class UnpackDependenciesMojo
             destDir = DependencyUtil.getFormattedOutputDirectory( useSubDirectoryPerScope, useSubDirectoryPerType, useSubDirectoryPerArtifact,
                                                                   useRepositoryLayout, stripVersion, outputDirectory,
                                                                   artifact );
-            unpack( artifact.getFile(), destDir, getIncludes(), getExcludes() );
-            DefaultFileMarkerHandler handler = new DefaultFileMarkerHandler( artifact, this.markersDirectory );
-            handler.setMarker();
+            DestinationLock lock = lockDestination( destDir, artifact );
+            try
+            {
+                if ( isStillUnmarked( artifact ) )
+                {
+                    unpack( artifact.getFile(), destDir, getIncludes(), getExcludes() );
+                    DefaultFileMarkerHandler handler = new DefaultFileMarkerHandler( artifact, this.markersDirectory );
+                    handler.setMarker();
+                }
+                else
+                {
+                    getLog().info( artifact.getFile().getName() + " already unpacked by another build." );
+                }
+            }
+            finally
+            {
+                unlockDestination( lock );
+            }
         }
 
         for ( Artifact artifact : dss.getSkippedDependencies() )
@@ -0,0 +1,479 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
+import org.apache.maven.artifact.resolver.ArtifactResolver;
+import org.apache.maven.execution.RuntimeInformation;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.ArtifactPurger;
+import org.apache.maven.plugin.dependency.utils.FileHashIndex;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
+import org.apache.maven.plugin.dependency.utils.resolvers.ProjectArtifactsCollector;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Verifies the files of the local repository against their <code>.sha1</code> or <code>.md5</code> checksum, and
+ * checks that the archives have a readable zip central directory, so that truncated downloads or files damaged on disk
+ * can be found and repaired instead of purging the repository blindly.
+ * <p>
+ * The whole repository is verified, or only the transitive dependencies of the project when
+ * <code>projectArtifacts</code> is set, in which case they are collected by this goal. When <code>repair</code> is
+ * set, the corrupted files are deleted and their artifacts resolved again, as
+ * <code>dependency:purge-local-repository</code> does.
+ *
+ * @goal verify-local-repository
+ * @threadSafe
+ * @requiresProject false
+ * @version $Id$
+ * @since 2.5
+ */
+public class VerifyLocalRepositoryMojo
+    extends AbstractMojo
+{
+    private static final String[] CHECKSUM_EXTENSIONS = { ".sha1", ".md5" };
+
+    private static final String[] DIGEST_ALGORITHMS = { "SHA-1", "MD5" };
+
+    private static final Pattern[] CHECKSUM_PATTERNS =
+        { Pattern.compile( "\\b([0-9a-fA-F]{40})\\b" ), Pattern.compile( "\\b([0-9a-fA-F]{32})\\b" ) };
+
+    private static final Set<String> ARCHIVE_EXTENSIONS =
+        new HashSet<String>( Arrays.asList( new String[] { "jar", "war", "ear", "zip", "rar", "sar", "har", "par",
+            "aar" } ) );
+
+    private static final Set<String> SKIPPED_EXTENSIONS =
+        new HashSet<String>( Arrays.asList( new String[] { "sha1", "md5", "asc", "lastUpdated", "properties" } ) );
+
+    private static final Pattern TIMESTAMP_PATTERN = Pattern.compile( "(\\d{8}\\.\\d{6}-\\d+)(.*)" );
+
+    /**
+     * @parameter default-value="${project}"
+     * @readonly
+     */
+    private MavenProject project;
+
+    /**
+     * The local repository to verify.
+     *
+     * @parameter default-value="${localRepository}"
+     * @required
+     * @readonly
+     */
+    private ArtifactRepository localRepository;
+
+    /**
+     * @component
+     */
+    private ArtifactResolver resolver;
+
+    /**
+     * @component
+     */
+    private ArtifactFactory factory;
+
+    /**
+     * @component
+     */
+    private ArtifactCollector artifactCollector;
+
+    /**
+     * @component
+     */
+    private ArtifactMetadataSource artifactMetadataSource;
+
+    /**
+     * Only verify the transitive dependencies of the project present in the local repository instead of the whole
+     * repository.
+     *
+     * @parameter expression="${projectArtifacts}" default-value="false"
+     */
+    private boolean projectArtifacts;
+
+    /**
+     * Delete the corrupted files and resolve their artifacts again from the remote repositories of the project.
+     *
+     * @parameter expression="${repair}" default-value="false"
+     */
+    private boolean repair;
+
+    /**
+     * Fail the build if corrupted files are found, and were not repaired.
+     *
+     * @parameter expression="${failOnError}" default-value="true"
+     */
+    private boolean failOnError = true;
+
+    /**
+     * The number of threads used to verify and repair the files. A single thread is used to repair them with Maven
+     * 2.x, whose artifact resolver is not thread-safe.
+     *
+     * @parameter expression="${threads}" default-value="4"
+     */
+    private int threads = 4;
+
+    /**
+     * Used to check whether the artifact resolver of the running Maven is thread-safe.
+     *
+     * @component role="org.apache.maven.execution.RuntimeInformation"
+     */
+    private RuntimeInformation rti;
+
+    public void execute()
+        throws MojoExecutionException, MojoFailureException
+    {
+        File repositoryDirectory = new File( localRepository.getBasedir() );
+
+        // the files to verify, with their artifact when it is known
+        final Map<File, Artifact> files = new LinkedHashMap<File, Artifact>();
+        if ( projectArtifacts )
+        {
+            if ( project != null )
+            {
+                // collected here, so that verifying the whole repository doesn't require the project to resolve
+                ProjectArtifactsCollector collector =
+                    new ProjectArtifactsCollector( artifactCollector, factory, artifactMetadataSource,
+                                                   localRepository );
+                for ( Artifact artifact : collector.getArtifacts( project ) )
+                {
+                    File file = artifact.getFile();
+                    if ( file == null )
+                    {
+                        file = new File( repositoryDirectory, localRepository.pathOf( artifact ) );
+                    }
+                    if ( file.isFile() )
+                    {
+                        files.put( file, artifact );
+                    }
+                }
+            }
+        }
+        else
+        {
+            findFiles( repositoryDirectory, true, files );
+        }
+
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        for ( final File file : files.keySet() )
+        {
+            tasks.add( new Callable<String>()
+            {
+                public String call()
+                    throws IOException
+                {
+                    String error = verify( file );
+                    return error == null ? null : file + ": " + error;
+                }
+            } );
+        }
+        getLog().info( "Verifying " + tasks.size() + " files" );
+
+        Map<File, String> corrupted = new TreeMap<File, String>();
+        List<File> verified = new ArrayList<File>( files.keySet() );
+        List<String> results = ParallelTasks.invokeAll( threads, tasks, "Couldn't verify file" );
+        for ( int i = 0; i < results.size(); i++ )
+        {
+            if ( results.get( i ) != null )
+            {
+                corrupted.put( verified.get( i ), results.get( i ) );
+                getLog().warn( results.get( i ) );
+            }
+        }
+
+        if ( corrupted.isEmpty() )
+        {
+            getLog().info( "No corrupted file found." );
+            return;
+        }
+
+        if ( repair )
+        {
+            corrupted = repair( repositoryDirectory, corrupted, files );
+        }
+
+        if ( !corrupted.isEmpty() )
+        {
+            StringBuffer message = new StringBuffer( "corrupted files:\n" );
+            for ( String error : corrupted.values() )
+            {
+                message.append( "  " ).append( error ).append( "\n" );
+            }
+            if ( failOnError )
+            {
+                throw new MojoFailureException( this, "Found " + corrupted.size()
+                    + " corrupted files in the local repository", message.toString() );
+            }
+            getLog().warn( "Found " + corrupted.size() + " corrupted files in the local repository" );
+        }
+    }
+
+    /**
+     * Deletes the corrupted files and their checksums, then resolves their artifacts again.
+     *
+     * @return the corrupted files which could not be repaired.
+     */
+    private Map<File, String> repair( File repositoryDirectory, Map<File, String> corrupted, Map<File, Artifact> files )
+        throws MojoExecutionException
+    {
+        Map<File, String> remaining = new TreeMap<File, String>();
+        Map<String, Artifact> artifacts = new LinkedHashMap<String, Artifact>();
+        Map<String, File> artifactFiles = new HashMap<String, File>();
+        Map<String, List<ArtifactRepository>> artifactRepositories = new HashMap<String, List<ArtifactRepository>>();
+        List<File> deleteTargets = new ArrayList<File>();
+        for ( Map.Entry<File, String> entry : corrupted.entrySet() )
+        {
+            File file = entry.getKey();
+            Artifact artifact = files.get( file );
+            if ( artifact == null )
+            {
+                String[] coordinates = parseArtifactPath( getRelativePath( repositoryDirectory, file ) );
+                if ( coordinates != null )
+                {
+                    artifact = factory.createArtifactWithClassifier( coordinates[0], coordinates[1], coordinates[2],
+                                                                     coordinates[4], coordinates[3] );
+                }
+            }
+            if ( artifact == null )
+            {
+                getLog().warn( "Couldn't find the artifact of " + file + ", it won't be repaired" );
+                remaining.put( file, entry.getValue() );
+                continue;
+            }
+
+            deleteTargets.add( file );
+            for ( String extension : CHECKSUM_EXTENSIONS )
+            {
+                deleteTargets.add( new File( file.getPath() + extension ) );
+            }
+            artifacts.put( artifact.getId(), artifact );
+            artifactFiles.put( artifact.getId(), file );
+            artifactRepositories.put( artifact.getId(), project.getRemoteArtifactRepositories() );
+        }
+
+        ArtifactPurger purger =
+            new ArtifactPurger( resolver, localRepository, ParallelTasks.getResolverThreads( threads, rti, getLog() ),
+                                getLog(), true );
+        purger.delete( deleteTargets );
+        for ( Artifact missingArtifact : purger.reResolve( artifacts.values(), artifactRepositories ) )
+        {
+            getLog().warn( "Couldn't resolve " + missingArtifact.getId() + " again" );
+            File file = artifactFiles.get( missingArtifact.getId() );
+            remaining.put( file, file + ": deleted, but " + missingArtifact.getId() + " couldn't be resolved again" );
+        }
+        return remaining;
+    }
+
+    /**
+     * Finds the files of the repository having a checksum or being an archive.
+     */
+    private void findFiles( File directory, boolean root, Map<File, Artifact> files )
+    {
+        File[] children = directory.listFiles();
+        if ( children == null )
+        {
+            return;
+        }
+
+        for ( File child : children )
+        {
+            String name = child.getName();
+            if ( child.isDirectory() )
+            {
+                if ( !name.startsWith( "." ) )
+                {
+                    findFiles( child, false, files );
+                }
+            }
+            else if ( !root && !SKIPPED_EXTENSIONS.contains( FileUtils.getExtension( name ) )
+                && ( ARCHIVE_EXTENSIONS.contains( FileUtils.getExtension( name ) ) || hasChecksum( child ) ) )
+            {
+                files.put( child, null );
+            }
+        }
+    }
+
+    private static boolean hasChecksum( File file )
+    {
+        for ( String extension : CHECKSUM_EXTENSIONS )
+        {
+            if ( new File( file.getPath() + extension ).isFile() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifies a file against its strongest checksum, and checks the central directory of archives.
+     *
+     * @param file the file.
+     * @return the error found, or <code>null</code> if the file is sound.
+     * @throws IOException if a checksum can not be read.
+     */
+    static String verify( File file )
+        throws IOException
+    {
+        for ( int i = 0; i < CHECKSUM_EXTENSIONS.length; i++ )
+        {
+            File checksumFile = new File( file.getPath() + CHECKSUM_EXTENSIONS[i] );
+            if ( !checksumFile.isFile() )
+            {
+                continue;
+            }
+
+            Matcher matcher = CHECKSUM_PATTERNS[i].matcher( FileUtils.fileRead( checksumFile ) );
+            if ( !matcher.find() )
+            {
+                // a checksum we can't understand doesn't make the file corrupted
+                continue;
+            }
+            String expected = matcher.group( 1 ).toLowerCase();
+            String actual = FileHashIndex.hash( file, DIGEST_ALGORITHMS[i] );
+            if ( !expected.equals( actual ) )
+            {
+                return DIGEST_ALGORITHMS[i] + " checksum mismatch, expected " + expected + " but was " + actual;
+            }
+            break;
+        }
+
+        if ( ARCHIVE_EXTENSIONS.contains( FileUtils.getExtension( file.getName() ) ) )
+        {
+            ZipFile zip = null;
+            try
+            {
+                // reads the central directory, which is the last thing written by a download
+                zip = new ZipFile( file );
+            }
+            catch ( IOException e )
+            {
+                return "invalid archive: " + e.getMessage();
+            }
+            finally
+            {
+                if ( zip != null )
+                {
+                    zip.close();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String getRelativePath( File repositoryDirectory, File file )
+    {
+        return file.getAbsolutePath().substring( repositoryDirectory.getAbsolutePath().length() + 1 )
+            .replace( File.separatorChar, '/' );
+    }
+
+    /**
+     * Finds the coordinates of an artifact from the path of its file in the repository.
+     *
+     * @param path the path of the file relative to the repository, with <code>/</code> separators.
+     * @return the groupId, artifactId, version, classifier (possibly <code>null</code>) and extension, or
+     *         <code>null</code> if the path doesn't follow the repository layout.
+     */
+    static String[] parseArtifactPath( String path )
+    {
+        String[] elements = path.split( "/" );
+        if ( elements.length < 4 )
+        {
+            return null;
+        }
+        String name = elements[elements.length - 1];
+        String baseVersion = elements[elements.length - 2];
+        String artifactId = elements[elements.length - 3];
+        StringBuffer groupId = new StringBuffer( elements[0] );
+        for ( int i = 1; i < elements.length - 3; i++ )
+        {
+            groupId.append( '.' ).append( elements[i] );
+        }
+
+        String prefix = artifactId + "-";
+        if ( !name.startsWith( prefix ) )
+        {
+            return null;
+        }
+        String rest = name.substring( prefix.length() );
+
+        String version;
+        if ( rest.startsWith( baseVersion ) )
+        {
+            version = baseVersion;
+        }
+        else
+        {
+            // a timestamped snapshot, e.g. 1.0-20110101.120000-1
+            if ( !baseVersion.endsWith( Artifact.SNAPSHOT_VERSION ) )
+            {
+                return null;
+            }
+            String snapshotPrefix = baseVersion.substring( 0, baseVersion.length() - "SNAPSHOT".length() );
+            Matcher matcher = TIMESTAMP_PATTERN.matcher( rest.substring( Math.min( rest.length(),
+                                                                                 snapshotPrefix.length() ) ) );
+            if ( !rest.startsWith( snapshotPrefix ) || !matcher.matches() )
+            {
+                return null;
+            }
+            version = snapshotPrefix + matcher.group( 1 );
+        }
+        rest = rest.substring( version.length() );
+
+        String classifier = null;
+        if ( rest.startsWith( "-" ) )
+        {
+            int index = rest.indexOf( '.' );
+            if ( index < 0 )
+            {
+                return null;
+            }
+            classifier = rest.substring( 1, index );
+            rest = rest.substring( index );
+        }
+        if ( !rest.startsWith( "." ) || rest.length() == 1 )
+        {
+            return null;
+        }
+        return new String[] { groupId.toString(), artifactId, version, classifier, rest.substring( 1 ) };
+    }
+}
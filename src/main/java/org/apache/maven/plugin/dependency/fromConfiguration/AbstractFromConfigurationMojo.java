@@ -194,7 +194,7 @@ public abstract class AbstractFromConfigurationMojo
         return artifactItems;
     }
 
-    private boolean checkIfProcessingNeeded( ArtifactItem item )
+    boolean checkIfProcessingNeeded( ArtifactItem item )
         throws MojoExecutionException, ArtifactFilterException
     {
         boolean result = false;
@@ -30,6 +30,7 @@ import org.apache.maven.plugin.dependency.utils.filters.DestFileFilter;
  * Goal that copies a list of artifacts from the repository to defined locations.
  * 
  * @goal copy
+ * @threadSafe
  * @since 1.0
  * @phase process-sources
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
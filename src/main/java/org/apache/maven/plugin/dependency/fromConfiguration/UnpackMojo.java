@@ -23,10 +23,12 @@ import java.io.File;
 import java.util.List;
 
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.dependency.utils.DestinationLock;
 import org.apache.maven.plugin.dependency.utils.filters.ArtifactItemFilter;
 import org.apache.maven.plugin.dependency.utils.filters.MarkerFileFilter;
 import org.apache.maven.plugin.dependency.utils.markers.MarkerHandler;
 import org.apache.maven.plugin.dependency.utils.markers.UnpackFileMarkerHandler;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
 import org.codehaus.plexus.util.StringUtils;
 
 /**
@@ -34,6 +36,7 @@ import org.codehaus.plexus.util.StringUtils;
  * 
  * @since 1.0
  * @goal unpack
+ * @threadSafe
  * @phase process-sources
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
  * @version $Id: UnpackMojo.java 1085975 2011-03-27 16:03:41Z hboutemy $
@@ -113,9 +116,29 @@ public final class UnpackMojo
     {
         MarkerHandler handler = new UnpackFileMarkerHandler( artifactItem, this.markersDirectory );
 
-        unpack( artifactItem.getArtifact().getFile(), artifactItem.getOutputDirectory(), artifactItem.getIncludes(),
-                artifactItem.getExcludes() );
-        handler.setMarker();
+        DestinationLock lock = lockDestination( artifactItem.getOutputDirectory(), artifactItem.getArtifact() );
+        try
+        {
+            // another build sharing the output directory may have unpacked it while this one was waiting for the lock
+            if ( !checkIfProcessingNeeded( artifactItem ) )
+            {
+                this.getLog().info( artifactItem.getArtifact().getFile().getName()
+                                        + " already unpacked by another build." );
+                return;
+            }
+
+            unpack( artifactItem.getArtifact().getFile(), artifactItem.getOutputDirectory(),
+                    artifactItem.getIncludes(), artifactItem.getExcludes() );
+            handler.setMarker();
+        }
+        catch ( ArtifactFilterException e )
+        {
+            throw new MojoExecutionException( e.getMessage(), e );
+        }
+        finally
+        {
+            unlockDestination( lock );
+        }
     }
 
     ArtifactItemFilter getMarkedArtifactFilter( ArtifactItem item )
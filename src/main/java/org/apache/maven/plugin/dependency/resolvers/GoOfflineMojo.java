@@ -32,6 +32,7 @@ import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
  * and their dependencies.
  * 
  * @goal go-offline
+ * @threadSafe
  * @execute goal=resolve-plugins
  * @requiresDependencyResolution test
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
@@ -19,13 +19,11 @@ package org.apache.maven.plugin.dependency.resolvers;
  * under the License.
  */
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
 import org.apache.maven.artifact.resolver.ResolutionNode;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -33,11 +31,13 @@ import org.apache.maven.plugin.dependency.AbstractDependencyMojo;
 import org.apache.maven.shared.artifact.filter.ScopeArtifactFilter;
 
 /**
- * Goal that resolves all project dependencies and then lists the repositories
- * used by the build and by the transitive dependencies
+ * Goal that collects all project dependencies and then lists the repositories
+ * used by the build and by the transitive dependencies. Only the POMs are
+ * needed for this, the artifact files are not downloaded.
  *
  * @goal list-repositories
- * @requiresDependencyResolution test
+ * @threadSafe
+ * @requiresDependencyCollection test
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
  * @version $Id: GoOfflineMojo.java 728546 2008-12-21 22:56:51Z bentmann $
  * @since 2.2
@@ -54,12 +54,8 @@ public class ListRepositoriesMojo
     public void execute()
         throws MojoExecutionException
 	{
-		try
-		{
             ArtifactResolutionResult result =
-                this.artifactCollector.collect( project.getArtifacts(), project.getArtifact(), this.getLocal(),
-                                                this.remoteRepos, this.artifactMetadataSource,
-                                                new ScopeArtifactFilter( Artifact.SCOPE_TEST ), new ArrayList() );
+                getProjectArtifactsCollector().collectResult( project, new ScopeArtifactFilter( Artifact.SCOPE_TEST ) );
 			Set repos = new HashSet();
 			Set<ResolutionNode> nodes = result.getArtifactResolutionNodes();
             for ( ResolutionNode node : nodes )
@@ -72,10 +68,5 @@ public class ListRepositoriesMojo
             {
                 this.getLog().info( i.next().toString() );
             }
-        }
-        catch ( ArtifactResolutionException e )
-        {
-            throw new MojoExecutionException( "Unable to resolve artifacts", e );
-        }
 	}
 }
@@ -33,6 +33,7 @@ import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
  * Goal that resolves the project dependencies from the repository.
  *
  * @goal resolve
+ * @threadSafe
  * @requiresDependencyResolution test
  * @phase generate-sources
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
@@ -76,7 +77,7 @@ public class ResolveDependenciesMojo
             }
             else
             {
-                DependencyUtil.write( output, outputFile, appendOutput, getLog() );
+                DependencyUtil.write( output, outputFile, appendOutput );
             }
         }
         catch ( IOException e )
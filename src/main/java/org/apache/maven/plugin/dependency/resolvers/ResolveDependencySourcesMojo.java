@@ -34,6 +34,7 @@ import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
  * Goal that resolves the project source dependencies from the repository.
  *
  * @goal sources
+ * @threadSafe
  * @phase generate-sources
  * @requiresDependencyResolution test
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
@@ -94,7 +95,7 @@ public class ResolveDependencySourcesMojo
             }
             else
             {
-                DependencyUtil.write( output, outputFile, appendOutput, getLog() );
+                DependencyUtil.write( output, outputFile, appendOutput );
             }
         }
         catch ( IOException e )
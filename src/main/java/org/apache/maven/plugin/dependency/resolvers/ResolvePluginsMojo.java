@@ -15,7 +15,6 @@ package org.apache.maven.plugin.dependency.resolvers;
  * the License.
  */
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.HashSet;
@@ -28,6 +27,7 @@ import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.AbstractResolveMojo;
 import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.OutputFiles;
 import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.project.artifact.InvalidDependencyVersionException;
 import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
@@ -37,6 +37,7 @@ import org.codehaus.plexus.util.IOUtil;
  * Goal that resolves all project plugins and reports and their dependencies.
  * 
  * @goal resolve-plugins
+ * @threadSafe
  * @phase generate-sources
  * @author <a href="mailto:brianf@apache.org">Brian Fox</a>
  * @version $Id: ResolvePluginsMojo.java 1085777 2011-03-26 18:13:19Z hboutemy $
@@ -81,9 +82,7 @@ public class ResolvePluginsMojo
 
             if ( this.outputFile != null )
             {
-                outputFile.getParentFile().mkdirs();
-
-                outputWriter = new FileWriter( outputFile );
+                outputWriter = OutputFiles.openWriter( outputFile, false );
             }
 
             for ( Artifact plugin : plugins )
@@ -120,6 +119,11 @@ public class ResolvePluginsMojo
                     }
                 }
             }
+
+            if ( outputWriter != null )
+            {
+                OutputFiles.commit( outputWriter );
+            }
         }
         catch ( IOException e )
         {
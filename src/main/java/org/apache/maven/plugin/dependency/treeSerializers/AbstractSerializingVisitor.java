@@ -38,7 +38,8 @@ public abstract class AbstractSerializingVisitor
     /**
      * Constructor.
      * <p>
-     * Build a new AbstractSerializingDependencyNodeVisitor with the writer to serialize to.
+     * Build a new AbstractSerializingDependencyNodeVisitor with the writer to serialize to. The writer is not flushed
+     * after each line: the caller flushes it once the tree has been visited.
      * </p>
      *
      * @param writer the writer to serialize to.
@@ -51,7 +52,7 @@ public abstract class AbstractSerializingVisitor
         }
         else
         {
-            this.writer = new PrintWriter( writer, true );
+            this.writer = new PrintWriter( writer );
         }
     }
 }
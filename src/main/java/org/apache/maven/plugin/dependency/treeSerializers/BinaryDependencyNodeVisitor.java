@@ -0,0 +1,196 @@
+package org.apache.maven.plugin.dependency.treeSerializers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
+
+/**
+ * A dependency node visitor that serializes visited nodes to a compact binary format, for very large trees.
+ * <p>
+ * The output starts with the bytes <code>MDT</code> and the format version, <code>1</code>. Then each node is written
+ * as a <code>1</code> byte followed by its fields, its children, and a <code>2</code> byte. A <code>0</code> byte
+ * ends the tree. The fields are the groupId, artifactId, version, type, classifier and scope of the artifact, the
+ * state of the node as a byte, then the related artifact version, the premanaged version, the premanaged scope, the
+ * original scope, the failed update scope and the range the version was selected from.
+ * </p>
+ * <p>
+ * Integers are written as unsigned variable length integers, 7 bits per byte with the high bit set on all but the
+ * last byte. Each string is written once: a reference <code>0</code> stands for <code>null</code>, <code>1</code> is
+ * followed by the length and UTF-8 bytes of a new string, and <code>n &gt; 1</code> refers to the
+ * <code>(n - 2)</code>th string written.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class BinaryDependencyNodeVisitor
+    implements DependencyNodeVisitor
+{
+    /**
+     * The bytes starting the output.
+     */
+    public static final byte[] MAGIC = { 'M', 'D', 'T', 1 };
+
+    /**
+     * Starts a node.
+     */
+    public static final int NODE = 1;
+
+    /**
+     * Ends a node.
+     */
+    public static final int END_NODE = 2;
+
+    /**
+     * Ends the tree.
+     */
+    public static final int END = 0;
+
+    private final OutputStream out;
+
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    private int depth;
+
+    private IOException exception;
+
+    /**
+     * Constructor.
+     *
+     * @param out the stream to write to, which should be buffered.
+     */
+    public BinaryDependencyNodeVisitor( OutputStream out )
+    {
+        this.out = out;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean visit( DependencyNode node )
+    {
+        try
+        {
+            if ( depth++ == 0 )
+            {
+                out.write( MAGIC );
+            }
+
+            Artifact artifact = node.getArtifact();
+            out.write( NODE );
+            writeString( artifact.getGroupId() );
+            writeString( artifact.getArtifactId() );
+            writeString( artifact.getVersion() );
+            writeString( artifact.getType() );
+            writeString( artifact.getClassifier() );
+            writeString( artifact.getScope() );
+            out.write( node.getState() );
+            writeString( node.getRelatedArtifact() != null ? node.getRelatedArtifact().getVersion() : null );
+            writeString( node.getPremanagedVersion() );
+            writeString( node.getPremanagedScope() );
+            writeString( node.getOriginalScope() );
+            writeString( node.getFailedUpdateScope() );
+            writeString( node.getVersionSelectedFromRange() != null ? node.getVersionSelectedFromRange().toString()
+                            : null );
+            return true;
+        }
+        catch ( IOException e )
+        {
+            exception = e;
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean endVisit( DependencyNode node )
+    {
+        try
+        {
+            out.write( END_NODE );
+            if ( --depth == 0 )
+            {
+                out.write( END );
+                out.flush();
+            }
+            return true;
+        }
+        catch ( IOException e )
+        {
+            exception = e;
+            return false;
+        }
+    }
+
+    /**
+     * @throws IOException the first error met while writing the tree, if any.
+     */
+    public void checkError()
+        throws IOException
+    {
+        if ( exception != null )
+        {
+            throw exception;
+        }
+    }
+
+    private void writeString( String value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            writeInt( 0 );
+            return;
+        }
+
+        Integer index = strings.get( value );
+        if ( index != null )
+        {
+            writeInt( index.intValue() + 2 );
+            return;
+        }
+
+        strings.put( value, Integer.valueOf( strings.size() ) );
+        byte[] bytes = value.getBytes( "UTF-8" );
+        writeInt( 1 );
+        writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    private void writeInt( int value )
+        throws IOException
+    {
+        int v = value;
+        while ( ( v & ~0x7F ) != 0 )
+        {
+            out.write( ( v & 0x7F ) | 0x80 );
+            v >>>= 7;
+        }
+        out.write( v );
+    }
+}
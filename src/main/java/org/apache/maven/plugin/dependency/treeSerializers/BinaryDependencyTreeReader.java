@@ -0,0 +1,221 @@
+package org.apache.maven.plugin.dependency.treeSerializers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+/**
+ * Reads back a dependency tree written by {@link BinaryDependencyNodeVisitor}.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class BinaryDependencyTreeReader
+{
+    private final InputStream in;
+
+    private final ArtifactFactory factory;
+
+    private final List<String> strings = new ArrayList<String>();
+
+    /**
+     * Constructor.
+     *
+     * @param in the stream to read from, which should be buffered.
+     * @param factory the factory creating the artifacts of the nodes.
+     */
+    public BinaryDependencyTreeReader( InputStream in, ArtifactFactory factory )
+    {
+        this.in = in;
+        this.factory = factory;
+    }
+
+    /**
+     * Reads a tree.
+     *
+     * @return the root node of the tree.
+     * @throws IOException if the stream can not be read or does not hold a tree.
+     */
+    public DependencyNode read()
+        throws IOException
+    {
+        for ( int i = 0; i < BinaryDependencyNodeVisitor.MAGIC.length; i++ )
+        {
+            if ( readByte() != BinaryDependencyNodeVisitor.MAGIC[i] )
+            {
+                throw new IOException( "Not a dependency tree" );
+            }
+        }
+
+        List<DependencyNode> path = new ArrayList<DependencyNode>();
+        DependencyNode rootNode = null;
+        int tag;
+        while ( ( tag = readByte() ) != BinaryDependencyNodeVisitor.END )
+        {
+            if ( tag == BinaryDependencyNodeVisitor.NODE )
+            {
+                DependencyNode node = readNode();
+                if ( path.isEmpty() )
+                {
+                    rootNode = node;
+                }
+                else
+                {
+                    path.get( path.size() - 1 ).addChild( node );
+                }
+                path.add( node );
+            }
+            else if ( tag == BinaryDependencyNodeVisitor.END_NODE && !path.isEmpty() )
+            {
+                path.remove( path.size() - 1 );
+            }
+            else
+            {
+                throw new IOException( "Unexpected tag " + tag );
+            }
+        }
+
+        if ( rootNode == null || !path.isEmpty() )
+        {
+            throw new IOException( "Incomplete dependency tree" );
+        }
+        return rootNode;
+    }
+
+    private DependencyNode readNode()
+        throws IOException
+    {
+        String groupId = readString();
+        String artifactId = readString();
+        String version = readString();
+        String type = readString();
+        String classifier = readString();
+        String scope = readString();
+        int state = readByte();
+        String relatedVersion = readString();
+
+        Artifact artifact = factory.createArtifactWithClassifier( groupId, artifactId, version, type, classifier );
+        artifact.setScope( scope );
+        Artifact relatedArtifact = null;
+        if ( relatedVersion != null )
+        {
+            relatedArtifact =
+                factory.createArtifactWithClassifier( groupId, artifactId, relatedVersion, type, classifier );
+            relatedArtifact.setScope( scope );
+        }
+
+        DependencyNode node;
+        try
+        {
+            node = new DependencyNode( artifact, state, relatedArtifact );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new IOException( "Invalid node " + artifact + ": " + e.getMessage() );
+        }
+        node.setPremanagedVersion( readString() );
+        node.setPremanagedScope( readString() );
+        node.setOriginalScope( readString() );
+        node.setFailedUpdateScope( readString() );
+
+        String range = readString();
+        if ( range != null )
+        {
+            try
+            {
+                node.setVersionSelectedFromRange( VersionRange.createFromVersionSpec( range ) );
+            }
+            catch ( InvalidVersionSpecificationException e )
+            {
+                throw new IOException( "Invalid version range " + range + ": " + e.getMessage() );
+            }
+        }
+        return node;
+    }
+
+    private String readString()
+        throws IOException
+    {
+        int reference = readInt();
+        if ( reference == 0 )
+        {
+            return null;
+        }
+        else if ( reference > 1 )
+        {
+            if ( reference - 2 >= strings.size() )
+            {
+                throw new IOException( "Unknown string " + ( reference - 2 ) );
+            }
+            return strings.get( reference - 2 );
+        }
+
+        byte[] bytes = new byte[readInt()];
+        for ( int offset = 0; offset < bytes.length; )
+        {
+            int count = in.read( bytes, offset, bytes.length - offset );
+            if ( count < 0 )
+            {
+                throw new EOFException();
+            }
+            offset += count;
+        }
+        String value = new String( bytes, "UTF-8" );
+        strings.add( value );
+        return value;
+    }
+
+    private int readInt()
+        throws IOException
+    {
+        int value = 0;
+        for ( int shift = 0; shift < 32; shift += 7 )
+        {
+            int b = readByte();
+            value |= ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 )
+            {
+                return value;
+            }
+        }
+        throw new IOException( "Invalid integer" );
+    }
+
+    private int readByte()
+        throws IOException
+    {
+        int b = in.read();
+        if ( b < 0 )
+        {
+            throw new EOFException();
+        }
+        return b;
+    }
+}
@@ -0,0 +1,204 @@
+package org.apache.maven.plugin.dependency.treeSerializers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
+
+/**
+ * A dependency node visitor that serializes the dependency graph rather than the tree: each artifact gets a dense
+ * integer id and is written once, whatever the number of paths leading to it, and each edge is written once. The
+ * output size is thus proportional to the number of unique artifacts and edges instead of the number of paths.
+ * <p>
+ * Nodes are labelled with the artifact id, and edges with the scope of their target on the first path found.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class DAGDependencyNodeVisitor
+    extends AbstractSerializingVisitor
+    implements DependencyNodeVisitor
+{
+    /**
+     * GraphML output.
+     */
+    public static final String GRAPHML = "graphml";
+
+    /**
+     * Trivial Graph Format output.
+     */
+    public static final String TGF = "tgf";
+
+    /**
+     * DOT output.
+     */
+    public static final String DOT = "dot";
+
+    private final String format;
+
+    /**
+     * The ids of the artifacts, by artifact id.
+     */
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    /**
+     * The edges already written, as <code>source &lt;&lt; 32 | target</code>.
+     */
+    private final Set<Long> edges = new HashSet<Long>();
+
+    /**
+     * The edges of the TGF output, which must follow all the nodes.
+     */
+    private final List<String> pendingEdges = new ArrayList<String>();
+
+    /**
+     * The ids of the nodes being visited, from the root.
+     */
+    private final List<Integer> path = new ArrayList<Integer>();
+
+    /**
+     * Constructor.
+     *
+     * @param writer the writer to write to.
+     * @param format the output format: {@link #GRAPHML}, {@link #TGF} or {@link #DOT}.
+     */
+    public DAGDependencyNodeVisitor( Writer writer, String format )
+    {
+        super( writer );
+        this.format = format;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean visit( DependencyNode node )
+    {
+        String label = node.getArtifact().getId();
+        if ( path.isEmpty() )
+        {
+            if ( GRAPHML.equals( format ) )
+            {
+                writer.write( GraphmlDependencyNodeVisitor.GRAPHML_HEADER );
+            }
+            else if ( DOT.equals( format ) )
+            {
+                writer.println( "digraph \"" + label + "\" { " );
+            }
+        }
+
+        Integer id = ids.get( label );
+        if ( id == null )
+        {
+            id = Integer.valueOf( ids.size() );
+            ids.put( label, id );
+            writeNode( id.intValue(), label );
+        }
+
+        if ( !path.isEmpty() )
+        {
+            int source = path.get( path.size() - 1 ).intValue();
+            if ( edges.add( Long.valueOf( ( (long) source << 32 ) | id.intValue() ) ) )
+            {
+                writeEdge( source, id.intValue(), node.getArtifact().getScope() );
+            }
+        }
+
+        path.add( id );
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean endVisit( DependencyNode node )
+    {
+        path.remove( path.size() - 1 );
+        if ( path.isEmpty() )
+        {
+            if ( GRAPHML.equals( format ) )
+            {
+                writer.write( GraphmlDependencyNodeVisitor.GRAPHML_FOOTER );
+            }
+            else if ( TGF.equals( format ) )
+            {
+                writer.println( "#" );
+                for ( String edge : pendingEdges )
+                {
+                    writer.println( edge );
+                }
+                pendingEdges.clear();
+            }
+            else
+            {
+                writer.write( " } " );
+            }
+        }
+        return true;
+    }
+
+    private void writeNode( int id, String label )
+    {
+        if ( GRAPHML.equals( format ) )
+        {
+            writer.println( "<node id=\"" + id + "\"><data key=\"d0\"><y:ShapeNode><y:NodeLabel>" + label
+                + "</y:NodeLabel></y:ShapeNode></data></node>" );
+        }
+        else if ( TGF.equals( format ) )
+        {
+            writer.println( id + " " + label );
+        }
+        else
+        {
+            writer.println( "\t" + id + " [label=\"" + label + "\"] ; " );
+        }
+    }
+
+    private void writeEdge( int source, int target, String scope )
+    {
+        if ( GRAPHML.equals( format ) )
+        {
+            writer.print( "<edge source=\"" + source + "\" target=\"" + target + "\">" );
+            if ( scope != null )
+            {
+                writer.print( "<data key=\"d1\"><y:PolyLineEdge><y:EdgeLabel>" + scope
+                    + "</y:EdgeLabel></y:PolyLineEdge></data>" );
+            }
+            writer.println( "</edge>" );
+        }
+        else if ( TGF.equals( format ) )
+        {
+            pendingEdges.add( source + " " + target + ( scope != null ? " " + scope : "" ) );
+        }
+        else
+        {
+            writer.println( "\t" + source + " -> " + target + ( scope != null ? " [label=\"" + scope + "\"]" : "" )
+                + " ; " );
+        }
+    }
+}
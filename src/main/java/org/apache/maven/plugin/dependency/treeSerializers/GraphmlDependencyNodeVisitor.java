@@ -20,6 +20,8 @@ package org.apache.maven.plugin.dependency.treeSerializers ;
  */
 
 import java.io.Writer;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import org.apache.maven.shared.dependency.tree.DependencyNode;
 import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
@@ -38,7 +40,7 @@ public class GraphmlDependencyNodeVisitor extends AbstractSerializingVisitor
     /**
      * Graphml xml file header. Define Schema and root element. We also define 2 key as meta data.
      */
-    private static final String GRAPHML_HEADER =
+    static final String GRAPHML_HEADER =
         "<?xml version=\"1.0\" encoding=\"UTF-8\"?> "
             + "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\" "
             + "xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" "
@@ -52,7 +54,12 @@ public class GraphmlDependencyNodeVisitor extends AbstractSerializingVisitor
     /**
      * Graphml xml file footer.
      */
-    private static final String GRAPHML_FOOTER = "</graph></graphml>";
+    static final String GRAPHML_FOOTER = "</graph></graphml>";
+
+    /**
+     * The ids of the nodes.
+     */
+    private final Map<DependencyNode, Integer> ids = new IdentityHashMap<DependencyNode, Integer>();
 
     /**
      * Constructor.
@@ -109,14 +116,20 @@ public class GraphmlDependencyNodeVisitor extends AbstractSerializingVisitor
     /**
      * Generate a unique id from a DependencyNode.
      * <p>
-     * Current implementation is rather simple and uses hashcode.
+     * The nodes are numbered in the order they are first seen, as hash codes can collide.
      * </p>
      *
      * @param node the DependencyNode to use.
      * @return the unique id.
      */
-    private static String generateId( DependencyNode node )
+    private String generateId( DependencyNode node )
     {
-        return String.valueOf( node.hashCode() );
+        Integer id = ids.get( node );
+        if ( id == null )
+        {
+            id = Integer.valueOf( ids.size() );
+            ids.put( node, id );
+        }
+        return id.toString();
     }
 }
@@ -0,0 +1,250 @@
+package org.apache.maven.plugin.dependency.treeSerializers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
+
+/**
+ * A dependency node visitor that serializes visited nodes to JSON, as they are visited.
+ * <p>
+ * The nested form writes the root node, each node holding its <code>children</code> array. The flat form writes a
+ * <code>nodes</code> array holding each artifact once with a dense integer <code>id</code>, and an <code>edges</code>
+ * array holding each dependency once, with the scope, state and version selection information of the first path
+ * found.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class JSONDependencyNodeVisitor
+    extends AbstractSerializingVisitor
+    implements DependencyNodeVisitor
+{
+    private static final String[] STATES =
+        { "INCLUDED", "OMITTED_FOR_DUPLICATE", "OMITTED_FOR_CONFLICT", "OMITTED_FOR_CYCLE" };
+
+    private final boolean flat;
+
+    /**
+     * The number of children written so far by each node being visited, from the root.
+     */
+    private final List<Integer> childCounts = new ArrayList<Integer>();
+
+    /**
+     * The ids of the nodes being visited, from the root, in the flat form.
+     */
+    private final List<Integer> path = new ArrayList<Integer>();
+
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    private final Set<Long> edges = new HashSet<Long>();
+
+    private final List<String> pendingEdges = new ArrayList<String>();
+
+    /**
+     * Constructor.
+     *
+     * @param writer the writer to write to.
+     * @param flat whether to write the flat node and edge arrays rather than the nested tree.
+     */
+    public JSONDependencyNodeVisitor( Writer writer, boolean flat )
+    {
+        super( writer );
+        this.flat = flat;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean visit( DependencyNode node )
+    {
+        if ( flat )
+        {
+            visitFlat( node );
+            return true;
+        }
+
+        if ( !childCounts.isEmpty() )
+        {
+            int last = childCounts.size() - 1;
+            int count = childCounts.get( last ).intValue();
+            writer.print( count == 0 ? "\n" : ",\n" );
+            childCounts.set( last, Integer.valueOf( count + 1 ) );
+        }
+        childCounts.add( Integer.valueOf( 0 ) );
+
+        StringBuffer sb = new StringBuffer( "{" );
+        appendArtifact( sb, node.getArtifact() );
+        appendSelection( sb, node );
+        sb.append( ",\"children\":[" );
+        writer.print( sb.toString() );
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean endVisit( DependencyNode node )
+    {
+        if ( flat )
+        {
+            path.remove( path.size() - 1 );
+            if ( path.isEmpty() )
+            {
+                writer.println( "\n],\"edges\":[" );
+                for ( int i = 0; i < pendingEdges.size(); i++ )
+                {
+                    writer.print( i == 0 ? "" : ",\n" );
+                    writer.print( pendingEdges.get( i ) );
+                }
+                writer.println( "\n]}" );
+                pendingEdges.clear();
+            }
+            return true;
+        }
+
+        childCounts.remove( childCounts.size() - 1 );
+        writer.print( "]}" );
+        if ( childCounts.isEmpty() )
+        {
+            writer.println();
+        }
+        return true;
+    }
+
+    private void visitFlat( DependencyNode node )
+    {
+        Artifact artifact = node.getArtifact();
+        if ( path.isEmpty() )
+        {
+            writer.print( "{\"nodes\":[" );
+        }
+
+        String key = artifact.getId();
+        Integer id = ids.get( key );
+        if ( id == null )
+        {
+            id = Integer.valueOf( ids.size() );
+            ids.put( key, id );
+
+            StringBuffer sb = new StringBuffer( id.intValue() == 0 ? "\n" : ",\n" );
+            sb.append( "{\"id\":" ).append( id );
+            sb.append( ',' );
+            appendArtifact( sb, artifact );
+            sb.append( '}' );
+            writer.print( sb.toString() );
+        }
+
+        if ( !path.isEmpty() )
+        {
+            int source = path.get( path.size() - 1 ).intValue();
+            if ( edges.add( Long.valueOf( ( (long) source << 32 ) | id.intValue() ) ) )
+            {
+                StringBuffer sb = new StringBuffer( "{\"from\":" );
+                sb.append( source ).append( ",\"to\":" ).append( id );
+                appendSelection( sb, node );
+                sb.append( '}' );
+                pendingEdges.add( sb.toString() );
+            }
+        }
+        path.add( id );
+    }
+
+    private static void appendArtifact( StringBuffer sb, Artifact artifact )
+    {
+        appendField( sb, "groupId", artifact.getGroupId(), false );
+        appendField( sb, "artifactId", artifact.getArtifactId(), true );
+        appendField( sb, "version", artifact.getVersion(), true );
+        appendField( sb, "type", artifact.getType(), true );
+        appendField( sb, "classifier", artifact.hasClassifier() ? artifact.getClassifier() : null, true );
+    }
+
+    /**
+     * Appends the scope, the state and how the version of a node was selected.
+     */
+    private static void appendSelection( StringBuffer sb, DependencyNode node )
+    {
+        appendField( sb, "scope", node.getArtifact().getScope(), true );
+        appendField( sb, "state", node.getState() >= 0 && node.getState() < STATES.length ? STATES[node.getState()]
+                        : String.valueOf( node.getState() ), true );
+        if ( node.getRelatedArtifact() != null )
+        {
+            appendField( sb, "relatedVersion", node.getRelatedArtifact().getVersion(), true );
+        }
+        appendField( sb, "premanagedVersion", node.getPremanagedVersion(), true );
+        appendField( sb, "premanagedScope", node.getPremanagedScope(), true );
+        appendField( sb, "originalScope", node.getOriginalScope(), true );
+        appendField( sb, "failedUpdateScope", node.getFailedUpdateScope(), true );
+        if ( node.getVersionSelectedFromRange() != null )
+        {
+            appendField( sb, "versionSelectedFromRange", node.getVersionSelectedFromRange().toString(), true );
+        }
+    }
+
+    private static void appendField( StringBuffer sb, String name, String value, boolean comma )
+    {
+        if ( value == null )
+        {
+            return;
+        }
+        if ( comma )
+        {
+            sb.append( ',' );
+        }
+        sb.append( '"' ).append( name ).append( "\":" );
+        appendString( sb, value );
+    }
+
+    /**
+     * Appends a JSON string literal.
+     */
+    static void appendString( StringBuffer sb, String value )
+    {
+        sb.append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                sb.append( '\\' ).append( c );
+            }
+            else if ( c < 0x20 )
+            {
+                String hex = Integer.toHexString( c );
+                sb.append( "\\u" ).append( "0000".substring( hex.length() ) ).append( hex );
+            }
+            else
+            {
+                sb.append( c );
+            }
+        }
+        sb.append( '"' );
+    }
+}
@@ -21,7 +21,9 @@ package org.apache.maven.plugin.dependency.treeSerializers ;
 
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.maven.shared.dependency.tree.DependencyNode;
 import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
@@ -46,14 +48,14 @@ public class TGFDependencyNodeVisitor extends AbstractSerializingVisitor
     final static class EdgeAppender
     {
         /**
-         * Edge start.
+         * Edge start id.
          */
-        private DependencyNode from;
+        private String from;
 
         /**
-         * Edge end.
+         * Edge end id.
          */
-        private DependencyNode to;
+        private String to;
 
         /**
          * Edge label. (optional)
@@ -63,11 +65,11 @@ public class TGFDependencyNodeVisitor extends AbstractSerializingVisitor
         /**
          * Build a new EdgeAppender.
          *
-         * @param from edge start.
-         * @param to edge end
+         * @param from edge start id.
+         * @param to edge end id
          * @param label optional label.
          */
-        public EdgeAppender( DependencyNode from, DependencyNode to, String label )
+        public EdgeAppender( String from, String to, String label )
         {
             super();
             this.from = from;
@@ -80,8 +82,8 @@ public class TGFDependencyNodeVisitor extends AbstractSerializingVisitor
          */
         public String toString()
         {
-            StringBuffer result = new StringBuffer( generateId( from ) );
-            result.append( ' ' ).append( generateId( to ) );
+            StringBuffer result = new StringBuffer( from );
+            result.append( ' ' ).append( to );
             if ( label != null )
             {
                 result.append( ' ' ).append( label );
@@ -96,6 +98,11 @@ public class TGFDependencyNodeVisitor extends AbstractSerializingVisitor
      */
     private List<EdgeAppender> edges = new ArrayList<EdgeAppender>();
 
+    /**
+     * The ids of the nodes.
+     */
+    private final Map<DependencyNode, Integer> ids = new IdentityHashMap<DependencyNode, Integer>();
+
     /**
      * Constructor.
      *
@@ -124,7 +131,7 @@ public class TGFDependencyNodeVisitor extends AbstractSerializingVisitor
         {
             DependencyNode p = node.getParent();
             // using scope as edge label.
-            edges.add( new EdgeAppender( p, node, node.getArtifact().getScope() ) );
+            edges.add( new EdgeAppender( generateId( p ), generateId( node ), node.getArtifact().getScope() ) );
         }
         return true;
     }
@@ -144,14 +151,20 @@ public class TGFDependencyNodeVisitor extends AbstractSerializingVisitor
     /**
      * Generate a unique id from a DependencyNode.
      * <p>
-     * Current implementation is rather simple and uses hashcode.
+     * The nodes are numbered in the order they are first seen, as hash codes can collide.
      * </p>
      *
      * @param node the DependencyNode to use.
      * @return the unique id.
      */
-    private static String generateId( DependencyNode node )
+    private String generateId( DependencyNode node )
     {
-        return String.valueOf( node.hashCode() );
+        Integer id = ids.get( node );
+        if ( id == null )
+        {
+            id = Integer.valueOf( ids.size() );
+            ids.put( node, id );
+        }
+        return id.toString();
     }
 }
@@ -0,0 +1,167 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
+import org.apache.maven.artifact.resolver.ArtifactResolutionException;
+import org.apache.maven.artifact.resolver.ArtifactResolver;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * Deletes files from the local repository and re-resolves the artifacts they belonged to, in parallel.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class ArtifactPurger
+{
+    private final ArtifactResolver resolver;
+
+    private final ArtifactRepository localRepository;
+
+    private final int threads;
+
+    private final Log log;
+
+    private final boolean verbose;
+
+    /**
+     * @param theResolver the resolver used to re-resolve the artifacts.
+     * @param theLocalRepository the local repository.
+     * @param theThreads the number of threads.
+     * @param theLog the log.
+     * @param theVerbose whether to log each deleted file and re-resolved artifact at the info level.
+     */
+    public ArtifactPurger( ArtifactResolver theResolver, ArtifactRepository theLocalRepository, int theThreads,
+                           Log theLog, boolean theVerbose )
+    {
+        this.resolver = theResolver;
+        this.localRepository = theLocalRepository;
+        this.threads = theThreads;
+        this.log = theLog;
+        this.verbose = theVerbose;
+    }
+
+    /**
+     * Deletes files or directories.
+     *
+     * @param deleteTargets the files or directories to delete.
+     * @throws MojoExecutionException if a target can not be deleted.
+     */
+    public void delete( List<File> deleteTargets )
+        throws MojoExecutionException
+    {
+        List<Callable<File>> tasks = new ArrayList<Callable<File>>();
+        for ( final File deleteTarget : deleteTargets )
+        {
+            tasks.add( new Callable<File>()
+            {
+                public File call()
+                    throws Exception
+                {
+                    verbose( "Deleting: " + deleteTarget );
+
+                    if ( deleteTarget.isDirectory() )
+                    {
+                        FileUtils.deleteDirectory( deleteTarget );
+                    }
+                    else
+                    {
+                        deleteTarget.delete();
+                    }
+                    return deleteTarget;
+                }
+            } );
+        }
+        ParallelTasks.invokeAll( threads, tasks, "Cannot delete dependency from the local repository" );
+    }
+
+    /**
+     * Resolves artifacts again from their remote repositories.
+     *
+     * @param artifacts the artifacts.
+     * @param artifactRepositories the remote repositories of each artifact, by artifact id.
+     * @return the artifacts which could not be resolved.
+     * @throws MojoExecutionException if a resolution fails unexpectedly.
+     */
+    public List<Artifact> reResolve( Collection<Artifact> artifacts,
+                                     final Map<String, List<ArtifactRepository>> artifactRepositories )
+        throws MojoExecutionException
+    {
+        verbose( "Re-resolving " + artifacts.size() + " artifacts." );
+
+        List<Callable<Artifact>> tasks = new ArrayList<Callable<Artifact>>();
+        for ( final Artifact artifact : artifacts )
+        {
+            tasks.add( new Callable<Artifact>()
+            {
+                public Artifact call()
+                {
+                    artifact.setResolved( false );
+
+                    try
+                    {
+                        resolver.resolveAlways( artifact, artifactRepositories.get( artifact.getId() ),
+                                                localRepository );
+                        return null;
+                    }
+                    catch ( ArtifactResolutionException e )
+                    {
+                        log.debug( e.getMessage() );
+                    }
+                    catch ( ArtifactNotFoundException e )
+                    {
+                        log.debug( e.getMessage() );
+                    }
+                    return artifact;
+                }
+            } );
+        }
+
+        List<Artifact> missingArtifacts = new ArrayList<Artifact>();
+        for ( Artifact missingArtifact : ParallelTasks.invokeAll( threads, tasks, "Failed to re-resolve artifact" ) )
+        {
+            if ( missingArtifact != null )
+            {
+                missingArtifacts.add( missingArtifact );
+            }
+        }
+        return missingArtifacts;
+    }
+
+    private void verbose( String message )
+    {
+        if ( verbose || log.isDebugEnabled() )
+        {
+            log.info( message );
+        }
+    }
+}
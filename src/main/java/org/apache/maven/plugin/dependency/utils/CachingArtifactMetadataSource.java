@@ -0,0 +1,265 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.metadata.ArtifactMetadataRetrievalException;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.metadata.ResolutionGroup;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.filter.AndArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+/**
+ * An artifact metadata source caching the metadata retrieved by another one, so that dependency trees built from the
+ * same instance, possibly concurrently, read the POM of each artifact once.
+ * <p>
+ * The dependencies of an artifact are retrieved once per scope, without the exclusions of the path leading to the
+ * artifact: these exclusions are applied to the cached dependencies for each caller. The collector changing the
+ * version and scope of the artifacts it is given, each caller gets its own copies. The cached source being given a
+ * copy of the artifact too, the relocation it applies to that copy is recorded and applied to the artifact of every
+ * caller.
+ * </p>
+ * <p>
+ * The cached source is only called by one thread at a time, as the project builder behind the default metadata source
+ * keeps unsynchronized caches of its own. Cache hits do not wait for pending retrievals.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class CachingArtifactMetadataSource
+    implements ArtifactMetadataSource
+{
+    private final ArtifactMetadataSource source;
+
+    private final Object lock = new Object();
+
+    private final ConcurrentMap<String, CachedGroup> groups = new ConcurrentHashMap<String, CachedGroup>();
+
+    private final ConcurrentMap<String, List<?>> versions = new ConcurrentHashMap<String, List<?>>();
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * The metadata retrieved for an artifact, with the coordinates the artifact was relocated to if any.
+     */
+    private static class CachedGroup
+    {
+        private final ResolutionGroup group;
+
+        private final String groupId;
+
+        private final String artifactId;
+
+        private final VersionRange versionRange;
+
+        private final boolean relocated;
+
+        CachedGroup( ResolutionGroup theGroup, Artifact requested, Artifact retrieved )
+        {
+            this.group = theGroup;
+            this.groupId = retrieved.getGroupId();
+            this.artifactId = retrieved.getArtifactId();
+            this.versionRange = retrieved.getVersionRange();
+            this.relocated =
+                !requested.getGroupId().equals( groupId ) || !requested.getArtifactId().equals( artifactId )
+                    || !String.valueOf( requested.getVersionRange() ).equals( String.valueOf( versionRange ) );
+        }
+
+        /**
+         * Relocates an artifact as the cached source relocated the artifact it was given.
+         */
+        void relocate( Artifact artifact )
+        {
+            if ( relocated )
+            {
+                artifact.setGroupId( groupId );
+                artifact.setArtifactId( artifactId );
+                artifact.setVersionRange( versionRange );
+            }
+        }
+    }
+
+    /**
+     * @param theSource the metadata source to cache.
+     */
+    public CachingArtifactMetadataSource( ArtifactMetadataSource theSource )
+    {
+        this.source = theSource;
+    }
+
+    public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository, List remoteRepositories )
+        throws ArtifactMetadataRetrievalException
+    {
+        if ( artifact.getVersion() == null )
+        {
+            // not selected yet, nothing to key on
+            synchronized ( lock )
+            {
+                return source.retrieve( artifact, localRepository, remoteRepositories );
+            }
+        }
+
+        String key = artifact.getId() + ":" + artifact.getScope() + getKey( remoteRepositories );
+        CachedGroup group = groups.get( key );
+        if ( group != null )
+        {
+            hits.incrementAndGet();
+        }
+        else
+        {
+            synchronized ( lock )
+            {
+                group = groups.get( key );
+                if ( group == null )
+                {
+                    misses.incrementAndGet();
+                    Artifact unfiltered = ArtifactUtils.copyArtifact( artifact );
+                    unfiltered.setDependencyFilter( null );
+                    ResolutionGroup retrieved = source.retrieve( unfiltered, localRepository, remoteRepositories );
+                    if ( retrieved == null )
+                    {
+                        return null;
+                    }
+                    group = new CachedGroup( retrieved, artifact, unfiltered );
+                    groups.put( key, group );
+                }
+                else
+                {
+                    hits.incrementAndGet();
+                }
+            }
+        }
+
+        group.relocate( artifact );
+        return filter( group.group, artifact.getDependencyFilter() );
+    }
+
+    public List retrieveAvailableVersions( Artifact artifact, ArtifactRepository localRepository,
+                                           List remoteRepositories )
+        throws ArtifactMetadataRetrievalException
+    {
+        String key = artifact.getDependencyConflictId() + getKey( remoteRepositories );
+        List<?> available = versions.get( key );
+        if ( available != null )
+        {
+            hits.incrementAndGet();
+        }
+        else
+        {
+            synchronized ( lock )
+            {
+                available = versions.get( key );
+                if ( available == null )
+                {
+                    misses.incrementAndGet();
+                    available = source.retrieveAvailableVersions( artifact, localRepository, remoteRepositories );
+                    if ( available == null )
+                    {
+                        return null;
+                    }
+                    versions.put( key, available );
+                }
+                else
+                {
+                    hits.incrementAndGet();
+                }
+            }
+        }
+        return new ArrayList<Object>( available );
+    }
+
+    /**
+     * @return the number of retrievals answered from the cache.
+     */
+    public int getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of retrievals passed to the cached source.
+     */
+    public int getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Copies the dependencies of a cached group which pass the exclusions of a path, the dependencies inheriting these
+     * exclusions as the cached source would have done.
+     */
+    private static ResolutionGroup filter( ResolutionGroup group, ArtifactFilter dependencyFilter )
+    {
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+        for ( Object o : group.getArtifacts() )
+        {
+            Artifact cached = (Artifact) o;
+            if ( dependencyFilter != null && !dependencyFilter.include( cached ) )
+            {
+                continue;
+            }
+
+            Artifact copy = ArtifactUtils.copyArtifact( cached );
+            if ( dependencyFilter != null )
+            {
+                if ( cached.getDependencyFilter() == null )
+                {
+                    copy.setDependencyFilter( dependencyFilter );
+                }
+                else
+                {
+                    AndArtifactFilter filter = new AndArtifactFilter();
+                    filter.add( dependencyFilter );
+                    filter.add( cached.getDependencyFilter() );
+                    copy.setDependencyFilter( filter );
+                }
+            }
+            artifacts.add( copy );
+        }
+        return new ResolutionGroup( group.getPomArtifact(), artifacts, group.getResolutionRepositories() );
+    }
+
+    private static String getKey( List remoteRepositories )
+    {
+        StringBuffer key = new StringBuffer();
+        if ( remoteRepositories != null )
+        {
+            for ( Object o : remoteRepositories )
+            {
+                key.append( '|' ).append( ( (ArtifactRepository) o ).getUrl() );
+            }
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Index of the packages and classes of the jars of a classpath, for class loaders to find the jar of a class without
+ * probing every jar. The jars are read concurrently, only their central directory being read.
+ * <p>
+ * The package index has the format of the <code>META-INF/INDEX.LIST</code> of a jar: a version header, then a block
+ * per jar, holding the name of the jar followed by the directories of its entries, <code>META-INF</code> excluded, and
+ * by the names of its top level files. The class list has the format of the class lists of class data sharing: the
+ * internal names of the classes, one per line, in the order of the classpath.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class ClasspathIndex
+{
+    private static final String CLASS_SUFFIX = ".class";
+
+    /**
+     * The contents of a jar.
+     */
+    private static class JarContents
+    {
+        private final Set<String> packages = new TreeSet<String>();
+
+        private final List<String> classes = new ArrayList<String>();
+    }
+
+    private final List<JarContents> contents;
+
+    /**
+     * Reads the jars of a classpath.
+     *
+     * @param jars the jars, in the order of the classpath.
+     * @param threads the number of jars read concurrently.
+     * @throws MojoExecutionException if a jar can not be read.
+     */
+    public ClasspathIndex( List<File> jars, int threads )
+        throws MojoExecutionException
+    {
+        List<Callable<JarContents>> tasks = new ArrayList<Callable<JarContents>>( jars.size() );
+        for ( final File jar : jars )
+        {
+            tasks.add( new Callable<JarContents>()
+            {
+                public JarContents call()
+                    throws IOException
+                {
+                    return read( jar );
+                }
+            } );
+        }
+        contents = ParallelTasks.invokeAll( threads, tasks, "Cannot index the classpath" );
+    }
+
+    /**
+     * Writes the package index.
+     *
+     * @param writer the writer.
+     * @param names the names of the jars in the index, in the order of the jars.
+     * @throws IOException if the index can not be written.
+     */
+    public void writePackageIndex( Writer writer, List<String> names )
+        throws IOException
+    {
+        writer.write( "JarIndex-Version: 1.0\n\n" );
+        for ( int i = 0; i < contents.size(); i++ )
+        {
+            writer.write( names.get( i ) );
+            writer.write( '\n' );
+            for ( String packageName : contents.get( i ).packages )
+            {
+                writer.write( packageName );
+                writer.write( '\n' );
+            }
+            writer.write( '\n' );
+        }
+    }
+
+    /**
+     * Writes the class list, each class being listed once, in the first jar holding it.
+     *
+     * @param writer the writer.
+     * @throws IOException if the list can not be written.
+     */
+    public void writeClassList( Writer writer )
+        throws IOException
+    {
+        Set<String> listed = new HashSet<String>();
+        for ( JarContents jar : contents )
+        {
+            for ( String className : jar.classes )
+            {
+                if ( listed.add( className ) )
+                {
+                    writer.write( className );
+                    writer.write( '\n' );
+                }
+            }
+        }
+    }
+
+    private static JarContents read( File jar )
+        throws IOException
+    {
+        JarContents jarContents = new JarContents();
+        ZipFile zip = new ZipFile( jar );
+        try
+        {
+            for ( Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); )
+            {
+                String name = entries.nextElement().getName();
+                if ( name.startsWith( "META-INF/" ) || name.endsWith( "/" ) )
+                {
+                    continue;
+                }
+
+                int slash = name.lastIndexOf( '/' );
+                jarContents.packages.add( slash < 0 ? name : name.substring( 0, slash ) );
+                if ( name.endsWith( CLASS_SUFFIX ) && !name.endsWith( "module-info.class" ) )
+                {
+                    jarContents.classes.add( name.substring( 0, name.length() - CLASS_SUFFIX.length() ) );
+                }
+            }
+        }
+        finally
+        {
+            zip.close();
+        }
+        return jarContents;
+    }
+}
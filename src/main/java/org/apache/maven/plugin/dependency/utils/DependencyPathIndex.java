@@ -0,0 +1,174 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+/**
+ * Reverse index of a dependency tree, answering why an artifact is in the tree: each artifact is mapped to the
+ * artifacts depending on it, so that the paths from the root to the matching artifacts are found by walking up from
+ * them, without visiting the rest of the tree again. Artifacts reached by several paths are indexed once, so each path
+ * is found once.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class DependencyPathIndex
+{
+    private final String rootId;
+
+    /**
+     * The artifacts by id, in the order of the tree.
+     */
+    private final Map<String, Artifact> artifacts = new LinkedHashMap<String, Artifact>();
+
+    /**
+     * The ids of the artifacts depending on each artifact, by id.
+     */
+    private final Map<String, Set<String>> parents = new LinkedHashMap<String, Set<String>>();
+
+    private boolean truncated;
+
+    /**
+     * Indexes a tree.
+     *
+     * @param rootNode the root node of the tree.
+     * @param omitted whether to index the omitted nodes too.
+     */
+    public DependencyPathIndex( DependencyNode rootNode, boolean omitted )
+    {
+        rootId = rootNode.getArtifact().getId();
+
+        // depth first, without recursion as verbose trees can be deep
+        List<DependencyNode> stack = new ArrayList<DependencyNode>();
+        stack.add( rootNode );
+        while ( !stack.isEmpty() )
+        {
+            DependencyNode node = stack.remove( stack.size() - 1 );
+            if ( !omitted && node.getState() != DependencyNode.INCLUDED )
+            {
+                continue;
+            }
+
+            String id = node.getArtifact().getId();
+            if ( !artifacts.containsKey( id ) )
+            {
+                artifacts.put( id, node.getArtifact() );
+                parents.put( id, new LinkedHashSet<String>() );
+            }
+            if ( node.getParent() != null )
+            {
+                parents.get( id ).add( node.getParent().getArtifact().getId() );
+            }
+
+            List<DependencyNode> children = node.getChildren();
+            for ( int i = children.size() - 1; i >= 0; i-- )
+            {
+                stack.add( children.get( i ) );
+            }
+        }
+    }
+
+    /**
+     * Finds the paths from the root to the artifacts matching a filter.
+     *
+     * @param filter the filter selecting the artifacts.
+     * @param maxPaths the maximum number of paths to return.
+     * @return the paths, each one being the list of the artifacts from the root to a matching artifact.
+     */
+    public List<List<Artifact>> findPaths( ArtifactFilter filter, int maxPaths )
+    {
+        truncated = false;
+        List<List<Artifact>> paths = new ArrayList<List<Artifact>>();
+        for ( Map.Entry<String, Artifact> entry : artifacts.entrySet() )
+        {
+            if ( !entry.getKey().equals( rootId ) && filter.include( entry.getValue() ) )
+            {
+                List<String> path = new ArrayList<String>();
+                path.add( entry.getKey() );
+                if ( !walkUp( path, new HashSet<String>( path ), paths, maxPaths ) )
+                {
+                    break;
+                }
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @return whether the last search stopped at the maximum number of paths.
+     */
+    public boolean isTruncated()
+    {
+        return truncated;
+    }
+
+    /**
+     * Extends a path from an artifact up to the root through each of the parents of its first artifact.
+     *
+     * @return <code>false</code> if the maximum number of paths is reached.
+     */
+    private boolean walkUp( List<String> path, Set<String> onPath, List<List<Artifact>> paths, int maxPaths )
+    {
+        String id = path.get( path.size() - 1 );
+        if ( id.equals( rootId ) )
+        {
+            if ( paths.size() == maxPaths )
+            {
+                truncated = true;
+                return false;
+            }
+            List<Artifact> found = new ArrayList<Artifact>( path.size() );
+            for ( int i = path.size() - 1; i >= 0; i-- )
+            {
+                found.add( artifacts.get( path.get( i ) ) );
+            }
+            paths.add( found );
+            return true;
+        }
+
+        for ( String parent : parents.get( id ) )
+        {
+            // a cycle is not a path
+            if ( onPath.add( parent ) )
+            {
+                path.add( parent );
+                boolean more = walkUp( path, onPath, paths, maxPaths );
+                path.remove( path.size() - 1 );
+                onPath.remove( parent );
+                if ( !more )
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,310 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.plugin.dependency.treeSerializers.BinaryDependencyNodeVisitor;
+import org.apache.maven.plugin.dependency.treeSerializers.BinaryDependencyTreeReader;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Persistent cache of the dependency tree of a project, in the format of {@link BinaryDependencyNodeVisitor}.
+ * <p>
+ * The tree is stored with the fingerprint of the dependency related part of the effective model it was built from,
+ * and with the size and modification time of the local repository files it was built from: the POMs of its nodes and
+ * their parents, and the repository metadata of the nodes selected from a version range. A cached tree is only served
+ * if the fingerprint matches and none of these files changed.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class DependencyTreeCache
+{
+    private static final String FORMAT = "dependency-tree-cache-1";
+
+    private final File file;
+
+    private final ArtifactRepository localRepository;
+
+    private final ArtifactFactory factory;
+
+    /**
+     * @param theFile the cache file.
+     * @param theLocalRepository the local repository the trees are built from.
+     * @param theFactory the factory creating the artifacts of the cached trees.
+     */
+    public DependencyTreeCache( File theFile, ArtifactRepository theLocalRepository, ArtifactFactory theFactory )
+    {
+        this.file = theFile;
+        this.localRepository = theLocalRepository;
+        this.factory = theFactory;
+    }
+
+    /**
+     * Computes the fingerprint of the parts of the effective model of a project the dependency tree depends on: its
+     * coordinates, dependencies, managed dependencies and remote repositories.
+     *
+     * @param project the project.
+     * @param scope the scope the tree is resolved for, or <code>null</code>.
+     * @return the fingerprint, in hexadecimal.
+     */
+    public static String fingerprint( MavenProject project, String scope )
+    {
+        StringBuffer model = new StringBuffer( FORMAT );
+        model.append( '\n' ).append( project.getGroupId() ).append( ':' ).append( project.getArtifactId() );
+        model.append( ':' ).append( project.getPackaging() ).append( ':' ).append( project.getVersion() );
+        model.append( "\nscope " ).append( scope );
+        appendDependencies( model, "dependency", project.getDependencies() );
+        if ( project.getDependencyManagement() != null )
+        {
+            appendDependencies( model, "managed", project.getDependencyManagement().getDependencies() );
+        }
+        if ( project.getRemoteArtifactRepositories() != null )
+        {
+            for ( Object o : project.getRemoteArtifactRepositories() )
+            {
+                ArtifactRepository repository = (ArtifactRepository) o;
+                model.append( "\nrepository " ).append( repository.getId() ).append( '=' );
+                model.append( repository.getUrl() );
+            }
+        }
+
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            return FileHashIndex.toHex( digest.digest( model.toString().getBytes( "UTF-8" ) ) );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+    }
+
+    /**
+     * Loads the cached tree.
+     *
+     * @param fingerprint the fingerprint of the project model.
+     * @return the cached tree, or <code>null</code> if there is none, it was built from another model, one of the
+     *         local repository files it was built from changed, or it can not be read.
+     */
+    public DependencyNode load( String fingerprint )
+    {
+        if ( !file.isFile() )
+        {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+            if ( !fingerprint.equals( in.readUTF() ) )
+            {
+                return null;
+            }
+            for ( int i = in.readInt(); i > 0; i-- )
+            {
+                File repositoryFile = new File( localRepository.getBasedir(), in.readUTF() );
+                if ( repositoryFile.lastModified() != in.readLong() || length( repositoryFile ) != in.readLong() )
+                {
+                    return null;
+                }
+            }
+            return new BinaryDependencyTreeReader( in, factory ).read();
+        }
+        catch ( IOException e )
+        {
+            // a broken cache is a miss
+            return null;
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    /**
+     * Stores a tree in the cache.
+     *
+     * @param fingerprint the fingerprint of the model the tree was built from.
+     * @param rootNode the root node of the tree.
+     * @throws IOException if the cache file can not be written.
+     */
+    public void save( String fingerprint, DependencyNode rootNode )
+        throws IOException
+    {
+        Set<String> paths = new LinkedHashSet<String>();
+        for ( Iterator<?> it = rootNode.preorderIterator(); it.hasNext(); )
+        {
+            DependencyNode node = (DependencyNode) it.next();
+            if ( node != rootNode )
+            {
+                addRepositoryFiles( node, paths );
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream( new BufferedOutputStream( OutputFiles.openStream( file, false ) ) );
+        try
+        {
+            out.writeUTF( fingerprint );
+            out.writeInt( paths.size() );
+            for ( String path : paths )
+            {
+                File repositoryFile = new File( localRepository.getBasedir(), path );
+                out.writeUTF( path );
+                out.writeLong( repositoryFile.lastModified() );
+                out.writeLong( length( repositoryFile ) );
+            }
+
+            BinaryDependencyNodeVisitor visitor = new BinaryDependencyNodeVisitor( out );
+            rootNode.accept( visitor );
+            visitor.checkError();
+            OutputFiles.commit( out );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    /**
+     * Adds the paths of the POM of a node and of its parents, and of the metadata its version was selected from if any.
+     */
+    private void addRepositoryFiles( DependencyNode node, Set<String> paths )
+    {
+        Artifact artifact = node.getArtifact();
+        String pomPath = addPom( artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion(), paths );
+
+        if ( node.getVersionSelectedFromRange() != null )
+        {
+            // the metadata files sit next to the version directories
+            String artifactPath = new File( pomPath ).getParentFile().getParent();
+            String[] names = new File( localRepository.getBasedir(), artifactPath ).list();
+            String prefix = artifactPath + File.separatorChar;
+            for ( int i = 0; names != null && i < names.length; i++ )
+            {
+                if ( names[i].startsWith( "maven-metadata" ) && names[i].endsWith( ".xml" ) )
+                {
+                    paths.add( prefix + names[i] );
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the path of a POM, and of its parents as far as they are in the local repository, since their dependencies
+     * and managed dependencies are inherited.
+     *
+     * @return the path of the POM.
+     */
+    private String addPom( String groupId, String artifactId, String version, Set<String> paths )
+    {
+        String path = localRepository.pathOf( factory.createProjectArtifact( groupId, artifactId, version ) );
+        File pom = new File( localRepository.getBasedir(), path );
+        if ( paths.add( path ) && pom.isFile() )
+        {
+            Reader reader = null;
+            try
+            {
+                reader = new FileReader( pom );
+                Parent parent = new MavenXpp3Reader().read( reader, false ).getParent();
+                if ( parent != null )
+                {
+                    addPom( parent.getGroupId(), parent.getArtifactId(), parent.getVersion(), paths );
+                }
+            }
+            catch ( IOException e )
+            {
+                // the POM itself is tracked, the tree is stale anyway if it is fixed
+            }
+            catch ( XmlPullParserException e )
+            {
+                // the POM itself is tracked, the tree is stale anyway if it is fixed
+            }
+            finally
+            {
+                IOUtil.close( reader );
+            }
+        }
+        return path;
+    }
+
+    private static void appendDependencies( StringBuffer model, String kind, List<?> dependencies )
+    {
+        if ( dependencies == null )
+        {
+            return;
+        }
+        for ( Object o : dependencies )
+        {
+            Dependency dependency = (Dependency) o;
+            model.append( '\n' ).append( kind ).append( ' ' ).append( dependency.getGroupId() );
+            model.append( ':' ).append( dependency.getArtifactId() ).append( ':' ).append( dependency.getType() );
+            model.append( ':' ).append( dependency.getClassifier() ).append( ':' ).append( dependency.getVersion() );
+            model.append( ':' ).append( dependency.getScope() ).append( ':' ).append( dependency.isOptional() );
+            model.append( ':' ).append( dependency.getSystemPath() );
+            if ( dependency.getExclusions() != null )
+            {
+                for ( Object e : dependency.getExclusions() )
+                {
+                    Exclusion exclusion = (Exclusion) e;
+                    model.append( " -" ).append( exclusion.getGroupId() ).append( ':' );
+                    model.append( exclusion.getArtifactId() );
+                }
+            }
+        }
+    }
+
+    private static long length( File file )
+    {
+        return file.exists() ? file.length() : -1;
+    }
+}
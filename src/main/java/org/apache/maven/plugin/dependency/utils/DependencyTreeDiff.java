@@ -0,0 +1,297 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.traversal.DependencyNodeVisitor;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Compares the resolved dependencies of a tree to a baseline, in a single traversal of the tree.
+ * <p>
+ * The baseline lists the included nodes of a tree but its root, one per line and sorted, as
+ * <code>groupId:artifactId:type[:classifier] version scope</code>. The nodes are matched on their
+ * <code>groupId:artifactId:type[:classifier]</code> key, looked up through a 64 bit FNV-1a hash of the key; the entries
+ * whose keys collide are chained, and a node only matches the entry of its own key.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class DependencyTreeDiff
+    implements DependencyNodeVisitor
+{
+    /**
+     * A line of the baseline.
+     */
+    private static class Entry
+    {
+        private final String key;
+
+        private final String version;
+
+        private final String scope;
+
+        /**
+         * The next entry whose key has the same hash.
+         */
+        private final Entry next;
+
+        private boolean matched;
+
+        Entry( String key, String version, String scope, Entry next )
+        {
+            this.key = key;
+            this.version = version;
+            this.scope = scope;
+            this.next = next;
+        }
+    }
+
+    private final Map<Long, Entry> baseline = new HashMap<Long, Entry>();
+
+    private int baselineSize;
+
+    private int matchedSize;
+
+    private final Set<String> seen = new HashSet<String>();
+
+    private final List<String> added = new ArrayList<String>();
+
+    private final List<String> versionChanges = new ArrayList<String>();
+
+    private final List<String> scopeChanges = new ArrayList<String>();
+
+    private int depth;
+
+    /**
+     * Loads a baseline.
+     *
+     * @param baselineFile the baseline.
+     * @throws IOException if the baseline can not be read.
+     */
+    public DependencyTreeDiff( File baselineFile )
+        throws IOException
+    {
+        BufferedReader reader = new BufferedReader( new FileReader( baselineFile ) );
+        try
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                String[] tokens = line.trim().split( " " );
+                if ( tokens.length == 3 )
+                {
+                    Long hash = Long.valueOf( hash( tokens[0] ) );
+                    baseline.put( hash, new Entry( tokens[0], tokens[1], tokens[2], baseline.get( hash ) ) );
+                    baselineSize++;
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean visit( DependencyNode node )
+    {
+        if ( depth++ == 0 || node.getState() != DependencyNode.INCLUDED )
+        {
+            return true;
+        }
+
+        Artifact artifact = node.getArtifact();
+        String key = artifact.getDependencyConflictId();
+        if ( !seen.add( key ) )
+        {
+            return true;
+        }
+
+        Entry entry = baseline.get( Long.valueOf( hash( key ) ) );
+        while ( entry != null && !entry.key.equals( key ) )
+        {
+            entry = entry.next;
+        }
+        if ( entry == null )
+        {
+            added.add( key + " " + artifact.getVersion() + " " + artifact.getScope() );
+        }
+        else
+        {
+            entry.matched = true;
+            matchedSize++;
+            if ( !entry.version.equals( artifact.getVersion() ) )
+            {
+                versionChanges.add( key + " " + entry.version + " -> " + artifact.getVersion() );
+            }
+            if ( !entry.scope.equals( artifact.getScope() ) )
+            {
+                scopeChanges.add( key + " " + entry.scope + " -> " + artifact.getScope() );
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean endVisit( DependencyNode node )
+    {
+        depth--;
+        return true;
+    }
+
+    /**
+     * @return the dependencies missing from the baseline, as <code>key version scope</code>.
+     */
+    public List<String> getAdded()
+    {
+        return added;
+    }
+
+    /**
+     * @return the dependencies of the baseline which were not visited, as <code>key version scope</code>.
+     */
+    public List<String> getRemoved()
+    {
+        List<String> removed = new ArrayList<String>();
+        for ( Entry entry : baseline.values() )
+        {
+            for ( ; entry != null; entry = entry.next )
+            {
+                if ( !entry.matched )
+                {
+                    removed.add( entry.key + " " + entry.version + " " + entry.scope );
+                }
+            }
+        }
+        Collections.sort( removed );
+        return removed;
+    }
+
+    /**
+     * @return the dependencies whose version changed, as <code>key oldVersion -&gt; newVersion</code>.
+     */
+    public List<String> getVersionChanges()
+    {
+        return versionChanges;
+    }
+
+    /**
+     * @return the dependencies whose scope changed, as <code>key oldScope -&gt; newScope</code>.
+     */
+    public List<String> getScopeChanges()
+    {
+        return scopeChanges;
+    }
+
+    /**
+     * @return whether the visited tree differs from the baseline.
+     */
+    public boolean hasChanges()
+    {
+        return !added.isEmpty() || !versionChanges.isEmpty() || !scopeChanges.isEmpty()
+            || matchedSize != baselineSize;
+    }
+
+    /**
+     * Writes the baseline of a tree.
+     *
+     * @param rootNode the root node of the tree.
+     * @param baselineFile the file to write.
+     * @throws IOException if the file can not be written.
+     */
+    public static void writeBaseline( DependencyNode rootNode, File baselineFile )
+        throws IOException
+    {
+        final List<String> lines = new ArrayList<String>();
+        final Set<String> keys = new HashSet<String>();
+        rootNode.accept( new DependencyNodeVisitor()
+        {
+            private int depth;
+
+            public boolean visit( DependencyNode node )
+            {
+                Artifact artifact = node.getArtifact();
+                if ( depth++ > 0 && node.getState() == DependencyNode.INCLUDED
+                    && keys.add( artifact.getDependencyConflictId() ) )
+                {
+                    lines.add( artifact.getDependencyConflictId() + " " + artifact.getVersion() + " "
+                        + artifact.getScope() );
+                }
+                return true;
+            }
+
+            public boolean endVisit( DependencyNode node )
+            {
+                depth--;
+                return true;
+            }
+        } );
+        Collections.sort( lines );
+
+        Writer writer = OutputFiles.openWriter( baselineFile, false );
+        try
+        {
+            for ( String line : lines )
+            {
+                writer.write( line );
+                writer.write( '\n' );
+            }
+            OutputFiles.commit( writer );
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    /**
+     * Computes the 64 bit FNV-1a hash of a node key.
+     */
+    static long hash( String key )
+    {
+        long hash = 0xcbf29ce484222325L;
+        for ( int i = 0; i < key.length(); i++ )
+        {
+            hash ^= key.charAt( i );
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -21,7 +21,6 @@ package org.apache.maven.plugin.dependency.utils;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringReader;
 
@@ -100,6 +99,22 @@ public final class DependencyUtil
         return destFileName.toString();
     }
 
+    /**
+     * Gets the file an output restricted to a scope is written to: the output file, with the scope appended to its
+     * base name.
+     * 
+     * @param file the output file.
+     * @param scope the scope.
+     * @return the file of the scope, e.g. <code>tree-compile.txt</code> for <code>tree.txt</code>.
+     */
+    public static File getScopeFile( File file, String scope )
+    {
+        String name = file.getName();
+        int dot = name.lastIndexOf( '.' );
+        String scopeName = dot > 0 ? name.substring( 0, dot ) + "-" + scope + name.substring( dot ) : name + "-" + scope;
+        return new File( file.getParentFile(), scopeName );
+    }
+
     /**
      * Formats the outputDirectory based on type.
      * 
@@ -179,29 +194,34 @@ public final class DependencyUtil
     }
 
     /**
-     * Writes the specified string to the specified file.
+     * Writes the specified string to the specified file. Only writers appending to the same file wait for each other.
      * 
      * @param string the string to write
      * @param file the file to write to
+     * @param append whether to append the string to the file rather than replace the file
      * @throws IOException if an I/O error occurs
+     * @see OutputFiles
      */
-    public static synchronized void write( String string, File file, boolean append, Log log )
+    public static void write( String string, File file, boolean append )
         throws IOException
     {
-        file.getParentFile().mkdirs();
-
-        FileWriter writer = null;
-
-        try
-        {
-            writer = new FileWriter( file, append );
+        OutputFiles.write( string, file, append );
+    }
 
-            writer.write( string );
-        }
-        finally
-        {
-            IOUtil.close( writer );
-        }
+    /**
+     * Writes the specified string to the specified file.
+     * 
+     * @param string the string to write
+     * @param file the file to write to
+     * @param append whether to append the string to the file rather than replace the file
+     * @param log unused
+     * @throws IOException if an I/O error occurs
+     * @deprecated use {@link #write(String, File, boolean)}
+     */
+    public static void write( String string, File file, boolean append, Log log )
+        throws IOException
+    {
+        write( string, file, append );
     }
 
     /**
@@ -210,7 +230,7 @@ public final class DependencyUtil
      * @param string the string to write
      * @throws IOException if an I/O error occurs
      */
-    public static synchronized void log( String string, Log log )
+    public static void log( String string, Log log )
         throws IOException
     {
         BufferedReader reader = new BufferedReader( new StringReader( string ) );
@@ -0,0 +1,192 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileLock;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Lock of an artifact being copied or unpacked to a destination, held by a single thread of a single process at a
+ * time, so that builds sharing a destination do not write the same files concurrently. Artifacts written to different
+ * destinations, or different artifacts written to the same directory, do not wait for each other.
+ * <p>
+ * The lock is a {@link FileLock} on a file of the <code>maven-dependency-plugin-locks</code> directory of the temporary
+ * directory, named after the hash of the destination and of the artifact, so that the destination is left untouched.
+ * The lock files are never deleted, as a lock file deleted while another process waits for it would let a third
+ * process lock a new file of the same name. Within a process, the threads waiting for a lock wait on a semaphore
+ * rather than on the file lock, which is held on behalf of the whole process. When the lock file can not be created or
+ * locked, for instance in a temporary directory shared with other users, a warning is logged and the artifact is only
+ * locked against the other threads of the process.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public final class DestinationLock
+{
+    private static final File LOCKS_DIRECTORY =
+        new File( System.getProperty( "java.io.tmpdir" ), "maven-dependency-plugin-locks" );
+
+    /**
+     * The locks held in this process, by lock file name.
+     */
+    private static final ConcurrentMap<String, Semaphore> LOCKS = new ConcurrentHashMap<String, Semaphore>();
+
+    private final Semaphore semaphore;
+
+    private final RandomAccessFile file;
+
+    private final FileLock lock;
+
+    private DestinationLock( Semaphore theSemaphore, RandomAccessFile theFile, FileLock theLock )
+    {
+        this.semaphore = theSemaphore;
+        this.file = theFile;
+        this.lock = theLock;
+    }
+
+    /**
+     * Locks an artifact written to a destination, waiting for the builds holding the lock to release it.
+     *
+     * @param destination the file the artifact is copied to, or the directory it is unpacked to.
+     * @param artifact the artifact.
+     * @param log the log warned when the lock file can not be locked.
+     * @return the lock, which must be released.
+     * @throws IOException if the path of the destination can not be resolved.
+     */
+    public static DestinationLock acquire( File destination, Artifact artifact, Log log )
+        throws IOException
+    {
+        return acquire( LOCKS_DIRECTORY, destination, artifact, log );
+    }
+
+    static DestinationLock acquire( File locksDirectory, File destination, Artifact artifact, Log log )
+        throws IOException
+    {
+        String name = getLockName( destination.getCanonicalPath() + '|' + artifact.getId() );
+
+        Semaphore semaphore = LOCKS.get( name );
+        if ( semaphore == null )
+        {
+            Semaphore newSemaphore = new Semaphore( 1 );
+            semaphore = LOCKS.putIfAbsent( name, newSemaphore );
+            if ( semaphore == null )
+            {
+                semaphore = newSemaphore;
+            }
+        }
+        semaphore.acquireUninterruptibly();
+
+        RandomAccessFile file = null;
+        try
+        {
+            locksDirectory.mkdirs();
+            file = new RandomAccessFile( new File( locksDirectory, name ), "rw" );
+            return new DestinationLock( semaphore, file, file.getChannel().lock() );
+        }
+        catch ( IOException e )
+        {
+            close( file );
+            log.warn( "Cannot lock " + artifact.getId() + " in " + destination + " against other builds: "
+                + e.getMessage() );
+            return new DestinationLock( semaphore, null, null );
+        }
+        catch ( RuntimeException e )
+        {
+            close( file );
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the lock.
+     *
+     * @throws IOException if the lock file can not be unlocked.
+     */
+    public void release()
+        throws IOException
+    {
+        try
+        {
+            if ( lock != null )
+            {
+                lock.release();
+            }
+        }
+        finally
+        {
+            try
+            {
+                if ( file != null )
+                {
+                    file.close();
+                }
+            }
+            finally
+            {
+                semaphore.release();
+            }
+        }
+    }
+
+    private static void close( RandomAccessFile file )
+    {
+        if ( file != null )
+        {
+            try
+            {
+                file.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+    private static String getLockName( String key )
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            return FileHashIndex.toHex( digest.digest( key.getBytes( "UTF-8" ) ) ) + ".lock";
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Writer computing the SHA-1 digest of the UTF-8 encoding of the characters written to it, without storing them, so
+ * that a large output can be compared to a previous one through the digest of the previous one only.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class DigestWriter
+    extends Writer
+{
+    private final MessageDigest digest;
+
+    private final Writer encoder;
+
+    public DigestWriter()
+    {
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+            encoder = new OutputStreamWriter( new OutputStream()
+            {
+                public void write( int b )
+                {
+                    digest.update( (byte) b );
+                }
+
+                public void write( byte[] b, int off, int len )
+                {
+                    digest.update( b, off, len );
+                }
+            }, "UTF-8" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e.getMessage() );
+        }
+    }
+
+    public void write( char[] cbuf, int off, int len )
+        throws IOException
+    {
+        encoder.write( cbuf, off, len );
+    }
+
+    public void write( String str, int off, int len )
+        throws IOException
+    {
+        encoder.write( str, off, len );
+    }
+
+    public void flush()
+        throws IOException
+    {
+        encoder.flush();
+    }
+
+    public void close()
+        throws IOException
+    {
+        encoder.close();
+    }
+
+    /**
+     * Completes the digest of the characters written.
+     *
+     * @return the digest, in hexadecimal.
+     * @throws IOException if the characters can not be encoded.
+     */
+    public String getDigest()
+        throws IOException
+    {
+        encoder.flush();
+        return FileHashIndex.toHex( digest.digest() );
+    }
+}
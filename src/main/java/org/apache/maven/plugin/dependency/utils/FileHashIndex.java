@@ -0,0 +1,284 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Persistent index of the SHA-1 hashes of the files of a directory. An entry stays valid as long as the size and
+ * modification time of its file are unchanged, so that only new or modified files have to be hashed again.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class FileHashIndex
+{
+    /**
+     * The hash of a file, with the size and modification time it was computed for.
+     */
+    public static class Entry
+    {
+        private final String hash;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private String linkedTo;
+
+        public Entry( String theHash, long theSize, long theLastModified )
+        {
+            this.hash = theHash;
+            this.size = theSize;
+            this.lastModified = theLastModified;
+        }
+
+        public String getHash()
+        {
+            return hash;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        public long getLastModified()
+        {
+            return lastModified;
+        }
+
+        /**
+         * @return the path of the file this one is a hard link to, or <code>null</code>.
+         */
+        public String getLinkedTo()
+        {
+            return linkedTo;
+        }
+
+        public void setLinkedTo( String theLinkedTo )
+        {
+            this.linkedTo = theLinkedTo;
+        }
+
+        /**
+         * @return whether the entry still describes the file.
+         */
+        public boolean isValid( File file )
+        {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+    }
+
+    private final File indexFile;
+
+    private final Map<String, Entry> entries = new TreeMap<String, Entry>();
+
+    public FileHashIndex( File theIndexFile )
+    {
+        this.indexFile = theIndexFile;
+    }
+
+    /**
+     * Loads the index, ignoring malformed lines.
+     *
+     * @throws IOException if the index can not be read.
+     */
+    public void load()
+        throws IOException
+    {
+        entries.clear();
+        if ( !indexFile.exists() )
+        {
+            return;
+        }
+
+        BufferedReader reader = new BufferedReader( new FileReader( indexFile ) );
+        try
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                // hash size lastModified path [-> linkedTo]
+                String[] tokens = line.split( " ", 4 );
+                if ( tokens.length < 4 )
+                {
+                    continue;
+                }
+                try
+                {
+                    Entry entry = new Entry( tokens[0], Long.parseLong( tokens[1] ), Long.parseLong( tokens[2] ) );
+                    String path = tokens[3];
+                    int index = path.indexOf( " -> " );
+                    if ( index > 0 )
+                    {
+                        entry.setLinkedTo( path.substring( index + 4 ) );
+                        path = path.substring( 0, index );
+                    }
+                    entries.put( path, entry );
+                }
+                catch ( NumberFormatException e )
+                {
+                    // ignore the line
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+    }
+
+    /**
+     * Stores the index.
+     *
+     * @throws IOException if the index can not be written.
+     */
+    public void save()
+        throws IOException
+    {
+        Writer writer = OutputFiles.openWriter( indexFile, false );
+        try
+        {
+            for ( Map.Entry<String, Entry> mapEntry : entries.entrySet() )
+            {
+                Entry entry = mapEntry.getValue();
+                writer.write( entry.getHash() + " " + entry.getSize() + " " + entry.getLastModified() + " "
+                    + mapEntry.getKey() );
+                if ( entry.getLinkedTo() != null )
+                {
+                    writer.write( " -> " + entry.getLinkedTo() );
+                }
+                writer.write( "\n" );
+            }
+            // renames the index into place
+            OutputFiles.commit( writer );
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    public synchronized Entry get( String path )
+    {
+        return entries.get( path );
+    }
+
+    public synchronized void put( String path, Entry entry )
+    {
+        entries.put( path, entry );
+    }
+
+    /**
+     * Removes the entries of the files which don't exist anymore.
+     *
+     * @param baseDirectory the directory the paths are relative to.
+     */
+    public synchronized void removeMissing( File baseDirectory )
+    {
+        for ( Iterator<String> it = entries.keySet().iterator(); it.hasNext(); )
+        {
+            if ( !new File( baseDirectory, it.next() ).exists() )
+            {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Computes the SHA-1 hash of a file.
+     *
+     * @param file the file.
+     * @return the hash, in hexadecimal.
+     * @throws IOException if the file can not be read.
+     */
+    public static String hash( File file )
+        throws IOException
+    {
+        return hash( file, "SHA-1" );
+    }
+
+    /**
+     * Computes the hash of a file.
+     *
+     * @param file the file.
+     * @param algorithm the digest algorithm, e.g. <code>SHA-1</code> or <code>MD5</code>.
+     * @return the hash, in hexadecimal.
+     * @throws IOException if the file can not be read.
+     */
+    public static String hash( File file, String algorithm )
+        throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( algorithm );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IOException( e.getMessage() );
+        }
+
+        InputStream in = new FileInputStream( file );
+        try
+        {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ( ( read = in.read( buffer ) ) >= 0 )
+            {
+                digest.update( buffer, 0, read );
+            }
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        return toHex( digest.digest() );
+    }
+
+    /**
+     * @param bytes the bytes of a digest.
+     * @return the bytes, in hexadecimal.
+     */
+    static String toHex( byte[] bytes )
+    {
+        StringBuffer hex = new StringBuffer();
+        for ( byte b : bytes )
+        {
+            hex.append( Character.forDigit( ( b >> 4 ) & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,270 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Walks the version directories of a local repository, i.e. the directories holding the files of one version of an
+ * artifact, and deletes them.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class LocalRepositoryScanner
+{
+    private final File repositoryDirectory;
+
+    private final int threads;
+
+    private final Log log;
+
+    /**
+     * A version directory of the repository.
+     */
+    public static class VersionDirectory
+    {
+        private final File directory;
+
+        private final String path;
+
+        private final long size;
+
+        private long lastUse;
+
+        VersionDirectory( File theDirectory, String thePath, long theSize, long theLastModified )
+        {
+            this.directory = theDirectory;
+            this.path = thePath;
+            this.size = theSize;
+            this.lastUse = theLastModified;
+        }
+
+        public File getDirectory()
+        {
+            return directory;
+        }
+
+        /**
+         * @return the path of the directory relative to the repository, with <code>/</code> separators.
+         */
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * @return the groupId of the artifact, derived from the path of the directory.
+         */
+        public String getGroupId()
+        {
+            int versionIndex = path.lastIndexOf( '/' );
+            int artifactIndex = versionIndex > 0 ? path.lastIndexOf( '/', versionIndex - 1 ) : -1;
+            return artifactIndex > 0 ? path.substring( 0, artifactIndex ).replace( '/', '.' ) : "";
+        }
+
+        /**
+         * @return the size of the files of the directory, in bytes.
+         */
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * @return the time of the last known use of the directory, initially the last modification of its files.
+         */
+        public long getLastUse()
+        {
+            return lastUse;
+        }
+
+        public void setLastUse( long theLastUse )
+        {
+            this.lastUse = theLastUse;
+        }
+    }
+
+    public LocalRepositoryScanner( File theRepositoryDirectory, int theThreads, Log theLog )
+    {
+        this.repositoryDirectory = theRepositoryDirectory;
+        this.threads = theThreads;
+        this.log = theLog;
+    }
+
+    /**
+     * Finds the version directories of the repository, each top level directory being walked by its own task.
+     *
+     * @return the version directories.
+     * @throws MojoExecutionException if the repository can not be walked.
+     */
+    public List<VersionDirectory> scan()
+        throws MojoExecutionException
+    {
+        List<VersionDirectory> versions = new ArrayList<VersionDirectory>();
+        File[] roots = repositoryDirectory.listFiles();
+        if ( roots == null )
+        {
+            return versions;
+        }
+
+        List<Callable<List<VersionDirectory>>> tasks = new ArrayList<Callable<List<VersionDirectory>>>();
+        for ( final File root : roots )
+        {
+            if ( root.isDirectory() && !root.getName().startsWith( "." ) )
+            {
+                tasks.add( new Callable<List<VersionDirectory>>()
+                {
+                    public List<VersionDirectory> call()
+                    {
+                        List<VersionDirectory> found = new ArrayList<VersionDirectory>();
+                        findVersionDirectories( root, root.getName(), found );
+                        return found;
+                    }
+                } );
+            }
+        }
+
+        for ( List<VersionDirectory> found : ParallelTasks.invokeAll( threads, tasks, "Couldn't scan repository" ) )
+        {
+            versions.addAll( found );
+        }
+        return versions;
+    }
+
+    /**
+     * Deletes version directories, then the artifact directories left without any version and the group directories
+     * left empty.
+     *
+     * @param versions the version directories to delete.
+     * @throws MojoExecutionException if a directory can not be deleted.
+     */
+    public void delete( List<VersionDirectory> versions )
+        throws MojoExecutionException
+    {
+        List<Callable<File>> tasks = new ArrayList<Callable<File>>();
+        for ( final VersionDirectory version : versions )
+        {
+            tasks.add( new Callable<File>()
+            {
+                public File call()
+                    throws Exception
+                {
+                    FileUtils.deleteDirectory( version.getDirectory() );
+                    return version.getDirectory();
+                }
+            } );
+        }
+        ParallelTasks.invokeAll( threads, tasks, "Couldn't delete artifact version" );
+
+        for ( VersionDirectory version : versions )
+        {
+            File artifactDirectory = version.getDirectory().getParentFile();
+            File[] remaining = artifactDirectory.listFiles();
+            if ( remaining == null )
+            {
+                continue;
+            }
+            boolean hasVersion = false;
+            for ( File file : remaining )
+            {
+                hasVersion |= file.isDirectory();
+            }
+            if ( !hasVersion )
+            {
+                try
+                {
+                    FileUtils.deleteDirectory( artifactDirectory );
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Couldn't delete " + artifactDirectory + ": " + e.getMessage() );
+                    continue;
+                }
+                File parent = artifactDirectory.getParentFile();
+                while ( !parent.equals( repositoryDirectory ) && parent.delete() )
+                {
+                    parent = parent.getParentFile();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the version directories, i.e. the directories holding files named after their artifactId and version.
+     */
+    private void findVersionDirectories( File directory, String path, List<VersionDirectory> versions )
+    {
+        File[] files = directory.listFiles();
+        if ( files == null )
+        {
+            return;
+        }
+
+        String version = directory.getName();
+        if ( version.endsWith( "-SNAPSHOT" ) )
+        {
+            version = version.substring( 0, version.length() - "-SNAPSHOT".length() );
+        }
+        String prefix = directory.getParentFile().getName() + "-" + version;
+
+        long size = 0;
+        long lastModified = 0;
+        boolean isVersion = false;
+        List<File> subDirectories = new ArrayList<File>();
+        for ( File file : files )
+        {
+            if ( file.isDirectory() )
+            {
+                subDirectories.add( file );
+            }
+            else
+            {
+                isVersion |= file.getName().startsWith( prefix );
+                size += file.length();
+                lastModified = Math.max( lastModified, file.lastModified() );
+            }
+        }
+
+        if ( isVersion )
+        {
+            for ( File subDirectory : subDirectories )
+            {
+                size += FileUtils.sizeOfDirectory( subDirectory );
+            }
+            versions.add( new VersionDirectory( directory, path, size, lastModified ) );
+        }
+        else
+        {
+            for ( File subDirectory : subDirectories )
+            {
+                findVersionDirectories( subDirectory, path + "/" + subDirectory.getName(), versions );
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Writer;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A writer logging each line written to it at info level, as soon as it is complete. Only the current line is held in
+ * memory.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class LogWriter
+    extends Writer
+{
+    private final Log log;
+
+    private final StringBuffer line = new StringBuffer();
+
+    private boolean afterCarriageReturn;
+
+    public LogWriter( Log theLog )
+    {
+        this.log = theLog;
+    }
+
+    public void write( char[] cbuf, int off, int len )
+    {
+        for ( int i = off; i < off + len; i++ )
+        {
+            char c = cbuf[i];
+            if ( c == '\n' && afterCarriageReturn )
+            {
+                // the end of a \r\n line separator, the line has been logged already
+                afterCarriageReturn = false;
+                continue;
+            }
+            afterCarriageReturn = c == '\r';
+            if ( c == '\n' || c == '\r' )
+            {
+                log.info( line.toString() );
+                line.setLength( 0 );
+            }
+            else
+            {
+                line.append( c );
+            }
+        }
+    }
+
+    /**
+     * Nothing to do: a line is only logged once it is complete.
+     */
+    public void flush()
+    {
+        // nothing to do
+    }
+
+    /**
+     * Logs the last line if it is not terminated.
+     */
+    public void close()
+    {
+        if ( line.length() > 0 )
+        {
+            log.info( line.toString() );
+            line.setLength( 0 );
+        }
+    }
+}
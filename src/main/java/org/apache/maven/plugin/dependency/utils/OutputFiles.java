@@ -0,0 +1,271 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Opens the output files of the goals so that concurrent builds writing them do not corrupt them, without making
+ * writers of unrelated files wait for each other.
+ * <p>
+ * A file being replaced is written to a temporary file next to it, renamed over the file when committed with
+ * {@link #commit(Closeable)}: the file always holds a complete output, the last one committed. Closing an output
+ * without committing it, or after a write failed, deletes the temporary file and leaves the file untouched. A file
+ * being appended to is locked until closed, the lock being specific to the file, so that outputs appended to a shared
+ * file by concurrent builds are not interleaved.
+ * </p>
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public final class OutputFiles
+{
+    /**
+     * The locks of the files appended to, by canonical path.
+     */
+    private static final ConcurrentMap<String, Semaphore> LOCKS = new ConcurrentHashMap<String, Semaphore>();
+
+    /**
+     * Set while the outputs closed by the current thread are committed.
+     */
+    private static final ThreadLocal<Boolean> COMMITTING = new ThreadLocal<Boolean>();
+
+    /**
+     * A stream on an output file, releasing the lock of the file or renaming the temporary file when committed.
+     */
+    private static class OutputFileStream
+        extends FilterOutputStream
+    {
+        private final File file;
+
+        private final File tmp;
+
+        private final Semaphore lock;
+
+        private boolean failed;
+
+        private boolean closed;
+
+        OutputFileStream( OutputStream theOut, File theFile, File theTmp, Semaphore theLock )
+        {
+            super( theOut );
+            this.file = theFile;
+            this.tmp = theTmp;
+            this.lock = theLock;
+        }
+
+        public void write( byte[] b, int off, int len )
+            throws IOException
+        {
+            try
+            {
+                out.write( b, off, len );
+            }
+            catch ( IOException e )
+            {
+                failed = true;
+                throw e;
+            }
+        }
+
+        public void close()
+            throws IOException
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+
+            boolean commit = COMMITTING.get() != null && !failed;
+            try
+            {
+                try
+                {
+                    // flushed first, as FilterOutputStream.close() ignores flush failures on some JDKs
+                    out.flush();
+                    out.close();
+                }
+                catch ( IOException e )
+                {
+                    commit = false;
+                    throw e;
+                }
+
+                if ( tmp != null && commit )
+                {
+                    rename();
+                }
+            }
+            finally
+            {
+                if ( lock != null )
+                {
+                    lock.release();
+                }
+                if ( tmp != null && !commit )
+                {
+                    tmp.delete();
+                }
+            }
+        }
+
+        private void rename()
+            throws IOException
+        {
+            if ( !tmp.renameTo( file ) )
+            {
+                // renaming over an existing file fails on some platforms
+                file.delete();
+                if ( !tmp.renameTo( file ) )
+                {
+                    tmp.delete();
+                    throw new IOException( "Cannot rename " + tmp + " to " + file );
+                }
+            }
+        }
+    }
+
+    private OutputFiles()
+    {
+        // utility class
+    }
+
+    /**
+     * Closes an output, committing the files it writes to: the files being replaced are renamed into place.
+     *
+     * @param output the output to close, opened with this class or wrapping a stream or writer opened with it.
+     * @throws IOException if the output can not be closed, in which case the files being replaced are left untouched.
+     */
+    public static void commit( Closeable output )
+        throws IOException
+    {
+        COMMITTING.set( Boolean.TRUE );
+        try
+        {
+            output.close();
+        }
+        finally
+        {
+            COMMITTING.remove();
+        }
+    }
+
+    /**
+     * Writes a string to a file.
+     *
+     * @param string the string to write.
+     * @param file the file to write to.
+     * @param append whether to append the string to the file rather than replace the file.
+     * @throws IOException if the file can not be written.
+     */
+    public static void write( String string, File file, boolean append )
+        throws IOException
+    {
+        Writer writer = openWriter( file, append );
+        try
+        {
+            writer.write( string );
+            commit( writer );
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    /**
+     * Opens a buffered writer on a file, with the platform encoding.
+     *
+     * @param file the file to write to.
+     * @param append whether to append to the file rather than replace the file.
+     * @return the writer, which must be committed or closed.
+     * @throws IOException if the file can not be opened.
+     */
+    public static Writer openWriter( File file, boolean append )
+        throws IOException
+    {
+        return new BufferedWriter( new OutputStreamWriter( openStream( file, append ) ) );
+    }
+
+    /**
+     * Opens a stream on a file.
+     *
+     * @param file the file to write to.
+     * @param append whether to append to the file rather than replace the file.
+     * @return the stream, which must be committed or closed.
+     * @throws IOException if the file can not be opened.
+     */
+    public static OutputStream openStream( File file, boolean append )
+        throws IOException
+    {
+        File directory = file.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+
+        if ( !append )
+        {
+            // the prefix of a temporary file needs at least 3 characters
+            File tmp = File.createTempFile( "." + file.getName() + ".", ".tmp", directory );
+            return new OutputFileStream( new FileOutputStream( tmp ), file, tmp, null );
+        }
+
+        Semaphore lock = getLock( file );
+        lock.acquireUninterruptibly();
+        try
+        {
+            return new OutputFileStream( new FileOutputStream( file, true ), file, null, lock );
+        }
+        catch ( IOException e )
+        {
+            lock.release();
+            throw e;
+        }
+    }
+
+    private static Semaphore getLock( File file )
+        throws IOException
+    {
+        String path = file.getCanonicalPath();
+        Semaphore lock = LOCKS.get( path );
+        if ( lock == null )
+        {
+            Semaphore newLock = new Semaphore( 1 );
+            lock = LOCKS.putIfAbsent( path, newLock );
+            if ( lock == null )
+            {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+}
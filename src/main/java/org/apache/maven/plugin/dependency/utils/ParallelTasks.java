@@ -0,0 +1,131 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.execution.RuntimeInformation;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Utility class running independent tasks on a bounded thread pool.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public final class ParallelTasks
+{
+    private ParallelTasks()
+    {
+        // utility class
+    }
+
+    /**
+     * Returns the number of threads to use for tasks calling the artifact resolver, collector or installer of Maven.
+     * Those of Maven 2.x are not thread-safe, so a single thread is used with it.
+     *
+     * @param threads the number of threads configured.
+     * @param rti the runtime information of the running Maven.
+     * @param log the log warned when the number of threads is reduced.
+     * @return the number of threads to use.
+     */
+    public static int getResolverThreads( int threads, RuntimeInformation rti, Log log )
+    {
+        ArtifactVersion mavenVersion = rti.getApplicationVersion();
+        if ( threads > 1 && mavenVersion.getMajorVersion() < 3 )
+        {
+            log.warn( "Using a single thread instead of " + threads + ": the artifact resolver of Maven "
+                + mavenVersion + " is not thread-safe" );
+            return 1;
+        }
+        return threads;
+    }
+
+    /**
+     * Runs the tasks on a pool of at most <code>threads</code> threads and waits for all of them. A failing task does
+     * not stop the others: all the failures are reported at once when every task has completed.
+     *
+     * @param threads the maximum number of threads to use.
+     * @param tasks the tasks to run.
+     * @param failureMessage the message of the exception thrown if any task fails.
+     * @return the results of the tasks, in the order of the tasks.
+     * @throws MojoExecutionException if any task failed, with the first failure as cause.
+     */
+    public static <T> List<T> invokeAll( int threads, List<? extends Callable<T>> tasks, String failureMessage )
+        throws MojoExecutionException
+    {
+        List<T> results = new ArrayList<T>( tasks.size() );
+        if ( tasks.isEmpty() )
+        {
+            return results;
+        }
+
+        List<Throwable> failures = new ArrayList<Throwable>();
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, tasks.size() ) ) );
+        try
+        {
+            for ( Future<T> future : executor.invokeAll( tasks ) )
+            {
+                try
+                {
+                    results.add( future.get() );
+                }
+                catch ( ExecutionException e )
+                {
+                    failures.add( e.getCause() );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            throw new MojoExecutionException( failureMessage + ": interrupted", e );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        if ( failures.size() == 1 )
+        {
+            Throwable failure = failures.get( 0 );
+            throw new MojoExecutionException( failureMessage + ": " + failure.getMessage(), failure );
+        }
+        else if ( !failures.isEmpty() )
+        {
+            StringBuffer message = new StringBuffer( failureMessage );
+            message.append( " (" ).append( failures.size() ).append( " failures):" );
+            for ( Throwable failure : failures )
+            {
+                message.append( "\n  " ).append( failure.getMessage() );
+            }
+            throw new MojoExecutionException( message.toString(), failures.get( 0 ) );
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,254 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Journal of the use of the local repository by the goals of this plugin. Each line records the time a version
+ * directory of the repository was used, as <code>&lt;time in ms&gt; &lt;relative path&gt;</code>. Lines are only
+ * appended, in a single write per goal execution, so that concurrent builds sharing a repository don't corrupt it.
+ * Appending and compacting the journal hold a lock on a <code>.dependency-usage.lock</code> file, so that the lines
+ * appended while the journal is compacted are not lost.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class RepositoryUsageJournal
+{
+    public static final String JOURNAL_NAME = ".dependency-usage";
+
+    /**
+     * Serializes the threads of this process, a file lock being held on behalf of the whole process.
+     */
+    private static final Object PROCESS_LOCK = new Object();
+
+    private final File repositoryDirectory;
+
+    private final File journal;
+
+    private final File lockFile;
+
+    public RepositoryUsageJournal( File theRepositoryDirectory )
+    {
+        this.repositoryDirectory = theRepositoryDirectory;
+        this.journal = new File( theRepositoryDirectory, JOURNAL_NAME );
+        this.lockFile = new File( theRepositoryDirectory, JOURNAL_NAME + ".lock" );
+    }
+
+    /**
+     * Records the use of the artifacts, ignoring the ones which are not stored in the repository.
+     *
+     * @param artifacts the used artifacts.
+     * @throws IOException if the journal can not be written.
+     */
+    public void record( Collection<Artifact> artifacts )
+        throws IOException
+    {
+        Map<String, Long> usages = new HashMap<String, Long>();
+        Long now = Long.valueOf( System.currentTimeMillis() );
+        for ( Artifact artifact : artifacts )
+        {
+            if ( artifact.getFile() != null )
+            {
+                String path = getRelativePath( artifact.getFile().getParentFile() );
+                if ( path != null )
+                {
+                    usages.put( path, now );
+                }
+            }
+        }
+        append( usages );
+    }
+
+    /**
+     * Reads the journal.
+     *
+     * @return the time of the last use of each recorded directory, keyed by path relative to the repository.
+     * @throws IOException if the journal can not be read.
+     */
+    public Map<String, Long> read()
+        throws IOException
+    {
+        Map<String, Long> usages = new HashMap<String, Long>();
+        if ( !journal.exists() )
+        {
+            return usages;
+        }
+
+        BufferedReader reader = new BufferedReader( new InputStreamReader( new FileInputStream( journal ), "UTF-8" ) );
+        try
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                int index = line.indexOf( ' ' );
+                if ( index > 0 )
+                {
+                    try
+                    {
+                        Long time = Long.valueOf( line.substring( 0, index ) );
+                        String path = line.substring( index + 1 );
+                        Long previous = usages.get( path );
+                        if ( previous == null || previous.longValue() < time.longValue() )
+                        {
+                            usages.put( path, time );
+                        }
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        // a line truncated by a crash, ignore it
+                    }
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+        return usages;
+    }
+
+    /**
+     * Compacts the journal after directories were removed from the repository: the journal is read again and
+     * rewritten, under the lock, with the last use of each directory but the removed ones. A removed directory used
+     * again since the time it was removed for is kept.
+     *
+     * @param removed the time of the last use of each removed directory, keyed by relative path.
+     * @throws IOException if the journal can not be read or written.
+     */
+    public void compact( Map<String, Long> removed )
+        throws IOException
+    {
+        synchronized ( PROCESS_LOCK )
+        {
+            RandomAccessFile lock = lock();
+            try
+            {
+                Map<String, Long> usages = read();
+                for ( Map.Entry<String, Long> entry : removed.entrySet() )
+                {
+                    Long lastUse = usages.get( entry.getKey() );
+                    if ( lastUse != null && lastUse.longValue() <= entry.getValue().longValue() )
+                    {
+                        usages.remove( entry.getKey() );
+                    }
+                }
+                write( journal, usages, false );
+            }
+            finally
+            {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * @param directory a directory of the repository.
+     * @return the path of the directory relative to the repository, with <code>/</code> separators, or
+     *         <code>null</code> if it is not inside the repository.
+     */
+    public String getRelativePath( File directory )
+    {
+        String base = repositoryDirectory.getAbsolutePath() + File.separator;
+        String path = directory.getAbsolutePath();
+        if ( !path.startsWith( base ) )
+        {
+            return null;
+        }
+        return path.substring( base.length() ).replace( File.separatorChar, '/' );
+    }
+
+    private void append( Map<String, Long> usages )
+        throws IOException
+    {
+        if ( !usages.isEmpty() )
+        {
+            synchronized ( PROCESS_LOCK )
+            {
+                RandomAccessFile lock = lock();
+                try
+                {
+                    write( journal, usages, true );
+                }
+                finally
+                {
+                    lock.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Locks the journal against the other processes, waiting for them to release it.
+     *
+     * @return the lock file, which releases the lock when closed.
+     */
+    private RandomAccessFile lock()
+        throws IOException
+    {
+        repositoryDirectory.mkdirs();
+        RandomAccessFile file = new RandomAccessFile( lockFile, "rw" );
+        try
+        {
+            file.getChannel().lock();
+            return file;
+        }
+        catch ( IOException e )
+        {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static void write( File file, Map<String, Long> usages, boolean append )
+        throws IOException
+    {
+        StringBuffer buffer = new StringBuffer();
+        for ( Map.Entry<String, Long> usage : usages.entrySet() )
+        {
+            buffer.append( usage.getValue() ).append( ' ' ).append( usage.getKey() ).append( '\n' );
+        }
+
+        OutputStream out = OutputFiles.openStream( file, append );
+        try
+        {
+            // a single write, appended atomically by the file system
+            out.write( buffer.toString().getBytes( "UTF-8" ) );
+            OutputFiles.commit( out );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.WriterFactory;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.codehaus.plexus.util.xml.Xpp3DomWriter;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Trims the version directory of a snapshot in the local repository, keeping the newest timestamped builds of each
+ * classifier. The files of a directory are listed once, and the entries of the deleted builds are removed from the
+ * <code>maven-metadata-local.xml</code> file. The metadata of the remote repositories is left untouched, as it records
+ * what these repositories published.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class SnapshotRetention
+{
+    private static final Pattern BUILD_PATTERN = Pattern.compile( "(\\d{8}\\.\\d{6})-(\\d+)(.*)" );
+
+    private static final Pattern SNAPSHOT_VERSION_PATTERN = Pattern.compile( ".*-(\\d{8}\\.\\d{6})-(\\d+)" );
+
+    private static final String LOCAL_METADATA = "maven-metadata-local.xml";
+
+    private final int keep;
+
+    /**
+     * A timestamped build of a snapshot, ordered from the newest.
+     */
+    static class Build
+        implements Comparable<Build>
+    {
+        final String timestamp;
+
+        final int buildNumber;
+
+        Build( String theTimestamp, int theBuildNumber )
+        {
+            this.timestamp = theTimestamp;
+            this.buildNumber = theBuildNumber;
+        }
+
+        public int compareTo( Build other )
+        {
+            int result = other.timestamp.compareTo( timestamp );
+            return result != 0 ? result : other.buildNumber - buildNumber;
+        }
+
+        public boolean equals( Object o )
+        {
+            return o instanceof Build && compareTo( (Build) o ) == 0;
+        }
+
+        public int hashCode()
+        {
+            return timestamp.hashCode() * 31 + buildNumber;
+        }
+
+        public String toString()
+        {
+            return timestamp + "-" + buildNumber;
+        }
+    }
+
+    /**
+     * @param theKeep the number of timestamped builds to keep per classifier.
+     */
+    public SnapshotRetention( int theKeep )
+    {
+        this.keep = theKeep;
+    }
+
+    /**
+     * Deletes the timestamped files of the version directory of a snapshot but the newest ones of each classifier.
+     *
+     * @param versionDirectory the version directory, e.g. <code>.../artifactId/1.0-SNAPSHOT</code>.
+     * @param artifactId the artifactId of the snapshot.
+     * @return the number of bytes freed.
+     * @throws IOException if the metadata can not be updated.
+     */
+    public long trim( File versionDirectory, String artifactId )
+        throws IOException
+    {
+        File[] files = versionDirectory.listFiles();
+        if ( files == null )
+        {
+            return 0;
+        }
+
+        String version = versionDirectory.getName();
+        String prefix = artifactId + "-" + version.substring( 0, version.length() - "-SNAPSHOT".length() ) + "-";
+
+        // one pass over the directory: group the timestamped files by classifier and build
+        Map<String, Map<Build, List<File>>> buildsByClassifier = new HashMap<String, Map<Build, List<File>>>();
+        for ( File file : files )
+        {
+            String name = file.getName();
+            if ( !file.isFile() || !name.startsWith( prefix ) )
+            {
+                continue;
+            }
+
+            Matcher matcher = BUILD_PATTERN.matcher( name.substring( prefix.length() ) );
+            if ( !matcher.matches() )
+            {
+                continue;
+            }
+            Build build = new Build( matcher.group( 1 ), Integer.parseInt( matcher.group( 2 ) ) );
+            String classifier = getClassifier( matcher.group( 3 ) );
+
+            Map<Build, List<File>> builds = buildsByClassifier.get( classifier );
+            if ( builds == null )
+            {
+                builds = new HashMap<Build, List<File>>();
+                buildsByClassifier.put( classifier, builds );
+            }
+            List<File> buildFiles = builds.get( build );
+            if ( buildFiles == null )
+            {
+                buildFiles = new ArrayList<File>();
+                builds.put( build, buildFiles );
+            }
+            buildFiles.add( file );
+        }
+
+        long freed = 0;
+        Map<String, List<Build>> deletedBuilds = new HashMap<String, List<Build>>();
+        for ( Map.Entry<String, Map<Build, List<File>>> entry : buildsByClassifier.entrySet() )
+        {
+            Map<Build, List<File>> builds = entry.getValue();
+            List<Build> sorted = new ArrayList<Build>( builds.keySet() );
+            Collections.sort( sorted );
+            if ( sorted.size() > keep )
+            {
+                deletedBuilds.put( entry.getKey(), sorted.subList( keep, sorted.size() ) );
+            }
+            for ( int i = keep; i < sorted.size(); i++ )
+            {
+                for ( File file : builds.get( sorted.get( i ) ) )
+                {
+                    long length = file.length();
+                    if ( file.delete() )
+                    {
+                        freed += length;
+                    }
+                }
+            }
+        }
+
+        File metadataFile = new File( versionDirectory, LOCAL_METADATA );
+        if ( freed > 0 && metadataFile.isFile() )
+        {
+            updateMetadata( metadataFile, deletedBuilds );
+        }
+        return freed;
+    }
+
+    /**
+     * @param suffix what follows the build number in a file name, e.g. <code>-sources.jar.sha1</code>.
+     * @return the classifier, or an empty string.
+     */
+    static String getClassifier( String suffix )
+    {
+        if ( !suffix.startsWith( "-" ) )
+        {
+            return "";
+        }
+        int index = suffix.indexOf( '.' );
+        return index > 0 ? suffix.substring( 1, index ) : suffix.substring( 1 );
+    }
+
+    /**
+     * Removes the <code>snapshotVersion</code> entries of the deleted builds from the local metadata file.
+     */
+    private void updateMetadata( File metadataFile, Map<String, List<Build>> deletedBuilds )
+        throws IOException
+    {
+        Xpp3Dom metadata;
+        Reader reader = ReaderFactory.newXmlReader( metadataFile );
+        try
+        {
+            metadata = Xpp3DomBuilder.build( reader );
+        }
+        catch ( XmlPullParserException e )
+        {
+            throw new IOException( "Couldn't parse " + metadataFile + ": " + e.getMessage() );
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+
+        Xpp3Dom versioning = metadata.getChild( "versioning" );
+        if ( versioning == null )
+        {
+            return;
+        }
+
+        boolean changed = false;
+        Xpp3Dom snapshotVersions = versioning.getChild( "snapshotVersions" );
+        if ( snapshotVersions != null )
+        {
+            for ( int i = snapshotVersions.getChildCount() - 1; i >= 0; i-- )
+            {
+                Xpp3Dom snapshotVersion = snapshotVersions.getChild( i );
+                Xpp3Dom classifier = snapshotVersion.getChild( "classifier" );
+                Xpp3Dom value = snapshotVersion.getChild( "value" );
+                if ( value != null
+                    && isDeletedBuild( value.getValue(), deletedBuilds.get( classifier == null ? ""
+                                    : classifier.getValue() ) ) )
+                {
+                    snapshotVersions.removeChild( i );
+                    changed = true;
+                }
+            }
+        }
+
+        if ( changed )
+        {
+            Xpp3Dom lastUpdated = versioning.getChild( "lastUpdated" );
+            if ( lastUpdated != null )
+            {
+                SimpleDateFormat format = new SimpleDateFormat( "yyyyMMddHHmmss" );
+                format.setTimeZone( TimeZone.getTimeZone( "UTC" ) );
+                lastUpdated.setValue( format.format( new Date() ) );
+            }
+
+            Writer writer = WriterFactory.newXmlWriter( metadataFile );
+            try
+            {
+                Xpp3DomWriter.write( writer, metadata );
+            }
+            finally
+            {
+                IOUtil.close( writer );
+            }
+        }
+    }
+
+    /**
+     * @param value a snapshot version, e.g. <code>1.0-20110101.120000-3</code>.
+     * @param deleted the deleted builds of the classifier, <code>null</code> if none was deleted.
+     */
+    private static boolean isDeletedBuild( String value, List<Build> deleted )
+    {
+        Matcher matcher = SNAPSHOT_VERSION_PATTERN.matcher( value );
+        if ( !matcher.matches() || deleted == null )
+        {
+            return false;
+        }
+        return deleted.contains( new Build( matcher.group( 1 ), Integer.parseInt( matcher.group( 2 ) ) ) );
+    }
+}
@@ -0,0 +1,178 @@
+package org.apache.maven.plugin.dependency.utils.filters;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+/**
+ * Includes or excludes artifacts matching <code>groupId:artifactId:type:version</code> patterns, with the semantics of
+ * the strict pattern filters of maven-common-artifact-filters. The patterns are parsed once when the filter is built
+ * rather than for every artifact.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class CompiledPatternArtifactFilter
+    implements ArtifactFilter
+{
+    /**
+     * A parsed pattern token.
+     */
+    private static class Token
+    {
+        private static final int ANY = 0;
+
+        private static final int CONTAINS = 1;
+
+        private static final int ENDS_WITH = 2;
+
+        private static final int STARTS_WITH = 3;
+
+        private static final int RANGE = 4;
+
+        private static final int EQUALS = 5;
+
+        private final int kind;
+
+        private final String value;
+
+        private final VersionRange range;
+
+        Token( String pattern )
+        {
+            VersionRange versionRange = null;
+            if ( "*".equals( pattern ) || pattern.length() == 0 )
+            {
+                kind = ANY;
+                value = pattern;
+            }
+            else if ( pattern.startsWith( "*" ) && pattern.endsWith( "*" ) )
+            {
+                kind = CONTAINS;
+                value = pattern.substring( 1, pattern.length() - 1 );
+            }
+            else if ( pattern.startsWith( "*" ) )
+            {
+                kind = ENDS_WITH;
+                value = pattern.substring( 1 );
+            }
+            else if ( pattern.endsWith( "*" ) )
+            {
+                kind = STARTS_WITH;
+                value = pattern.substring( 0, pattern.length() - 1 );
+            }
+            else if ( pattern.startsWith( "[" ) || pattern.startsWith( "(" ) )
+            {
+                kind = RANGE;
+                value = pattern;
+                try
+                {
+                    versionRange = VersionRange.createFromVersionSpec( pattern );
+                }
+                catch ( InvalidVersionSpecificationException e )
+                {
+                    // matches nothing
+                }
+            }
+            else
+            {
+                kind = EQUALS;
+                value = pattern;
+            }
+            range = versionRange;
+        }
+
+        boolean matches( String token )
+        {
+            switch ( kind )
+            {
+                case ANY:
+                    return true;
+                case CONTAINS:
+                    return token.indexOf( value ) != -1;
+                case ENDS_WITH:
+                    return token.endsWith( value );
+                case STARTS_WITH:
+                    return token.startsWith( value );
+                case RANGE:
+                    return range != null && range.containsVersion( new DefaultArtifactVersion( token ) );
+                default:
+                    return token.equals( value );
+            }
+        }
+    }
+
+    private final List<Token[]> patterns = new ArrayList<Token[]>();
+
+    private final boolean include;
+
+    /**
+     * @param thePatterns the <code>groupId:artifactId:type:version</code> patterns, whose tokens can start and/or end
+     *            with <code>*</code>, the version token being possibly a range.
+     * @param theInclude whether the matching artifacts are included, or excluded.
+     */
+    public CompiledPatternArtifactFilter( List<String> thePatterns, boolean theInclude )
+    {
+        for ( String pattern : thePatterns )
+        {
+            String[] tokens = pattern.split( ":" );
+            if ( tokens.length > 4 )
+            {
+                // can't match the 4 tokens of an artifact
+                continue;
+            }
+            Token[] compiled = new Token[tokens.length];
+            for ( int i = 0; i < tokens.length; i++ )
+            {
+                compiled[i] = new Token( tokens[i] );
+            }
+            patterns.add( compiled );
+        }
+        this.include = theInclude;
+    }
+
+    public boolean include( Artifact artifact )
+    {
+        String[] tokens = null;
+        boolean matched = false;
+        for ( int i = 0; i < patterns.size() && !matched; i++ )
+        {
+            if ( tokens == null )
+            {
+                tokens = new String[] { artifact.getGroupId(), artifact.getArtifactId(), artifact.getType(),
+                    artifact.getBaseVersion() };
+            }
+            Token[] pattern = patterns.get( i );
+            matched = true;
+            for ( int j = 0; j < pattern.length && matched; j++ )
+            {
+                matched = pattern[j].matches( tokens[j] );
+            }
+        }
+        return include ? matched : !matched;
+    }
+}
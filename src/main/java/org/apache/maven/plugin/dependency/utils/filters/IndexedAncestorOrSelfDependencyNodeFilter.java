@@ -0,0 +1,100 @@
+package org.apache.maven.plugin.dependency.utils.filters;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.filter.DependencyNodeFilter;
+
+/**
+ * Accepts the nodes of a tree matching a filter, and their ancestors. The tree is indexed in a single traversal: each
+ * node gets an index and the index of its parent, and a matching node marks itself and its ancestors as kept, stopping
+ * at the first ancestor already kept. Accepting a node is then a lookup, whatever the number of matching nodes.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class IndexedAncestorOrSelfDependencyNodeFilter
+    implements DependencyNodeFilter
+{
+    private final Map<DependencyNode, Integer> indexes = new IdentityHashMap<DependencyNode, Integer>();
+
+    private boolean[] kept;
+
+    /**
+     * @param rootNode the root of the tree.
+     * @param filter the filter selecting the nodes to keep along with their ancestors.
+     */
+    public IndexedAncestorOrSelfDependencyNodeFilter( DependencyNode rootNode, DependencyNodeFilter filter )
+    {
+        int[] parents = new int[64];
+        kept = new boolean[64];
+
+        // depth first, without recursion as verbose trees can be deep
+        List<DependencyNode> stack = new ArrayList<DependencyNode>();
+        List<Integer> stackParents = new ArrayList<Integer>();
+        stack.add( rootNode );
+        stackParents.add( Integer.valueOf( -1 ) );
+        int count = 0;
+        while ( !stack.isEmpty() )
+        {
+            DependencyNode node = stack.remove( stack.size() - 1 );
+            int parent = stackParents.remove( stackParents.size() - 1 ).intValue();
+
+            int index = count++;
+            if ( index == parents.length )
+            {
+                int[] newParents = new int[index * 2];
+                System.arraycopy( parents, 0, newParents, 0, index );
+                parents = newParents;
+                boolean[] newKept = new boolean[index * 2];
+                System.arraycopy( kept, 0, newKept, 0, index );
+                kept = newKept;
+            }
+            parents[index] = parent;
+            indexes.put( node, Integer.valueOf( index ) );
+
+            if ( filter.accept( node ) )
+            {
+                for ( int i = index; i >= 0 && !kept[i]; i = parents[i] )
+                {
+                    kept[i] = true;
+                }
+            }
+
+            List<DependencyNode> children = node.getChildren();
+            for ( int i = children.size() - 1; i >= 0; i-- )
+            {
+                stack.add( children.get( i ) );
+                stackParents.add( Integer.valueOf( index ) );
+            }
+        }
+    }
+
+    public boolean accept( DependencyNode node )
+    {
+        Integer index = indexes.get( node );
+        return index != null && kept[index.intValue()];
+    }
+}
@@ -79,25 +79,23 @@ public class DefaultFileMarkerHandler
     public boolean isMarkerOlder( Artifact artifact1 )
         throws MojoExecutionException
     {
-        // temporary debug to find out why this intermittent failure on Sonatype grid Windows
-        System.out.println( "> isMarkerOlder:" );
-        File marker = getMarkerFile();
-        System.out.println( "  artifact1 = " + artifact1.getFile().getPath() );
-        System.out.println( "  marker    = " + marker.getPath() );
-        if ( marker.exists() )
-        {
-            System.out.println( "    artifact1 lastModified: " + artifact1.getFile().lastModified() );
-            System.out.println( "    marker lastModified: " + marker.lastModified() );
-            System.out.println( "< " + ( artifact1.getFile().lastModified() > marker.lastModified() ) + " = marker older than artifact?"  );
-            return artifact1.getFile().lastModified() > marker.lastModified();
-        }
-        else
+        return isOlder( getMarkerFile(), artifact1 );
+    }
+
+    /**
+     * Compares a marker to an artifact, reading the time of the marker once as it may be set or cleared concurrently
+     * by another build.
+     * 
+     * @return whether the marker is older than the artifact, a missing marker being infinitely older.
+     */
+    protected static boolean isOlder( File marker, Artifact theArtifact )
+    {
+        long markerModified = marker.lastModified();
+        if ( markerModified == 0 && !marker.exists() )
         {
-            System.out.println( "< true : marker does not exist" );
-            // if the marker doesn't exist, we want to copy so assume it is
-            // infinitely older
             return true;
         }
+        return theArtifact.getFile().lastModified() > markerModified;
     }
 
     public void setMarker()
@@ -104,24 +104,11 @@ public class SourcesFileMarkerHandler
         throws MojoExecutionException
     {
         File marker = getMarkerFile();
-        if ( marker.exists() )
-        {
-            return theArtifact.getFile().lastModified() > marker.lastModified();
-        }
-        else
+        if ( !marker.exists() )
         {
             marker = getMarkerFile( !this.resolved );
-            if ( marker.exists() )
-            {
-                return theArtifact.getFile().lastModified() > marker.lastModified();
-            }
-            else
-            {
-                // if the marker doesn't exist, we want to copy so assume it is
-                // infinitely older
-                return true;
-            }
         }
+        return isOlder( marker, theArtifact );
     }
 
     public void setMarker()
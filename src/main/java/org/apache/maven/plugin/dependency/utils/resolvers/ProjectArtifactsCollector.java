@@ -0,0 +1,134 @@
+package org.apache.maven.plugin.dependency.utils.resolvers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
+import org.apache.maven.artifact.resolver.ArtifactResolutionException;
+import org.apache.maven.artifact.resolver.ArtifactResolutionResult;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.artifact.InvalidDependencyVersionException;
+
+/**
+ * Computes the transitive dependency set of a project from the repository metadata (POMs) only. The returned
+ * artifacts carry their resolved version and scope, but their files are neither downloaded nor set.
+ *
+ * @version $Id$
+ * @since 2.5
+ */
+public class ProjectArtifactsCollector
+{
+    ArtifactCollector collector;
+
+    ArtifactFactory factory;
+
+    ArtifactMetadataSource metadataSource;
+
+    ArtifactRepository local;
+
+    public ProjectArtifactsCollector( ArtifactCollector theCollector, ArtifactFactory theFactory,
+                                      ArtifactMetadataSource theMetadataSource, ArtifactRepository theLocal )
+    {
+        this.collector = theCollector;
+        this.factory = theFactory;
+        this.metadataSource = theMetadataSource;
+        this.local = theLocal;
+    }
+
+    /**
+     * Returns the transitive dependencies of the project. If Maven already provided them for the current goal they
+     * are returned as is, otherwise they are collected from the POMs.
+     *
+     * @param project the project whose dependencies are returned.
+     * @return the dependency artifacts of the project.
+     * @throws MojoExecutionException if the graph can not be computed.
+     */
+    public Set<Artifact> getArtifacts( MavenProject project )
+        throws MojoExecutionException
+    {
+        Set<Artifact> artifacts = project.getArtifacts();
+        if ( artifacts.isEmpty() && !project.getDependencies().isEmpty() )
+        {
+            artifacts = collect( project, null );
+        }
+        return artifacts;
+    }
+
+    /**
+     * Collects the dependencies of the project.
+     *
+     * @param project the project whose dependencies are collected.
+     * @param filter the filter applied while walking the graph, may be <code>null</code>.
+     * @return the collected artifacts, in traversal order.
+     * @throws MojoExecutionException if the graph can not be computed.
+     */
+    public Set<Artifact> collect( MavenProject project, ArtifactFilter filter )
+        throws MojoExecutionException
+    {
+        Set<Artifact> artifacts = collectResult( project, filter ).getArtifacts();
+        return new LinkedHashSet<Artifact>( artifacts );
+    }
+
+    /**
+     * Collects the dependency graph of the project. If the direct dependency artifacts of the project have not been
+     * created yet (Maven did not resolve anything for the current goal), they are created and stored in the project.
+     *
+     * @param project the project whose dependencies are collected.
+     * @param filter the filter applied while walking the graph, may be <code>null</code>.
+     * @return the collection result, giving access to the resolution nodes.
+     * @throws MojoExecutionException if the graph can not be computed.
+     */
+    public ArtifactResolutionResult collectResult( MavenProject project, ArtifactFilter filter )
+        throws MojoExecutionException
+    {
+        try
+        {
+            Set<Artifact> dependencyArtifacts = project.getDependencyArtifacts();
+            if ( dependencyArtifacts == null )
+            {
+                dependencyArtifacts = project.createArtifacts( factory, null, null );
+                project.setDependencyArtifacts( dependencyArtifacts );
+            }
+
+            return collector.collect( dependencyArtifacts, project.getArtifact(), project.getManagedVersionMap(),
+                                      local, project.getRemoteArtifactRepositories(), metadataSource, filter,
+                                      Collections.EMPTY_LIST );
+        }
+        catch ( InvalidDependencyVersionException e )
+        {
+            throw new MojoExecutionException( "Invalid dependency version in " + project.getId() + ": "
+                + e.getMessage(), e );
+        }
+        catch ( ArtifactResolutionException e )
+        {
+            throw new MojoExecutionException( "Unable to collect dependencies of " + project.getId() + ": "
+                + e.getMessage(), e );
+        }
+    }
+}
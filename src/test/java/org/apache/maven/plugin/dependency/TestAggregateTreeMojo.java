@@ -0,0 +1,132 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.ArtifactCollector;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.dependency.utils.CachingArtifactMetadataSource;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.DependencyTree;
+import org.apache.maven.shared.dependency.tree.DependencyTreeBuilder;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestAggregateTreeMojo
+    extends AbstractDependencyMojoTestCase
+{
+    AggregateTreeMojo mojo;
+
+    List<MavenProject> projects = new ArrayList<MavenProject>();
+
+    protected void setUp()
+        throws Exception
+    {
+        // required for mojo lookups to work
+        super.setUp( "aggregate-tree", false );
+
+        File testPom = new File( getBasedir(), "target/test-classes/unit/default-test/plugin-config.xml" );
+        mojo = (AggregateTreeMojo) lookupMojo( "aggregate-tree", testPom );
+        assertNotNull( mojo );
+        setVariableValueToObject( mojo, "threads", new Integer( 2 ) );
+
+        // parent aggregates a and b, both depending on shared
+        projects.add( createProject( "parent" ) );
+        projects.add( createProject( "a" ) );
+        projects.add( createProject( "b" ) );
+        setVariableValueToObject( mojo, "project", projects.get( 0 ) );
+        setVariableValueToObject( mojo, "reactorProjects", projects );
+        setVariableValueToObject( mojo, "dependencyTreeBuilder", new DependencyTreeBuilder()
+        {
+            public DependencyNode buildDependencyTree( MavenProject project, ArtifactRepository repository,
+                                                       ArtifactFactory factory, ArtifactMetadataSource metadataSource,
+                                                       ArtifactFilter filter, ArtifactCollector collector )
+            {
+                assertTrue( metadataSource instanceof CachingArtifactMetadataSource );
+                DependencyNode rootNode = new DependencyNode( project.getArtifact() );
+                if ( !"parent".equals( project.getArtifactId() ) )
+                {
+                    try
+                    {
+                        rootNode.addChild( new DependencyNode( stubFactory.createArtifact( "test", "shared", "1.0" ) ) );
+                    }
+                    catch ( Exception e )
+                    {
+                        fail( e.getMessage() );
+                    }
+                }
+                return rootNode;
+            }
+
+            public DependencyTree buildDependencyTree( MavenProject project, ArtifactRepository repository,
+                                                       ArtifactFactory factory, ArtifactMetadataSource metadataSource,
+                                                       ArtifactCollector collector )
+            {
+                throw new UnsupportedOperationException();
+            }
+        } );
+    }
+
+    public void testMerged()
+        throws Exception
+    {
+        File outputFile = new File( testDir, "tree.tgf" );
+        setVariableValueToObject( mojo, "outputType", "tgf" );
+        setVariableValueToObject( mojo, "outputFile", outputFile );
+        mojo.execute();
+
+        String tgf = FileUtils.fileRead( outputFile ).replaceAll( "\r\n", "\n" );
+        assertEquals( "0 test:parent:jar:1.0\n1 test:a:jar:1.0\n2 test:shared:jar:1.0\n3 test:b:jar:1.0\n#\n"
+            + "0 1 compile\n1 2 compile\n0 3 compile\n3 2 compile\n", tgf );
+    }
+
+    public void testPerModule()
+        throws Exception
+    {
+        File outputDirectory = new File( testDir, "trees" );
+        setVariableValueToObject( mojo, "merge", Boolean.FALSE );
+        setVariableValueToObject( mojo, "outputDirectory", outputDirectory );
+        mojo.execute();
+
+        assertEquals( "test:parent:jar:1.0:compile", FileUtils.fileRead( new File( outputDirectory, "parent.txt" ) ).trim() );
+        String tree = FileUtils.fileRead( new File( outputDirectory, "a.txt" ) );
+        assertTrue( tree, tree.indexOf( "test:shared:jar:1.0" ) > 0 );
+        assertTrue( new File( outputDirectory, "b.txt" ).exists() );
+    }
+
+    private MavenProject createProject( String artifactId )
+        throws Exception
+    {
+        Model model = new Model();
+        model.setGroupId( "test" );
+        model.setArtifactId( artifactId );
+        model.setVersion( "1.0" );
+        MavenProject project = new MavenProject( model );
+        project.setArtifact( stubFactory.createArtifact( "test", artifactId, "1.0" ) );
+        return project;
+    }
+}
@@ -20,13 +20,22 @@ package org.apache.maven.plugin.dependency;
  */
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
 import org.apache.maven.plugin.dependency.utils.DependencyUtil;
+import org.apache.maven.plugin.dependency.utils.DigestWriter;
 import org.apache.maven.plugin.testing.stubs.StubArtifactRepository;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
 
 public class TestBuildClasspathMojo
     extends AbstractDependencyMojoTestCase
@@ -161,4 +170,178 @@ public class TestBuildClasspathMojo
         assertEquals( "prefix" + File.separator + DependencyUtil.getFormattedFileName( artifact, true ), sb.toString() );
         
     }
+
+    public void testPathingJarAndArgFile()
+        throws Exception
+    {
+        File testPom = new File( getBasedir(), "target/test-classes/unit/build-classpath-test/plugin-config.xml" );
+        BuildClasspathMojo mojo = (BuildClasspathMojo) lookupMojo( "build-classpath", testPom );
+        MavenProject project = mojo.getProject();
+        Set<Artifact> artifacts = this.stubFactory.getReleaseAndSnapshotArtifacts();
+        project.setArtifacts( artifacts );
+        project.setDependencyArtifacts( artifacts );
+
+        File pathingJar = new File( testDir, "lib/pathing.jar" );
+        File argFile = new File( testDir, "java.args" );
+        setVariableValueToObject( mojo, "pathingJar", pathingJar );
+        setVariableValueToObject( mojo, "argFile", argFile );
+        mojo.execute();
+
+        JarFile jar = new JarFile( pathingJar );
+        String classPath;
+        try
+        {
+            classPath = jar.getManifest().getMainAttributes().getValue( Attributes.Name.CLASS_PATH );
+        }
+        finally
+        {
+            jar.close();
+        }
+        String[] entries = classPath.split( " " );
+        assertEquals( artifacts.size(), entries.length );
+        for ( Artifact artifact : artifacts )
+        {
+            String entry = BuildClasspathMojo.getRelativeUri( pathingJar.getParentFile(), artifact.getFile(), false );
+            assertTrue( entry.startsWith( "../" ) );
+            assertTrue( classPath.indexOf( entry ) >= 0 );
+        }
+
+        String args = FileUtils.fileRead( argFile );
+        assertTrue( args.startsWith( "-classpath\n\"" ) );
+        for ( Artifact artifact : artifacts )
+        {
+            assertTrue( args.indexOf( artifact.getFile().getName() ) >= 0 );
+        }
+    }
+
+    public void testPackageIndex()
+        throws Exception
+    {
+        File testPom = new File( getBasedir(), "target/test-classes/unit/build-classpath-test/plugin-config.xml" );
+        BuildClasspathMojo mojo = (BuildClasspathMojo) lookupMojo( "build-classpath", testPom );
+        MavenProject project = mojo.getProject();
+        Artifact artifact = stubFactory.createArtifact( "group", "a", "1.0" );
+        artifact.setFile( createJar( new File( testDir, "repo/a-1.0.jar" ), "org/a/A.class" ) );
+        Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+        artifacts.add( artifact );
+        project.setArtifacts( artifacts );
+        project.setDependencyArtifacts( artifacts );
+
+        File pathingJar = new File( testDir, "lib/pathing.jar" );
+        File packageIndex = new File( testDir, "index/INDEX.LIST" );
+        setVariableValueToObject( mojo, "pathingJar", pathingJar );
+        setVariableValueToObject( mojo, "packageIndex", packageIndex );
+        mojo.setLocal( new StubArtifactRepository( new File( testDir, "repo" ).getPath() ) );
+        mojo.setLocalRepoProperty( "${M2_REPO}" );
+        mojo.setCpFile( new File( testDir, "classpath.txt" ) );
+        mojo.execute();
+        assertTrue( FileUtils.fileRead( new File( testDir, "classpath.txt" ) ).startsWith( "${M2_REPO}" ) );
+
+        // the jars are named as in the Class-Path of the pathing jar, whatever the classpath string looks like
+        assertEquals( "JarIndex-Version: 1.0\n\n../repo/a-1.0.jar\norg/a\n\n", FileUtils.fileRead( packageIndex ) );
+    }
+
+    private static File createJar( File file, String entry )
+        throws Exception
+    {
+        file.getParentFile().mkdirs();
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( file ) );
+        try
+        {
+            out.putNextEntry( new ZipEntry( entry ) );
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    public void testRelativeUri()
+    {
+        File base = new File( testDir, "base" );
+        assertEquals( "../repo/a%20b/c.jar",
+                      BuildClasspathMojo.getRelativeUri( new File( base, "lib" ),
+                                                         new File( base, "repo/a b/c.jar" ), false ) );
+        assertEquals( "c.jar", BuildClasspathMojo.getRelativeUri( base, new File( base, "c.jar" ), false ) );
+        assertEquals( "classes/", BuildClasspathMojo.getRelativeUri( base, new File( base, "classes" ), true ) );
+        assertEquals( "../../classes/",
+                      BuildClasspathMojo.getRelativeUri( new File( base, "a/b" ), new File( base, "classes" ), true ) );
+    }
+
+    public void testEscapeArgument()
+    {
+        assertEquals( "a b:c", BuildClasspathMojo.escapeArgument( "a b:c" ) );
+        assertEquals( "C:\\\\a\\\\b.jar;\\\"q\\\"", BuildClasspathMojo.escapeArgument( "C:\\a\\b.jar;\"q\"" ) );
+    }
+
+    public void testScopes()
+        throws Exception
+    {
+        File testPom = new File( getBasedir(), "target/test-classes/unit/build-classpath-test/plugin-config.xml" );
+        BuildClasspathMojo mojo = (BuildClasspathMojo) lookupMojo( "build-classpath", testPom );
+        MavenProject project = mojo.getProject();
+        Set<Artifact> artifacts = this.stubFactory.getScopedArtifacts();
+        project.setArtifacts( artifacts );
+        project.setDependencyArtifacts( artifacts );
+
+        setVariableValueToObject( mojo, "scopes", "compile, test" );
+        mojo.setCpFile( new File( testDir, "classpath.txt" ) );
+        mojo.execute();
+
+        assertFalse( new File( testDir, "classpath.txt" ).exists() );
+        for ( String scope : new String[] { "compile", "test" } )
+        {
+            String classpath = FileUtils.fileRead( new File( testDir, "classpath-" + scope + ".txt" ) );
+            ScopeArtifactFilter filter = new ScopeArtifactFilter( scope );
+            for ( Artifact artifact : artifacts )
+            {
+                assertEquals( artifact.getId() + " in " + scope, filter.include( artifact ),
+                              classpath.indexOf( artifact.getFile().getPath() ) >= 0 );
+            }
+        }
+    }
+
+    public void testDigest()
+        throws Exception
+    {
+        File testPom = new File( getBasedir(), "target/test-classes/unit/build-classpath-test/plugin-config.xml" );
+        BuildClasspathMojo mojo = (BuildClasspathMojo) lookupMojo( "build-classpath", testPom );
+        MavenProject project = mojo.getProject();
+        Set<Artifact> artifacts = this.stubFactory.getReleaseAndSnapshotArtifacts();
+        project.setArtifacts( artifacts );
+        project.setDependencyArtifacts( artifacts );
+
+        File cpFile = new File( testDir, "digest/classpath.txt" );
+        File digestFile = BuildClasspathMojo.getDigestFile( cpFile );
+        mojo.setCpFile( cpFile );
+        mojo.execute();
+
+        String classpath = FileUtils.fileRead( cpFile );
+        DigestWriter digest = new DigestWriter();
+        digest.write( classpath );
+        assertEquals( digest.getDigest(), FileUtils.fileRead( digestFile ).trim() );
+
+        // the classpath file is not read when its digest is unchanged
+        FileUtils.fileWrite( cpFile.getPath(), "edited" );
+        mojo.execute();
+        assertEquals( "edited", FileUtils.fileRead( cpFile ) );
+
+        mojo.setRegenerateFile( true );
+        mojo.execute();
+        assertEquals( classpath, FileUtils.fileRead( cpFile ) );
+
+        mojo.setRegenerateFile( false );
+        mojo.setPrefix( "prefix" );
+        mojo.execute();
+        assertTrue( FileUtils.fileRead( cpFile ).startsWith( "prefix" ) );
+
+        // a missing digest rewrites the file
+        digestFile.delete();
+        FileUtils.fileWrite( cpFile.getPath(), "edited" );
+        mojo.execute();
+        assertTrue( FileUtils.fileRead( cpFile ).startsWith( "prefix" ) );
+        assertTrue( digestFile.exists() );
+    }
 }
@@ -0,0 +1,135 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.plugin.dependency.utils.FileHashIndex;
+import org.apache.maven.plugin.testing.stubs.StubArtifactRepository;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.Os;
+
+public class TestDedupLocalRepositoryMojo
+    extends AbstractDependencyMojoTestCase
+{
+    DedupLocalRepositoryMojo mojo;
+
+    File repository;
+
+    protected void setUp()
+        throws Exception
+    {
+        // required for mojo lookups to work
+        super.setUp( "dedup", false );
+
+        File testPom = new File( getBasedir(), "target/test-classes/unit/default-test/plugin-config.xml" );
+        mojo = (DedupLocalRepositoryMojo) lookupMojo( "dedup-local-repository", testPom );
+        assertNotNull( mojo );
+        setVariableValueToObject( mojo, "threads", Integer.valueOf( 2 ) );
+
+        repository = new File( testDir, "repository" );
+        setVariableValueToObject( mojo, "localRepository", new StubArtifactRepository( repository.getPath() ) );
+    }
+
+    public void testDedup()
+        throws Exception
+    {
+        String content = new String( new char[2048] ).replace( '\0', 'a' );
+        File original = createFile( "org/test/a/1.0/a-1.0.jar", content );
+        File copy = createFile( "org/relocated/a/1.0/a-1.0.jar", content );
+        File other = createFile( "org/test/b/1.0/b-1.0.jar", content.replace( 'a', 'b' ) );
+        File small = createFile( "org/test/b/1.0/b-1.0.pom", "<project/>" );
+
+        setVariableValueToObject( mojo, "dryRun", Boolean.TRUE );
+        mojo.execute();
+
+        FileHashIndex index = new FileHashIndex( new File( repository, DedupLocalRepositoryMojo.INDEX_FILE_NAME ) );
+        index.load();
+        assertEquals( FileHashIndex.hash( original ), index.get( "org/test/a/1.0/a-1.0.jar" ).getHash() );
+        assertEquals( FileHashIndex.hash( original ), index.get( "org/relocated/a/1.0/a-1.0.jar" ).getHash() );
+        assertNotNull( index.get( "org/test/b/1.0/b-1.0.jar" ) );
+        assertNull( index.get( "org/test/b/1.0/b-1.0.pom" ) );
+        assertNull( index.get( "org/relocated/a/1.0/a-1.0.jar" ).getLinkedTo() );
+
+        if ( Os.isFamily( Os.FAMILY_WINDOWS ) )
+        {
+            // mklink requires privileges the build may not have
+            return;
+        }
+
+        setVariableValueToObject( mojo, "dryRun", Boolean.FALSE );
+        mojo.execute();
+
+        index.load();
+        assertEquals( "org/relocated/a/1.0/a-1.0.jar", index.get( "org/test/a/1.0/a-1.0.jar" ).getLinkedTo() );
+        assertEquals( content, FileUtils.fileRead( original ) );
+        assertTrue( other.exists() );
+        assertTrue( small.exists() );
+
+        // both paths now share their content
+        FileUtils.fileWrite( copy.getPath(), content.replace( 'a', 'c' ) );
+        assertEquals( content.replace( 'a', 'c' ), FileUtils.fileRead( original ) );
+    }
+
+    /**
+     * The snapshot file Maven installs in place on each build is not linked to its identical timestamped build, which
+     * the next install would otherwise overwrite.
+     */
+    public void testSnapshotNotLinked()
+        throws Exception
+    {
+        String content = new String( new char[2048] ).replace( '\0', 'a' );
+        File timestamped = createFile( "org/test/a/1.0-SNAPSHOT/a-1.0-20110101.120000-1.jar", content );
+        File snapshot = createFile( "org/test/a/1.0-SNAPSHOT/a-1.0-SNAPSHOT.jar", content );
+        String metadata = "<metadata>" + content + "</metadata>";
+        createFile( "org/test/a/1.0-SNAPSHOT/maven-metadata-local.xml", metadata );
+        createFile( "org/test/b/1.0-SNAPSHOT/maven-metadata-local.xml", metadata );
+
+        mojo.execute();
+
+        FileHashIndex index = new FileHashIndex( new File( repository, DedupLocalRepositoryMojo.INDEX_FILE_NAME ) );
+        index.load();
+        assertNotNull( index.get( "org/test/a/1.0-SNAPSHOT/a-1.0-20110101.120000-1.jar" ) );
+        assertNull( index.get( "org/test/a/1.0-SNAPSHOT/a-1.0-SNAPSHOT.jar" ) );
+        assertNull( index.get( "org/test/a/1.0-SNAPSHOT/maven-metadata-local.xml" ) );
+
+        // installing the next build leaves the timestamped one untouched
+        FileUtils.fileWrite( snapshot.getPath(), content.replace( 'a', 'c' ) );
+        assertEquals( content, FileUtils.fileRead( timestamped ) );
+    }
+
+    public void testIsWrittenInPlace()
+    {
+        assertTrue( DedupLocalRepositoryMojo.isWrittenInPlace( "a-1.0-SNAPSHOT.jar" ) );
+        assertTrue( DedupLocalRepositoryMojo.isWrittenInPlace( "a-1.0-SNAPSHOT-sources.jar" ) );
+        assertTrue( DedupLocalRepositoryMojo.isWrittenInPlace( "maven-metadata-central.xml" ) );
+        assertFalse( DedupLocalRepositoryMojo.isWrittenInPlace( "a-1.0-20110101.120000-1.jar" ) );
+        assertFalse( DedupLocalRepositoryMojo.isWrittenInPlace( "a-1.0.jar" ) );
+    }
+
+    private File createFile( String path, String content )
+        throws Exception
+    {
+        File file = new File( repository, path );
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getPath(), content );
+        return file;
+    }
+}
@@ -0,0 +1,160 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.RepositoryUsageJournal;
+import org.apache.maven.plugin.testing.stubs.StubArtifactRepository;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestEvictLocalRepositoryMojo
+    extends AbstractDependencyMojoTestCase
+{
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    EvictLocalRepositoryMojo mojo;
+
+    File repository;
+
+    protected void setUp()
+        throws Exception
+    {
+        // required for mojo lookups to work
+        super.setUp( "evict", false );
+
+        File testPom = new File( getBasedir(), "target/test-classes/unit/default-test/plugin-config.xml" );
+        mojo = (EvictLocalRepositoryMojo) lookupMojo( "evict-local-repository", testPom );
+        assertNotNull( mojo );
+        setVariableValueToObject( mojo, "threads", Integer.valueOf( 2 ) );
+
+        repository = new File( testDir, "repository" );
+        setVariableValueToObject( mojo, "localRepository", new StubArtifactRepository( repository.getPath() ) );
+    }
+
+    public void testEvictOldVersions()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        File old = createVersion( "org/test/old/1.0", "old-1.0.jar", now - 100 * DAY );
+        File used = createVersion( "org/test/used/1.0-SNAPSHOT", "used-1.0-20110101.120000-1.jar", now - 100 * DAY );
+        File recent = createVersion( "org/other/recent/2.0", "recent-2.0.jar", now );
+        writeJournal( now + " org/test/used/1.0-SNAPSHOT\n" );
+
+        setVariableValueToObject( mojo, "maxAge", Integer.valueOf( 30 ) );
+        setVariableValueToObject( mojo, "dryRun", Boolean.TRUE );
+        mojo.execute();
+        assertTrue( old.exists() );
+
+        setVariableValueToObject( mojo, "dryRun", Boolean.FALSE );
+        mojo.execute();
+        assertFalse( old.getParentFile().exists() );
+        assertTrue( used.exists() );
+        assertTrue( recent.exists() );
+
+        Map<String, Long> usages = new RepositoryUsageJournal( repository ).read();
+        assertEquals( 1, usages.size() );
+    }
+
+    public void testEvictToSize()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        File oldest = createVersion( "org/test/a/1.0", "a-1.0.jar", now - 3 * DAY );
+        File middle = createVersion( "org/test/a/2.0", "a-2.0.jar", now - 2 * DAY );
+        File newest = createVersion( "org/test/a/3.0", "a-3.0.jar", now - DAY );
+
+        setVariableValueToObject( mojo, "maxSize", "2k" );
+        mojo.execute();
+
+        assertFalse( oldest.exists() );
+        assertTrue( middle.exists() );
+        assertTrue( newest.exists() );
+    }
+
+    /**
+     * Compacting the journal keeps the usages recorded since it was read.
+     */
+    public void testCompactKeepsConcurrentUsages()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        writeJournal( ( now - 2 * DAY ) + " org/test/a/1.0\n" + ( now - 2 * DAY ) + " org/test/b/1.0\n" );
+        RepositoryUsageJournal journal = new RepositoryUsageJournal( repository );
+        Map<String, Long> removed = new HashMap<String, Long>( journal.read() );
+
+        // recorded by another build while the eviction runs
+        Artifact used = stubFactory.createArtifact( "org.test", "b", "1.0" );
+        used.setFile( createVersion( "org/test/b/1.0", "b-1.0.jar", now ) );
+        Artifact other = stubFactory.createArtifact( "org.test", "c", "1.0" );
+        other.setFile( createVersion( "org/test/c/1.0", "c-1.0.jar", now ) );
+        journal.record( Arrays.asList( new Artifact[] { used, other } ) );
+
+        journal.compact( removed );
+
+        Map<String, Long> usages = journal.read();
+        assertEquals( 2, usages.size() );
+        assertFalse( usages.containsKey( "org/test/a/1.0" ) );
+        assertTrue( usages.containsKey( "org/test/b/1.0" ) );
+        assertTrue( usages.containsKey( "org/test/c/1.0" ) );
+    }
+
+    public void testParseSize()
+        throws Exception
+    {
+        assertEquals( 100, EvictLocalRepositoryMojo.parseSize( "100" ) );
+        assertEquals( 500L * 1024 * 1024, EvictLocalRepositoryMojo.parseSize( "500m" ) );
+        assertEquals( 20L * 1024 * 1024 * 1024, EvictLocalRepositoryMojo.parseSize( "20GB" ) );
+        try
+        {
+            EvictLocalRepositoryMojo.parseSize( "lots" );
+            fail( "Expected MojoFailureException" );
+        }
+        catch ( MojoFailureException e )
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Creates a version directory holding a 1k file modified at the given time.
+     */
+    private File createVersion( String path, String fileName, long lastModified )
+        throws Exception
+    {
+        File file = new File( repository, path + "/" + fileName );
+        file.getParentFile().mkdirs();
+        FileUtils.fileWrite( file.getPath(), new String( new char[1024] ) );
+        file.setLastModified( lastModified );
+        return file;
+    }
+
+    private void writeJournal( String lines )
+        throws Exception
+    {
+        repository.mkdirs();
+        FileUtils.fileWrite( new File( repository, RepositoryUsageJournal.JOURNAL_NAME ).getPath(), lines );
+    }
+}
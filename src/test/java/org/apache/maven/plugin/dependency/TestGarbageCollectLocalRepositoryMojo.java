@@ -0,0 +1,277 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Extension;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestGarbageCollectLocalRepositoryMojo
+    extends AbstractDependencyMojoTestCase
+{
+    GarbageCollectLocalRepositoryMojo mojo;
+
+    File repository;
+
+    protected void setUp()
+        throws Exception
+    {
+        // required for mojo lookups to work
+        super.setUp( "gc", false );
+
+        File testPom = new File( getBasedir(), "target/test-classes/unit/default-test/plugin-config.xml" );
+        mojo = (GarbageCollectLocalRepositoryMojo) lookupMojo( "gc-local-repository", testPom );
+        assertNotNull( mojo );
+        setVariableValueToObject( mojo, "threads", Integer.valueOf( 2 ) );
+
+        repository = new File( testDir, "repository" );
+        mojo.setLocal( new DefaultArtifactRepository( "local", repository.toURL().toExternalForm(),
+                                                      new DefaultRepositoryLayout() ) );
+        setVariableValueToObject( mojo, "useReactor", Boolean.FALSE );
+    }
+
+    public void testCollectFromManifest()
+        throws Exception
+    {
+        File used = createVersion( "org.test", "used", "1.0", "<parent><groupId>org.test</groupId>"
+            + "<artifactId>parent</artifactId><version>2</version></parent>" );
+        File parent = createVersion( "org.test", "parent", "2", "<dependencyManagement><dependencies><dependency>"
+            + "<groupId>org.bom</groupId><artifactId>bom</artifactId><version>3</version><type>pom</type>"
+            + "<scope>import</scope></dependency></dependencies></dependencyManagement>" );
+        File bom = createVersion( "org.bom", "bom", "3", "" );
+        File unused = createVersion( "org.test", "used", "0.9", "" );
+        File garbage = createVersion( "org.garbage", "garbage", "1.0", "" );
+
+        File manifestFile = new File( testDir, "manifest.txt" );
+        FileUtils.fileWrite( manifestFile.getPath(), "The following files have been resolved:\n"
+            + "   org.test:used:jar:1.0:compile\n" );
+        setVariableValueToObject( mojo, "manifest", manifestFile.getPath() );
+
+        setVariableValueToObject( mojo, "dryRun", Boolean.TRUE );
+        mojo.execute();
+        assertTrue( garbage.exists() );
+
+        setVariableValueToObject( mojo, "dryRun", Boolean.FALSE );
+        mojo.execute();
+        assertTrue( used.exists() );
+        assertTrue( parent.exists() );
+        assertTrue( bom.exists() );
+        assertFalse( unused.exists() );
+        assertFalse( new File( repository, "org/garbage" ).exists() );
+    }
+
+    /**
+     * The transitive dependencies of the dependencies added to a plugin in the POM are kept.
+     */
+    public void testCollectPluginDependencies()
+        throws Exception
+    {
+        File helper = createVersion( "org.test", "helper", "1.0", "<dependencies><dependency><groupId>org.test"
+            + "</groupId><artifactId>transitive</artifactId><version>2.0</version></dependency></dependencies>" );
+        File transitive = createVersion( "org.test", "transitive", "2.0", "" );
+        File garbage = createVersion( "org.garbage", "garbage", "1.0", "" );
+
+        Dependency dependency = new Dependency();
+        dependency.setGroupId( "org.test" );
+        dependency.setArtifactId( "helper" );
+        dependency.setVersion( "1.0" );
+        Plugin plugin = new Plugin();
+        plugin.setGroupId( "org.test" );
+        plugin.setArtifactId( "test-plugin" );
+        plugin.addDependency( dependency );
+        Model model = new Model();
+        model.setGroupId( "org.test" );
+        model.setArtifactId( "project" );
+        model.setVersion( "1.0" );
+        model.setBuild( new Build() );
+        model.getBuild().addPlugin( plugin );
+        MavenProject reactorProject = new MavenProject( model );
+        reactorProject.setOriginalModel( model );
+        reactorProject.setArtifact( stubFactory.createArtifact( "org.test", "project", "1.0" ) );
+        reactorProject.setPluginArtifacts( Collections.EMPTY_SET );
+        reactorProject.setReportArtifacts( Collections.EMPTY_SET );
+        reactorProject.setRemoteArtifactRepositories( Collections.EMPTY_LIST );
+        setVariableValueToObject( mojo, "reactorProjects", Collections.singletonList( reactorProject ) );
+        setVariableValueToObject( mojo, "remotePluginRepositories", Collections.EMPTY_LIST );
+        setVariableValueToObject( mojo, "useReactor", Boolean.TRUE );
+
+        mojo.execute();
+        assertTrue( helper.exists() );
+        assertTrue( transitive.exists() );
+        assertFalse( garbage.exists() );
+    }
+
+    /**
+     * Build extensions and the lifecycle plugins the POM doesn't configure are kept with their dependencies.
+     */
+    public void testCollectExtensionsAndLifecyclePlugins()
+        throws Exception
+    {
+        File extension = createVersion( "org.test", "extension", "1.0", "<dependencies><dependency><groupId>org.test"
+            + "</groupId><artifactId>extension-dependency</artifactId><version>1.0</version></dependency>"
+            + "</dependencies>" );
+        File extensionDependency = createVersion( "org.test", "extension-dependency", "1.0", "" );
+        File compiler = createVersion( "org.apache.maven.plugins", "maven-compiler-plugin", "2.0.2", "<dependencies>"
+            + "<dependency><groupId>org.test</groupId><artifactId>compiler-api</artifactId><version>1.5</version>"
+            + "</dependency></dependencies>" );
+        File compilerApi = createVersion( "org.test", "compiler-api", "1.5", "" );
+        File garbage = createVersion( "org.garbage", "garbage", "1.0", "" );
+
+        Extension buildExtension = new Extension();
+        buildExtension.setGroupId( "org.test" );
+        buildExtension.setArtifactId( "extension" );
+        buildExtension.setVersion( "1.0" );
+        Model model = new Model();
+        model.setGroupId( "org.test" );
+        model.setArtifactId( "project" );
+        model.setVersion( "1.0" );
+        model.setBuild( new Build() );
+        model.getBuild().addExtension( buildExtension );
+        MavenProject reactorProject = new MavenProject( model );
+        reactorProject.setOriginalModel( model );
+        reactorProject.setArtifact( stubFactory.createArtifact( "org.test", "project", "1.0" ) );
+        reactorProject.setPluginArtifacts( Collections.EMPTY_SET );
+        reactorProject.setReportArtifacts( Collections.EMPTY_SET );
+        reactorProject.setRemoteArtifactRepositories( Collections.EMPTY_LIST );
+        setVariableValueToObject( mojo, "reactorProjects", Collections.singletonList( reactorProject ) );
+        setVariableValueToObject( mojo, "remotePluginRepositories", Collections.EMPTY_LIST );
+        setVariableValueToObject( mojo, "useReactor", Boolean.TRUE );
+
+        mojo.execute();
+        assertTrue( extension.exists() );
+        assertTrue( extensionDependency.exists() );
+        assertTrue( compiler.exists() );
+        assertTrue( compilerApi.exists() );
+        assertFalse( garbage.exists() );
+    }
+
+    public void testNothingReferenced()
+        throws Exception
+    {
+        createVersion( "org.test", "used", "1.0", "" );
+        try
+        {
+            mojo.execute();
+            fail( "Expected MojoFailureException" );
+        }
+        catch ( MojoFailureException e )
+        {
+            // expected
+        }
+        assertTrue( new File( repository, "org/test/used/1.0" ).exists() );
+    }
+
+    public void testParseManifestLine()
+        throws Exception
+    {
+        assertParsed( "g:a:1.0" );
+        assertParsed( "   g:a:jar:1.0" );
+        assertParsed( "   g:a:jar:1.0:test" );
+        assertParsed( "   g:a:jar:tests:1.0" );
+        assertParsed( "   g:a:jar:tests:1.0:compile" );
+        // outputAbsoluteArtifactFilename
+        assertParsed( "   g:a:jar:1.0:compile:/home/my repo/g/a/1.0/a-1.0.jar" );
+        assertParsed( "   g:a:jar:tests:1.0:compile:C:\\repo\\g\\a\\1.0\\a-1.0-tests.jar" );
+        assertParsed( "   g:a:jar:1.0:/repo/g/a/1.0/a-1.0.jar" );
+        assertParsed( "   g:a:jar:1.0:provided:null" );
+
+        assertNull( GarbageCollectLocalRepositoryMojo.parseManifestLine( "The following files have been resolved:" ) );
+        assertNull( GarbageCollectLocalRepositoryMojo.parseManifestLine( "   none" ) );
+        assertNull( GarbageCollectLocalRepositoryMojo.parseManifestLine( "# g:a:1.0" ) );
+
+        assertUnparsable( "Plugin Resolved: maven-clean-plugin-2.4.jar" );
+        assertUnparsable( "    Plugin Dependency Resolved: plexus-utils-1.5.jar" );
+        assertUnparsable( "g:a" );
+        assertUnparsable( "g:a:jar:tests:1.0:compile:extra" );
+    }
+
+    private static void assertParsed( String line )
+        throws Exception
+    {
+        assertEquals( line, Arrays.asList( new String[] { "g", "a", "1.0" } ),
+                      Arrays.asList( GarbageCollectLocalRepositoryMojo.parseManifestLine( line ) ) );
+    }
+
+    private static void assertUnparsable( String line )
+    {
+        try
+        {
+            GarbageCollectLocalRepositoryMojo.parseManifestLine( line );
+            fail( "Expected MojoFailureException for " + line );
+        }
+        catch ( MojoFailureException e )
+        {
+            // expected
+        }
+    }
+
+    public void testUnparsableManifest()
+        throws Exception
+    {
+        File kept = createVersion( "org.test", "kept", "1.0", "" );
+        File manifestFile = new File( testDir, "plugins.txt" );
+        FileUtils.fileWrite( manifestFile.getPath(), "Plugin Resolved: kept-1.0.jar\n" );
+        setVariableValueToObject( mojo, "manifest", manifestFile.getPath() );
+
+        try
+        {
+            mojo.execute();
+            fail( "Expected MojoFailureException" );
+        }
+        catch ( MojoFailureException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().indexOf( "plugins.txt:1" ) >= 0 );
+        }
+        assertTrue( kept.exists() );
+    }
+
+    public void testIsKept()
+    {
+        Set<String> kept = new HashSet<String>( Collections.singleton( "org/test/a" ) );
+        assertTrue( GarbageCollectLocalRepositoryMojo.isKept( "org/test/a/1.0", kept ) );
+        assertFalse( GarbageCollectLocalRepositoryMojo.isKept( "org/test/b/1.0", kept ) );
+        assertFalse( GarbageCollectLocalRepositoryMojo.isKept( "org/test/ab/1.0", kept ) );
+    }
+
+    private File createVersion( String groupId, String artifactId, String version, String content )
+        throws Exception
+    {
+        File directory = new File( repository, groupId.replace( '.', '/' ) + "/" + artifactId + "/" + version );
+        directory.mkdirs();
+        File pom = new File( directory, artifactId + "-" + version + ".pom" );
+        FileUtils.fileWrite( pom.getPath(), "<project><modelVersion>4.0.0</modelVersion><groupId>" + groupId
+            + "</groupId><artifactId>" + artifactId + "</artifactId><version>" + version + "</version>" + content
+            + "</project>" );
+        return pom;
+    }
+}
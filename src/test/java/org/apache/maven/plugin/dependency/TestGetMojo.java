@@ -21,6 +21,7 @@ package org.apache.maven.plugin.dependency;
 
 import java.io.File;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
 import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
@@ -136,4 +137,34 @@ public class TestGetMojo
             // expected
         }
     }
+
+    /**
+     * Test parsing of the artifact coordinates used by the artifact, artifacts and artifactsFile parameters
+     *
+     * @throws Exception
+     */
+    public void testParseArtifact()
+        throws Exception
+    {
+        Artifact artifact = mojo.parseArtifact( "org.apache.maven:maven-model:2.0.9" );
+        assertEquals( "org.apache.maven", artifact.getGroupId() );
+        assertEquals( "maven-model", artifact.getArtifactId() );
+        assertEquals( "2.0.9", artifact.getVersion() );
+        assertEquals( "jar", artifact.getType() );
+        assertNull( artifact.getClassifier() );
+
+        artifact = mojo.parseArtifact( "org.apache.maven:maven-model:2.0.9:test-jar:tests" );
+        assertEquals( "test-jar", artifact.getType() );
+        assertEquals( "tests", artifact.getClassifier() );
+
+        try
+        {
+            mojo.parseArtifact( "org.apache.maven:maven-model" );
+            fail( "Exception expected" );
+        }
+        catch ( MojoFailureException e )
+        {
+            // expected
+        }
+    }
 }
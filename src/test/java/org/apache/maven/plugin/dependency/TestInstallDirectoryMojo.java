@@ -0,0 +1,148 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestInstallDirectoryMojo
+    extends AbstractDependencyMojoTestCase
+{
+    InstallDirectoryMojo mojo;
+
+    File directory;
+
+    File repository;
+
+    protected void setUp()
+        throws Exception
+    {
+        // required for mojo lookups to work
+        super.setUp( "install-directory", false );
+
+        File testPom = new File( getBasedir(), "target/test-classes/unit/default-test/plugin-config.xml" );
+        mojo = (InstallDirectoryMojo) lookupMojo( "install-directory", testPom );
+        assertNotNull( mojo );
+        setVariableValueToObject( mojo, "threads", Integer.valueOf( 2 ) );
+
+        directory = new File( testDir, "drop" );
+        repository = new File( testDir, "repository" );
+        directory.mkdirs();
+        setVariableValueToObject( mojo, "directory", directory );
+        setVariableValueToObject( mojo, "repositoryDirectory", repository );
+    }
+
+    public void testInstallDirectory()
+        throws Exception
+    {
+        // coordinates from pom.properties, with an embedded pom and a sources jar next to it
+        createJar( new File( directory, "embedded-1.0.jar" ), "org.test", "embedded", "1.0" );
+        createJar( new File( directory, "embedded-1.0-sources.jar" ), "org.test", "embedded", "1.0" );
+        // coordinates from the pom lying next to the jar
+        createJar( new File( directory, "vendor/sidecar.jar" ), null, null, null );
+        FileUtils.fileWrite( new File( directory, "vendor/sidecar.pom" ).getPath(),
+                             pom( "org.vendor", "sidecar", "2.0" ) );
+        // a classifier jar without descriptor, next to the pom of its main artifact
+        createJar( new File( directory, "vendor/plain-3.0.jar" ), null, null, null );
+        createJar( new File( directory, "vendor/plain-3.0-sources.jar" ), null, null, null );
+        FileUtils.fileWrite( new File( directory, "vendor/plain-3.0.pom" ).getPath(),
+                             pom( "org.vendor", "plain", "3.0" ) );
+        // a snapshot
+        createJar( new File( directory, "vendor/snap-1.0-SNAPSHOT.jar" ), null, null, null );
+        FileUtils.fileWrite( new File( directory, "vendor/snap-1.0-SNAPSHOT.pom" ).getPath(),
+                             pom( "org.vendor", "snap", "1.0-SNAPSHOT" ) );
+        // a pom without jar
+        FileUtils.fileWrite( new File( directory, "vendor/parent-2.0.pom" ).getPath(),
+                             pom( "org.vendor", "parent", "2.0" ) );
+        // no coordinates at all
+        createJar( new File( directory, "unknown.jar" ), null, null, null );
+
+        mojo.execute();
+
+        assertInstalled( "org/test/embedded/1.0/embedded-1.0.jar" );
+        assertInstalled( "org/test/embedded/1.0/embedded-1.0-sources.jar" );
+        assertInstalled( "org/test/embedded/1.0/embedded-1.0.pom" );
+        assertInstalled( "org/test/embedded/maven-metadata-local.xml" );
+        assertInstalled( "org/vendor/sidecar/2.0/sidecar-2.0.jar" );
+        assertInstalled( "org/vendor/sidecar/2.0/sidecar-2.0.pom" );
+        assertInstalled( "org/vendor/parent/2.0/parent-2.0.pom" );
+        assertInstalled( "org/vendor/parent/maven-metadata-local.xml" );
+        assertInstalled( "org/vendor/plain/3.0/plain-3.0.jar" );
+        assertInstalled( "org/vendor/plain/3.0/plain-3.0-sources.jar" );
+        assertInstalled( "org/vendor/plain/3.0/plain-3.0.pom" );
+        assertInstalled( "org/vendor/snap/1.0-SNAPSHOT/snap-1.0-SNAPSHOT.jar" );
+        assertInstalled( "org/vendor/snap/1.0-SNAPSHOT/maven-metadata-local.xml" );
+
+        String metadata = FileUtils.fileRead( new File( repository, "org/test/embedded/maven-metadata-local.xml" ) );
+        assertTrue( metadata, metadata.indexOf( "<version>1.0</version>" ) >= 0 );
+        metadata =
+            FileUtils.fileRead( new File( repository, "org/vendor/snap/1.0-SNAPSHOT/maven-metadata-local.xml" ) );
+        assertTrue( metadata, metadata.indexOf( "<localCopy>true</localCopy>" ) >= 0 );
+        assertEquals( 2, new File( repository, "org" ).list().length );
+    }
+
+    public void testGetClassifier()
+    {
+        assertEquals( "sources", InstallDirectoryMojo.getClassifier( new File( "a-1.0-sources.jar" ), "a", "1.0" ) );
+        assertNull( InstallDirectoryMojo.getClassifier( new File( "a-1.0.jar" ), "a", "1.0" ) );
+        assertNull( InstallDirectoryMojo.getClassifier( new File( "b-1.0-sources.jar" ), "a", "1.0" ) );
+    }
+
+    private void assertInstalled( String path )
+    {
+        assertTrue( path + " not installed", new File( repository, path ).isFile() );
+    }
+
+    private static String pom( String groupId, String artifactId, String version )
+    {
+        return "<project><modelVersion>4.0.0</modelVersion><groupId>" + groupId + "</groupId><artifactId>"
+            + artifactId + "</artifactId><version>" + version + "</version></project>";
+    }
+
+    private static void createJar( File jar, String groupId, String artifactId, String version )
+        throws IOException
+    {
+        jar.getParentFile().mkdirs();
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( jar ) );
+        try
+        {
+            out.putNextEntry( new ZipEntry( "META-INF/MANIFEST.MF" ) );
+            out.write( "Manifest-Version: 1.0\n".getBytes( "UTF-8" ) );
+            if ( groupId != null )
+            {
+                String prefix = "META-INF/maven/" + groupId + "/" + artifactId + "/";
+                out.putNextEntry( new ZipEntry( prefix + "pom.properties" ) );
+                out.write( ( "groupId=" + groupId + "\nartifactId=" + artifactId + "\nversion=" + version + "\n" )
+                    .getBytes( "UTF-8" ) );
+                out.putNextEntry( new ZipEntry( prefix + "pom.xml" ) );
+                out.write( pom( groupId, artifactId, version ).getBytes( "UTF-8" ) );
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
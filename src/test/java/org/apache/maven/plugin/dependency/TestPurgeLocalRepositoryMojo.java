@@ -0,0 +1,44 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TestPurgeLocalRepositoryMojo
+    extends TestCase
+{
+    public void testRemoveNestedTargets()
+    {
+        File group = new File( "repo/org/group" );
+        File artifact = new File( group, "artifact" );
+        File version = new File( artifact, "1.0" );
+        File other = new File( "repo/org/other/1.0" );
+
+        List<File> targets =
+            PurgeLocalRepositoryMojo.removeNestedTargets( Arrays.asList( new File[] { version, other, group,
+                new File( version, "artifact-1.0.jar" ) } ) );
+
+        assertEquals( Arrays.asList( new File[] { other, group } ), targets );
+    }
+}
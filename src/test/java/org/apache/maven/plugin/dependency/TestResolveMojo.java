@@ -23,9 +23,11 @@ import java.io.File;
 import java.util.Set;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.resolvers.ResolveDependenciesMojo;
 import org.apache.maven.plugin.dependency.utils.DependencyStatusSets;
 import org.apache.maven.plugin.testing.SilentLog;
+import org.apache.maven.plugin.testing.stubs.StubArtifactResolver;
 import org.apache.maven.project.MavenProject;
 
 public class TestResolveMojo
@@ -75,6 +77,48 @@ public class TestResolveMojo
         assertEquals( directArtifacts.size(), results.getResolvedDependencies().size() );
     }
 
+    /**
+     * tests that list only uses the collected artifacts when metadataOnly is set
+     *
+     * @throws Exception
+     */
+    public void testListMetadataOnly()
+        throws Exception
+    {
+        File testPom = new File( getBasedir(), "target/test-classes/unit/resolve-test/plugin-config.xml" );
+        ListMojo mojo = (ListMojo) lookupMojo( "list", testPom );
+
+        assertNotNull( mojo );
+        MavenProject project = mojo.getProject();
+
+        mojo.silent = true;
+        mojo.setMetadataOnly( true );
+        // any artifact resolution fails the goal
+        mojo.setResolver( new StubArtifactResolver( stubFactory, false, true ) );
+        Set<Artifact> artifacts = this.stubFactory.getScopedArtifacts();
+        Set<Artifact> directArtifacts = this.stubFactory.getReleaseAndSnapshotArtifacts();
+        artifacts.addAll( directArtifacts );
+
+        project.setArtifacts( artifacts );
+        project.setDependencyArtifacts( directArtifacts );
+
+        mojo.execute();
+        DependencyStatusSets results = mojo.getResults();
+        assertNotNull( results );
+        assertEquals( artifacts.size(), results.getResolvedDependencies().size() );
+
+        mojo.setMetadataOnly( false );
+        try
+        {
+            mojo.execute();
+            fail( "Expected the artifacts to be resolved without metadataOnly" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            // expected
+        }
+    }
+
     public void testSilent()
         throws Exception
     {
@@ -27,9 +27,11 @@ import java.util.List;
 import java.util.ArrayList;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.dependency.utils.DependencyUtil;
 import org.apache.maven.plugin.testing.stubs.StubArtifactRepository;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.codehaus.plexus.util.FileUtils;
 
 /**
  * Tests <code>TreeMojo</code>.
@@ -136,6 +138,39 @@ public class TestTreeMojo
         assertTrue( findString( contents, "testGroupId:release:jar:1.0:compile" ) );
     }
 
+    /**
+     * Test the views of the tree for several scopes
+     *
+     * @throws Exception
+     */
+    public void testTreeScopeViews()
+        throws Exception
+    {
+        File testPom = new File( getBasedir(), "target/test-classes/unit/tree-test/plugin-config.xml" );
+        TreeMojo mojo = (TreeMojo) lookupMojo( "tree", testPom );
+        setVariableValueToObject( mojo, "localRepository", new StubArtifactRepository( testDir.getAbsolutePath() ) );
+        setVariableValueToObject( mojo, "outputFile", new File( testDir, "tree.txt" ) );
+        setVariableValueToObject( mojo, "scopes", "compile, test," );
+
+        MavenProject project = mojo.getProject();
+        project.setArtifact( this.stubFactory.createArtifact( "testGroupId", "project", "1.0" ) );
+        Set<Artifact> directArtifacts = this.stubFactory.getReleaseAndSnapshotArtifacts();
+        project.setArtifacts( directArtifacts );
+        project.setDependencyArtifacts( directArtifacts );
+
+        mojo.execute();
+
+        File treeFile = new File( testDir, "tree.txt" );
+        assertEquals( new File( testDir, "tree-compile.txt" ), DependencyUtil.getScopeFile( treeFile, "compile" ) );
+        for ( String scope : new String[] { "compile", "test" } )
+        {
+            String tree = FileUtils.fileRead( new File( testDir, "tree-" + scope + ".txt" ) );
+            assertTrue( tree, tree.indexOf( "testGroupId:release:jar:1.0:compile" ) > 0 );
+        }
+        // no view for the empty token after the trailing comma
+        assertFalse( new File( testDir, "tree-.txt" ).exists() );
+    }
+
     /**
      * Help finding content in the given list of string
      * @param outputFile
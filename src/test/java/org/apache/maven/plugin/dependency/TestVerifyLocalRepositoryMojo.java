@@ -0,0 +1,181 @@
+package org.apache.maven.plugin.dependency;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.dependency.utils.FileHashIndex;
+import org.apache.maven.plugin.testing.stubs.StubArtifactRepository;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestVerifyLocalRepositoryMojo
+    extends AbstractDependencyMojoTestCase
+{
+    VerifyLocalRepositoryMojo mojo;
+
+    File repository;
+
+    protected void setUp()
+        throws Exception
+    {
+        // required for mojo lookups to work
+        super.setUp( "verify", false );
+
+        File testPom = new File( getBasedir(), "target/test-classes/unit/default-test/plugin-config.xml" );
+        mojo = (VerifyLocalRepositoryMojo) lookupMojo( "verify-local-repository", testPom );
+        assertNotNull( mojo );
+        setVariableValueToObject( mojo, "threads", new Integer( 2 ) );
+
+        repository = new File( testDir, "repository" );
+        setVariableValueToObject( mojo, "localRepository", new StubArtifactRepository( repository.getPath() ) );
+    }
+
+    public void testVerify()
+        throws Exception
+    {
+        File jar = createJar( "org/test/a/1.0/a-1.0.jar" );
+        FileUtils.fileWrite( jar.getPath() + ".sha1", FileHashIndex.hash( jar ) + "  a-1.0.jar" );
+        assertNull( VerifyLocalRepositoryMojo.verify( jar ) );
+
+        File pom = new File( jar.getParentFile(), "a-1.0.pom" );
+        FileUtils.fileWrite( pom.getPath(), "<project/>" );
+        FileUtils.fileWrite( pom.getPath() + ".md5", FileHashIndex.hash( pom, "MD5" ) );
+        assertNull( VerifyLocalRepositoryMojo.verify( pom ) );
+
+        FileUtils.fileWrite( pom.getPath(), "<project>" );
+        assertNotNull( VerifyLocalRepositoryMojo.verify( pom ) );
+
+        // a truncated download
+        File truncated = new File( jar.getParentFile(), "a-1.0-sources.jar" );
+        FileUtils.fileWrite( truncated.getPath(), FileUtils.fileRead( jar ).substring( 0, 20 ) );
+        assertNotNull( VerifyLocalRepositoryMojo.verify( truncated ) );
+    }
+
+    public void testExecute()
+        throws Exception
+    {
+        File jar = createJar( "org/test/a/1.0/a-1.0.jar" );
+        FileUtils.fileWrite( jar.getPath() + ".sha1", FileHashIndex.hash( jar ) );
+        mojo.execute();
+
+        FileUtils.fileWrite( jar.getPath() + ".sha1", "0123456789012345678901234567890123456789" );
+        try
+        {
+            mojo.execute();
+            fail( "Expected MojoFailureException" );
+        }
+        catch ( MojoFailureException e )
+        {
+            assertTrue( e.getLongMessage(), e.getLongMessage().indexOf( "a-1.0.jar" ) > 0 );
+        }
+
+        setVariableValueToObject( mojo, "failOnError", Boolean.FALSE );
+        mojo.execute();
+    }
+
+    public void testRepairUnknownArtifact()
+        throws Exception
+    {
+        // a name not matching its version directory, whose artifact can't be found
+        File jar = createJar( "org/foo/bar/1.0.0/bar-1.0.jar" );
+        FileUtils.fileWrite( jar.getPath() + ".sha1", "0123456789012345678901234567890123456789" );
+        setVariableValueToObject( mojo, "repair", Boolean.TRUE );
+        try
+        {
+            mojo.execute();
+            fail( "Expected MojoFailureException" );
+        }
+        catch ( MojoFailureException e )
+        {
+            assertTrue( e.getLongMessage(), e.getLongMessage().indexOf( "bar-1.0.jar" ) > 0 );
+        }
+        assertTrue( jar.exists() );
+    }
+
+    public void testExecuteProjectArtifacts()
+        throws Exception
+    {
+        File jar = createJar( "org/test/a/1.0/a-1.0.jar" );
+        FileUtils.fileWrite( jar.getPath() + ".sha1", "0123456789012345678901234567890123456789" );
+        File other = createJar( "org/test/b/1.0/b-1.0.jar" );
+        FileUtils.fileWrite( other.getPath() + ".sha1", "0123456789012345678901234567890123456789" );
+
+        Artifact artifact = stubFactory.createArtifact( "org.test", "a", "1.0", Artifact.SCOPE_COMPILE, "jar", null );
+        artifact.setFile( jar );
+        MavenProject project = new MavenProject( new Model() );
+        project.setArtifacts( Collections.singleton( artifact ) );
+        setVariableValueToObject( mojo, "project", project );
+        setVariableValueToObject( mojo, "projectArtifacts", Boolean.TRUE );
+        try
+        {
+            mojo.execute();
+            fail( "Expected MojoFailureException" );
+        }
+        catch ( MojoFailureException e )
+        {
+            assertTrue( e.getLongMessage(), e.getLongMessage().indexOf( "a-1.0.jar" ) > 0 );
+            assertTrue( e.getLongMessage(), e.getLongMessage().indexOf( "b-1.0.jar" ) < 0 );
+        }
+    }
+
+    public void testParseArtifactPath()
+    {
+        assertEquals( Arrays.asList( new String[] { "org.test", "a", "1.0", null, "jar" } ),
+                      Arrays.asList( VerifyLocalRepositoryMojo.parseArtifactPath( "org/test/a/1.0/a-1.0.jar" ) ) );
+        assertEquals( Arrays.asList( new String[] { "org.test", "a", "1.0-20110101.120000-3", "sources", "jar" } ),
+                      Arrays.asList( VerifyLocalRepositoryMojo.parseArtifactPath( "org/test/a/1.0-SNAPSHOT/"
+                          + "a-1.0-20110101.120000-3-sources.jar" ) ) );
+        assertEquals( Arrays.asList( new String[] { "org", "a", "1.0-SNAPSHOT", null, "tar.gz" } ),
+                      Arrays.asList( VerifyLocalRepositoryMojo.parseArtifactPath( "org/a/1.0-SNAPSHOT/"
+                          + "a-1.0-SNAPSHOT.tar.gz" ) ) );
+        assertNull( VerifyLocalRepositoryMojo.parseArtifactPath( "org/test/a/1.0/b-1.0.jar" ) );
+        assertNull( VerifyLocalRepositoryMojo.parseArtifactPath( "a/1.0/a-1.0.jar" ) );
+        // a name not matching its version directory
+        assertNull( VerifyLocalRepositoryMojo.parseArtifactPath( "org/foo/bar/1.0.0/bar-1.0.jar" ) );
+    }
+
+    private File createJar( String path )
+        throws Exception
+    {
+        File file = new File( repository, path );
+        file.getParentFile().mkdirs();
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( file ) );
+        try
+        {
+            out.putNextEntry( new ZipEntry( "META-INF/MANIFEST.MF" ) );
+            out.write( "Manifest-Version: 1.0\n".getBytes( "UTF-8" ) );
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,60 @@
+package org.apache.maven.plugin.dependency.treeSerializers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+public class TestBinaryDependencyNodeVisitor
+    extends TestCase
+{
+    public void testFormat()
+        throws Exception
+    {
+        DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/binary" ), false );
+        DependencyNode root = new DependencyNode( fact.createArtifact( "test", "root", "1.0" ) );
+        root.addChild( new DependencyNode( fact.createArtifact( "test", "a", "1.0" ) ) );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryDependencyNodeVisitor visitor = new BinaryDependencyNodeVisitor( out );
+        root.accept( visitor );
+        visitor.checkError();
+
+        byte[] expected = {
+            'M', 'D', 'T', 1,
+            // root: new strings test, root, 1.0, jar, empty classifier and compile, included, no selection info
+            1, 1, 4, 't', 'e', 's', 't', 1, 4, 'r', 'o', 'o', 't', 1, 3, '1', '.', '0', 1, 3, 'j', 'a', 'r', 1, 0,
+            1, 7, 'c', 'o', 'm', 'p', 'i', 'l', 'e', 0, 0, 0, 0, 0, 0, 0,
+            // a: references to test, 1.0, jar, the empty classifier and compile
+            1, 2, 1, 1, 'a', 4, 5, 6, 7, 0, 0, 0, 0, 0, 0, 0,
+            2, 2, 0 };
+        byte[] actual = out.toByteArray();
+        assertEquals( expected.length, actual.length );
+        for ( int i = 0; i < expected.length; i++ )
+        {
+            assertEquals( "byte " + i, expected[i], actual[i] );
+        }
+    }
+}
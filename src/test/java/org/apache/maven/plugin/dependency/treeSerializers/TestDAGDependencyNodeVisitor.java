@@ -0,0 +1,95 @@
+package org.apache.maven.plugin.dependency.treeSerializers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+public class TestDAGDependencyNodeVisitor
+    extends TestCase
+{
+    DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/dag" ), false );
+
+    DependencyNode root;
+
+    protected void setUp()
+        throws Exception
+    {
+        // root -> a -> shared, root -> b -> shared, root -> b -> shared: shared is reachable by three paths
+        root = createNode( "root" );
+        DependencyNode a = addChild( root, "a" );
+        DependencyNode b = addChild( root, "b" );
+        addChild( a, "shared" );
+        addChild( b, "shared" );
+        addChild( b, "shared" );
+    }
+
+    public void testTGF()
+    {
+        assertEquals( "0 test:root:jar:1.0\n1 test:a:jar:1.0\n2 test:shared:jar:1.0\n3 test:b:jar:1.0\n#\n"
+            + "0 1 compile\n1 2 compile\n0 3 compile\n3 2 compile\n", serialize( DAGDependencyNodeVisitor.TGF ) );
+    }
+
+    public void testDot()
+    {
+        String dot = serialize( DAGDependencyNodeVisitor.DOT );
+        assertTrue( dot, dot.startsWith( "digraph \"test:root:jar:1.0\" { \n\t0 [label=\"test:root:jar:1.0\"] ; \n" ) );
+        assertEquals( dot, dot.indexOf( "label=\"test:shared:jar:1.0\"" ),
+                      dot.lastIndexOf( "label=\"test:shared:jar:1.0\"" ) );
+        assertEquals( dot, dot.indexOf( "\t3 -> 2" ), dot.lastIndexOf( "\t3 -> 2" ) );
+        assertTrue( dot, dot.endsWith( " } " ) );
+    }
+
+    public void testGraphml()
+    {
+        String graphml = serialize( DAGDependencyNodeVisitor.GRAPHML );
+        assertTrue( graphml, graphml.indexOf( "<node id=\"2\"><data key=\"d0\"><y:ShapeNode>"
+            + "<y:NodeLabel>test:shared:jar:1.0</y:NodeLabel>" ) > 0 );
+        assertEquals( graphml, graphml.indexOf( "<edge source=\"3\" target=\"2\">" ),
+                      graphml.lastIndexOf( "<edge source=\"3\" target=\"2\">" ) );
+        assertTrue( graphml, graphml.endsWith( "</graph></graphml>" ) );
+    }
+
+    private String serialize( String format )
+    {
+        StringWriter writer = new StringWriter();
+        root.accept( new DAGDependencyNodeVisitor( writer, format ) );
+        return writer.toString().replaceAll( "\r\n", "\n" );
+    }
+
+    private DependencyNode addChild( DependencyNode parent, String artifactId )
+        throws Exception
+    {
+        DependencyNode child = createNode( artifactId );
+        parent.addChild( child );
+        return child;
+    }
+
+    private DependencyNode createNode( String artifactId )
+        throws Exception
+    {
+        return new DependencyNode( fact.createArtifact( "test", artifactId, "1.0" ) );
+    }
+}
@@ -0,0 +1,88 @@
+package org.apache.maven.plugin.dependency.treeSerializers;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+public class TestJSONDependencyNodeVisitor
+    extends TestCase
+{
+    DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/json" ), false );
+
+    DependencyNode root;
+
+    protected void setUp()
+        throws Exception
+    {
+        root = new DependencyNode( fact.createArtifact( "test", "root", "1.0" ) );
+        DependencyNode a = new DependencyNode( fact.createArtifact( "test", "a", "1.0" ) );
+        a.setPremanagedVersion( "0.9" );
+        root.addChild( a );
+        DependencyNode b = new DependencyNode( fact.createArtifact( "test", "b", "1.0" ) );
+        root.addChild( b );
+        b.addChild( new DependencyNode( fact.createArtifact( "test", "a", "1.0" ), DependencyNode.OMITTED_FOR_DUPLICATE,
+                                        a.getArtifact() ) );
+    }
+
+    public void testNested()
+    {
+        assertEquals( "{\"groupId\":\"test\",\"artifactId\":\"root\",\"version\":\"1.0\",\"type\":\"jar\","
+            + "\"scope\":\"compile\",\"state\":\"INCLUDED\",\"children\":[\n"
+            + "{\"groupId\":\"test\",\"artifactId\":\"a\",\"version\":\"1.0\",\"type\":\"jar\",\"scope\":\"compile\","
+            + "\"state\":\"INCLUDED\",\"premanagedVersion\":\"0.9\",\"children\":[]},\n"
+            + "{\"groupId\":\"test\",\"artifactId\":\"b\",\"version\":\"1.0\",\"type\":\"jar\",\"scope\":\"compile\","
+            + "\"state\":\"INCLUDED\",\"children\":[\n"
+            + "{\"groupId\":\"test\",\"artifactId\":\"a\",\"version\":\"1.0\",\"type\":\"jar\",\"scope\":\"compile\","
+            + "\"state\":\"OMITTED_FOR_DUPLICATE\",\"relatedVersion\":\"1.0\",\"children\":[]}]}]}\n", serialize( false ) );
+    }
+
+    public void testFlat()
+    {
+        assertEquals( "{\"nodes\":[\n"
+            + "{\"id\":0,\"groupId\":\"test\",\"artifactId\":\"root\",\"version\":\"1.0\",\"type\":\"jar\"},\n"
+            + "{\"id\":1,\"groupId\":\"test\",\"artifactId\":\"a\",\"version\":\"1.0\",\"type\":\"jar\"},\n"
+            + "{\"id\":2,\"groupId\":\"test\",\"artifactId\":\"b\",\"version\":\"1.0\",\"type\":\"jar\"}\n"
+            + "],\"edges\":[\n"
+            + "{\"from\":0,\"to\":1,\"scope\":\"compile\",\"state\":\"INCLUDED\",\"premanagedVersion\":\"0.9\"},\n"
+            + "{\"from\":0,\"to\":2,\"scope\":\"compile\",\"state\":\"INCLUDED\"},\n"
+            + "{\"from\":2,\"to\":1,\"scope\":\"compile\",\"state\":\"OMITTED_FOR_DUPLICATE\",\"relatedVersion\":\"1.0\"}\n"
+            + "]}\n", serialize( true ) );
+    }
+
+    public void testEscaping()
+    {
+        StringBuffer sb = new StringBuffer();
+        JSONDependencyNodeVisitor.appendString( sb, "a\"b\\c\n" );
+        assertEquals( "\"a\\\"b\\\\c\\u000a\"", sb.toString() );
+    }
+
+    private String serialize( boolean flat )
+    {
+        StringWriter writer = new StringWriter();
+        root.accept( new JSONDependencyNodeVisitor( writer, flat ) );
+        return writer.toString().replaceAll( "\r\n", "\n" );
+    }
+}
@@ -0,0 +1,149 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
+import org.apache.maven.artifact.metadata.ResolutionGroup;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.resolver.filter.AndArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ExcludesArtifactFilter;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+
+public class TestCachingArtifactMetadataSource
+    extends TestCase
+{
+    DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/metadata-cache" ), false );
+
+    int retrievals;
+
+    ArtifactFilter ownFilter = new ExcludesArtifactFilter( Collections.singletonList( "test:d" ) );
+
+    CachingArtifactMetadataSource source = new CachingArtifactMetadataSource( new ArtifactMetadataSource()
+    {
+        public ResolutionGroup retrieve( Artifact artifact, ArtifactRepository localRepository, List remoteRepositories )
+        {
+            retrievals++;
+            assertNull( artifact.getDependencyFilter() );
+            if ( "old".equals( artifact.getArtifactId() ) )
+            {
+                // relocated by its POM, as the default metadata source does
+                artifact.setArtifactId( "new" );
+                artifact.setVersionRange( VersionRange.createFromVersion( "2.0" ) );
+            }
+            Set<Artifact> artifacts = new LinkedHashSet<Artifact>();
+            try
+            {
+                artifacts.add( fact.createArtifact( "test", "b", "1.0" ) );
+                Artifact c = fact.createArtifact( "test", "c", "1.0" );
+                c.setDependencyFilter( ownFilter );
+                artifacts.add( c );
+            }
+            catch ( Exception e )
+            {
+                fail( e.getMessage() );
+            }
+            return new ResolutionGroup( artifact, artifacts, remoteRepositories );
+        }
+
+        public List retrieveAvailableVersions( Artifact artifact, ArtifactRepository localRepository,
+                                               List remoteRepositories )
+        {
+            retrievals++;
+            return new ArrayList<Object>();
+        }
+    } );
+
+    public void testRetrieveOnce()
+        throws Exception
+    {
+        Artifact a = fact.createArtifact( "test", "a", "1.0" );
+        ResolutionGroup first = source.retrieve( a, null, Collections.EMPTY_LIST );
+        ResolutionGroup second = source.retrieve( a, null, Collections.EMPTY_LIST );
+        assertEquals( 1, retrievals );
+        assertEquals( 1, source.getHits() );
+        assertEquals( 1, source.getMisses() );
+        assertEquals( 2, second.getArtifacts().size() );
+
+        // the collector updates the artifacts it is given
+        Artifact b = (Artifact) first.getArtifacts().iterator().next();
+        b.setVersion( "2.0" );
+        assertEquals( "1.0", ( (Artifact) second.getArtifacts().iterator().next() ).getVersion() );
+
+        // another scope
+        a.setScope( Artifact.SCOPE_TEST );
+        source.retrieve( a, null, Collections.EMPTY_LIST );
+        assertEquals( 2, retrievals );
+
+        source.retrieveAvailableVersions( a, null, Collections.EMPTY_LIST );
+        source.retrieveAvailableVersions( a, null, Collections.EMPTY_LIST );
+        assertEquals( 3, retrievals );
+    }
+
+    public void testExclusions()
+        throws Exception
+    {
+        Artifact a = fact.createArtifact( "test", "a", "1.0" );
+        source.retrieve( a, null, Collections.EMPTY_LIST );
+
+        ArtifactFilter pathFilter = new ExcludesArtifactFilter( Collections.singletonList( "test:b" ) );
+        a.setDependencyFilter( pathFilter );
+        Set<?> artifacts = source.retrieve( a, null, Collections.EMPTY_LIST ).getArtifacts();
+        assertEquals( 1, retrievals );
+        assertEquals( 1, artifacts.size() );
+
+        Artifact c = (Artifact) artifacts.iterator().next();
+        assertEquals( "c", c.getArtifactId() );
+        assertTrue( c.getDependencyFilter() instanceof AndArtifactFilter );
+        assertFalse( c.getDependencyFilter().include( fact.createArtifact( "test", "b", "1.0" ) ) );
+        assertFalse( c.getDependencyFilter().include( fact.createArtifact( "test", "d", "1.0" ) ) );
+        assertTrue( c.getDependencyFilter().include( fact.createArtifact( "test", "e", "1.0" ) ) );
+    }
+
+    public void testRelocation()
+        throws Exception
+    {
+        for ( int i = 0; i < 2; i++ )
+        {
+            Artifact old = fact.createArtifact( "test", "old", "1.0" );
+            source.retrieve( old, null, Collections.EMPTY_LIST );
+            assertEquals( "new", old.getArtifactId() );
+            assertEquals( "2.0", old.getVersion() );
+        }
+        assertEquals( 1, retrievals );
+
+        Artifact a = fact.createArtifact( "test", "a", "1.0" );
+        source.retrieve( a, null, Collections.EMPTY_LIST );
+        source.retrieve( a, null, Collections.EMPTY_LIST );
+        assertEquals( "a", a.getArtifactId() );
+        assertEquals( "1.0", a.getVersion() );
+    }
+}
@@ -0,0 +1,122 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.dependency.testUtils.DependencyTestUtils;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestClasspathIndex
+    extends TestCase
+{
+    File directory;
+
+    List<File> jars = new ArrayList<File>();
+
+    List<String> names = new ArrayList<String>();
+
+    protected void setUp()
+        throws Exception
+    {
+        directory = new File( PlexusTestCase.getBasedir(), "target/unit-tests/classpath-index" );
+        DependencyTestUtils.removeDirectory( directory );
+        directory.mkdirs();
+
+        addJar( "a.jar", new String[] { "META-INF/MANIFEST.MF", "org/", "org/a/", "org/a/A.class",
+            "org/a/A$Inner.class", "org/a/a.properties", "log4j.xml" } );
+        addJar( "b.jar", new String[] { "org/b/B.class", "org/a/A.class", "module-info.class" } );
+    }
+
+    protected void tearDown()
+        throws IOException
+    {
+        DependencyTestUtils.removeDirectory( directory );
+    }
+
+    public void testPackageIndex()
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        new ClasspathIndex( jars, 2 ).writePackageIndex( writer, names );
+
+        assertEquals( "JarIndex-Version: 1.0\n\n" + "lib/a.jar\nlog4j.xml\norg/a\n\n"
+            + "lib/b.jar\nmodule-info.class\norg/a\norg/b\n\n", writer.toString() );
+    }
+
+    public void testClassList()
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        new ClasspathIndex( jars, 2 ).writeClassList( writer );
+
+        // each class is listed once, the module descriptor is not a class
+        assertEquals( "org/a/A\norg/a/A$Inner\norg/b/B\n", writer.toString() );
+    }
+
+    public void testBrokenJar()
+        throws Exception
+    {
+        File broken = new File( directory, "broken.jar" );
+        FileUtils.fileWrite( broken.getPath(), "not a jar" );
+        jars.add( broken );
+        try
+        {
+            new ClasspathIndex( jars, 2 );
+            fail( "Expected a MojoExecutionException" );
+        }
+        catch ( MojoExecutionException e )
+        {
+            // expected
+        }
+    }
+
+    private void addJar( String name, String[] entries )
+        throws IOException
+    {
+        File jar = new File( directory, name );
+        JarOutputStream out = new JarOutputStream( new FileOutputStream( jar ) );
+        try
+        {
+            for ( int i = 0; i < entries.length; i++ )
+            {
+                out.putNextEntry( new ZipEntry( entries[i] ) );
+                out.closeEntry();
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        jars.add( jar );
+        names.add( "lib/" + name );
+    }
+}
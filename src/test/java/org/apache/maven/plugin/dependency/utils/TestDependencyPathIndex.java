@@ -0,0 +1,118 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+import org.apache.maven.plugin.dependency.utils.filters.CompiledPatternArtifactFilter;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+
+public class TestDependencyPathIndex
+    extends TestCase
+{
+    DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/path-index" ), false );
+
+    DependencyNode root;
+
+    protected void setUp()
+        throws Exception
+    {
+        // root -> a -> bad, root -> b -> bad twice, root -> b -> a -> bad, root -> c -> old bad omitted for conflict
+        root = createNode( "root" );
+        DependencyNode a = addChild( root, "a" );
+        DependencyNode b = addChild( root, "b" );
+        DependencyNode c = addChild( root, "c" );
+        addChild( a, "bad" );
+        addChild( b, "bad" );
+        addChild( b, "bad" );
+        addChild( addChild( b, "a" ), "bad" );
+        c.addChild( new DependencyNode( fact.createArtifact( "test", "bad", "0.1" ),
+                                        DependencyNode.OMITTED_FOR_CONFLICT, a.getArtifact() ) );
+    }
+
+    public void testFindPaths()
+    {
+        DependencyPathIndex index = new DependencyPathIndex( root, false );
+        List<String> paths = toStrings( index.findPaths( createFilter( "*:bad" ), 10 ) );
+        // each path once
+        assertEquals( 3, paths.size() );
+        assertTrue( paths.contains( "root a bad" ) );
+        assertTrue( paths.contains( "root b bad" ) );
+        assertTrue( paths.contains( "root b a bad" ) );
+        assertFalse( index.isTruncated() );
+
+        assertTrue( index.findPaths( createFilter( "*:none" ), 10 ).isEmpty() );
+    }
+
+    public void testOmitted()
+    {
+        DependencyPathIndex index = new DependencyPathIndex( root, true );
+        assertEquals( Collections.singletonList( "root c bad" ),
+                      toStrings( index.findPaths( createFilter( "*:bad:*:0.1" ), 10 ) ) );
+    }
+
+    public void testMaxPaths()
+    {
+        DependencyPathIndex index = new DependencyPathIndex( root, false );
+        assertEquals( 1, index.findPaths( createFilter( "*:bad" ), 1 ).size() );
+        assertTrue( index.isTruncated() );
+    }
+
+    private static CompiledPatternArtifactFilter createFilter( String pattern )
+    {
+        return new CompiledPatternArtifactFilter( Collections.singletonList( pattern ), true );
+    }
+
+    private static List<String> toStrings( List<List<Artifact>> paths )
+    {
+        List<String> strings = new ArrayList<String>();
+        for ( List<Artifact> path : paths )
+        {
+            StringBuffer sb = new StringBuffer();
+            for ( Artifact artifact : path )
+            {
+                sb.append( sb.length() == 0 ? "" : " " ).append( artifact.getArtifactId() );
+            }
+            strings.add( sb.toString() );
+        }
+        return strings;
+    }
+
+    private DependencyNode addChild( DependencyNode parent, String artifactId )
+        throws Exception
+    {
+        DependencyNode child = createNode( artifactId );
+        parent.addChild( child );
+        return child;
+    }
+
+    private DependencyNode createNode( String artifactId )
+        throws Exception
+    {
+        return new DependencyNode( fact.createArtifact( "test", artifactId, "1.0" ) );
+    }
+}
@@ -0,0 +1,150 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.factory.ArtifactFactory;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.DefaultArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.dependency.testUtils.DependencyTestUtils;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestDependencyTreeCache
+    extends PlexusTestCase
+{
+    File directory;
+
+    ArtifactFactory factory;
+
+    ArtifactRepository localRepository;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        directory = new File( getBasedir(), "target/unit-tests/tree-cache" );
+        DependencyTestUtils.removeDirectory( directory );
+        File repository = new File( directory, "repository" );
+        repository.mkdirs();
+
+        factory = (ArtifactFactory) lookup( ArtifactFactory.ROLE );
+        localRepository =
+            new DefaultArtifactRepository( "local", repository.toURL().toExternalForm(), new DefaultRepositoryLayout() );
+    }
+
+    public void testLoad()
+        throws Exception
+    {
+        DependencyNode rootNode = new DependencyNode( createArtifact( "root", "1.0", null ) );
+        DependencyNode a = new DependencyNode( createArtifact( "a", "1.0", Artifact.SCOPE_COMPILE ) );
+        a.setPremanagedVersion( "0.9" );
+        rootNode.addChild( a );
+        a.addChild( new DependencyNode( createArtifact( "b", "1.0", Artifact.SCOPE_RUNTIME ),
+                                        DependencyNode.OMITTED_FOR_CONFLICT,
+                                        createArtifact( "b", "2.0", Artifact.SCOPE_RUNTIME ) ) );
+        File pom = new File( localRepository.getBasedir(), "test/a/1.0/a-1.0.pom" );
+        pom.getParentFile().mkdirs();
+        FileUtils.fileWrite( pom.getPath(), "<project/>" );
+        pom.setLastModified( 1000000000000L );
+
+        DependencyTreeCache cache =
+            new DependencyTreeCache( new File( directory, "tree.cache" ), localRepository, factory );
+        assertNull( cache.load( "fingerprint" ) );
+        cache.save( "fingerprint", rootNode );
+
+        DependencyNode cached = cache.load( "fingerprint" );
+        assertEquals( rootNode.toString(), cached.toString() );
+        assertEquals( "0.9", ( (DependencyNode) cached.getChildren().get( 0 ) ).getPremanagedVersion() );
+        assertNull( cache.load( "other" ) );
+
+        // the POM of a changed
+        pom.setLastModified( 1100000000000L );
+        assertNull( cache.load( "fingerprint" ) );
+    }
+
+    /**
+     * Changing a parent of the POM of a node, whose dependency management the node inherits, invalidates the tree.
+     */
+    public void testLoadParentChanged()
+        throws Exception
+    {
+        DependencyNode rootNode = new DependencyNode( createArtifact( "root", "1.0", null ) );
+        rootNode.addChild( new DependencyNode( createArtifact( "a", "1.0", Artifact.SCOPE_COMPILE ) ) );
+        writePom( "test/a/1.0/a-1.0.pom",
+                  "<project><parent><groupId>test</groupId><artifactId>parent</artifactId>"
+                      + "<version>1.0-SNAPSHOT</version></parent></project>" );
+        writePom( "test/parent/1.0-SNAPSHOT/parent-1.0-SNAPSHOT.pom",
+                  "<project><parent><groupId>test</groupId><artifactId>grand-parent</artifactId>"
+                      + "<version>1</version></parent></project>" );
+        File grandParent = writePom( "test/grand-parent/1/grand-parent-1.pom", "<project/>" );
+
+        DependencyTreeCache cache =
+            new DependencyTreeCache( new File( directory, "tree.cache" ), localRepository, factory );
+        cache.save( "fingerprint", rootNode );
+        assertNotNull( cache.load( "fingerprint" ) );
+
+        grandParent.setLastModified( 1100000000000L );
+        assertNull( cache.load( "fingerprint" ) );
+    }
+
+    public void testFingerprint()
+    {
+        Model model = new Model();
+        model.setGroupId( "test" );
+        model.setArtifactId( "root" );
+        model.setVersion( "1.0" );
+        MavenProject project = new MavenProject( model );
+        String fingerprint = DependencyTreeCache.fingerprint( project, null );
+        assertEquals( fingerprint, DependencyTreeCache.fingerprint( project, null ) );
+        assertFalse( fingerprint.equals( DependencyTreeCache.fingerprint( project, Artifact.SCOPE_RUNTIME ) ) );
+
+        Dependency dependency = new Dependency();
+        dependency.setGroupId( "test" );
+        dependency.setArtifactId( "a" );
+        dependency.setVersion( "1.0" );
+        model.addDependency( dependency );
+        assertFalse( fingerprint.equals( DependencyTreeCache.fingerprint( project, null ) ) );
+    }
+
+    private File writePom( String path, String content )
+        throws Exception
+    {
+        File pom = new File( localRepository.getBasedir(), path );
+        pom.getParentFile().mkdirs();
+        FileUtils.fileWrite( pom.getPath(), content );
+        pom.setLastModified( 1000000000000L );
+        return pom;
+    }
+
+    private Artifact createArtifact( String artifactId, String version, String scope )
+    {
+        Artifact artifact = factory.createArtifactWithClassifier( "test", artifactId, version, "jar", null );
+        artifact.setScope( scope );
+        return artifact;
+    }
+}
@@ -0,0 +1,94 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestDependencyTreeDiff
+    extends TestCase
+{
+    DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/tree-diff" ), false );
+
+    File baseline = new File( PlexusTestCase.getBasedir(), "target/unit-tests/tree-diff/baseline.txt" );
+
+    public void testBaseline()
+        throws Exception
+    {
+        DependencyTreeDiff.writeBaseline( createTree( "1.0", Artifact.SCOPE_COMPILE, "b" ), baseline );
+        assertEquals( "test:a:jar 1.0 compile\ntest:b:jar 1.0 compile\n", FileUtils.fileRead( baseline ) );
+
+        DependencyTreeDiff diff = new DependencyTreeDiff( baseline );
+        createTree( "1.0", Artifact.SCOPE_COMPILE, "b" ).accept( diff );
+        assertFalse( diff.hasChanges() );
+    }
+
+    public void testChanges()
+        throws Exception
+    {
+        DependencyTreeDiff.writeBaseline( createTree( "1.0", Artifact.SCOPE_COMPILE, "b" ), baseline );
+
+        DependencyTreeDiff diff = new DependencyTreeDiff( baseline );
+        createTree( "2.0", Artifact.SCOPE_RUNTIME, "c" ).accept( diff );
+        assertTrue( diff.hasChanges() );
+        assertEquals( Collections.singletonList( "test:c:jar 1.0 compile" ), diff.getAdded() );
+        assertEquals( Collections.singletonList( "test:b:jar 1.0 compile" ), diff.getRemoved() );
+        assertEquals( Collections.singletonList( "test:a:jar 1.0 -> 2.0" ), diff.getVersionChanges() );
+        assertEquals( Arrays.asList( new String[] { "test:a:jar compile -> runtime" } ), diff.getScopeChanges() );
+    }
+
+    public void testRemovedOnly()
+        throws Exception
+    {
+        DependencyTreeDiff.writeBaseline( createTree( "1.0", Artifact.SCOPE_COMPILE, "b" ), baseline );
+
+        DependencyTreeDiff diff = new DependencyTreeDiff( baseline );
+        DependencyNode rootNode = createTree( "1.0", Artifact.SCOPE_COMPILE, "b" );
+        rootNode.removeChild( (DependencyNode) rootNode.getChildren().get( 1 ) );
+        rootNode.accept( diff );
+        assertTrue( diff.hasChanges() );
+        assertEquals( Collections.singletonList( "test:b:jar 1.0 compile" ), diff.getRemoved() );
+    }
+
+    /**
+     * root -&gt; a, root -&gt; other, with an omitted duplicate of a below other.
+     */
+    private DependencyNode createTree( String version, String scope, String other )
+        throws Exception
+    {
+        DependencyNode rootNode = new DependencyNode( fact.createArtifact( "test", "root", "1.0" ) );
+        Artifact a = fact.createArtifact( "test", "a", version, scope );
+        rootNode.addChild( new DependencyNode( a ) );
+        DependencyNode otherNode = new DependencyNode( fact.createArtifact( "test", other, "1.0" ) );
+        rootNode.addChild( otherNode );
+        otherNode.addChild( new DependencyNode( fact.createArtifact( "test", "a", "0.5" ),
+                                                DependencyNode.OMITTED_FOR_DUPLICATE, a ) );
+        return rootNode;
+    }
+}
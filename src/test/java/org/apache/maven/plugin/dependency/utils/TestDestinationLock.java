@@ -0,0 +1,152 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestDestinationLock
+    extends TestCase
+{
+    File directory;
+
+    Artifact artifact;
+
+    Artifact otherArtifact;
+
+    Log log = new DependencySilentLog();
+
+    protected void setUp()
+        throws Exception
+    {
+        directory = new File( PlexusTestCase.getBasedir(), "target/unit-tests/destination-lock" );
+        DependencyArtifactStubFactory factory = new DependencyArtifactStubFactory( directory, false );
+        artifact = factory.createArtifact( "group", "one", "1.0" );
+        otherArtifact = factory.createArtifact( "group", "two", "1.0" );
+    }
+
+    /**
+     * Builds writing the same artifact to the same destination hold the lock one at a time.
+     */
+    public void testExclusive()
+        throws Exception
+    {
+        final AtomicInteger holders = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            tasks.add( new Callable<Object>()
+            {
+                public Object call()
+                    throws Exception
+                {
+                    for ( int j = 0; j < 20; j++ )
+                    {
+                        DestinationLock lock = DestinationLock.acquire( directory, artifact, log );
+                        try
+                        {
+                            if ( holders.incrementAndGet() > 1 )
+                            {
+                                overlaps.incrementAndGet();
+                            }
+                            Thread.sleep( 1 );
+                            holders.decrementAndGet();
+                        }
+                        finally
+                        {
+                            lock.release();
+                        }
+                    }
+                    return null;
+                }
+            } );
+        }
+        ParallelTasks.invokeAll( 8, tasks, "Cannot lock destination" );
+
+        assertEquals( 0, overlaps.get() );
+    }
+
+    /**
+     * Other artifacts, and the same artifact written to other destinations, do not wait for the lock.
+     */
+    public void testIndependentLocks()
+        throws IOException
+    {
+        DestinationLock lock = DestinationLock.acquire( directory, artifact, log );
+        try
+        {
+            DestinationLock other = DestinationLock.acquire( directory, otherArtifact, log );
+            other.release();
+            other = DestinationLock.acquire( new File( directory, "other" ), artifact, log );
+            other.release();
+        }
+        finally
+        {
+            lock.release();
+        }
+
+        // released locks can be acquired again
+        DestinationLock.acquire( directory, artifact, log ).release();
+    }
+
+    /**
+     * A lock file which can not be created still locks the artifact against the other threads of the process.
+     */
+    public void testLocksDirectoryNotWritable()
+        throws Exception
+    {
+        final File locksDirectory = new File( directory, "not-a-directory" );
+        directory.mkdirs();
+        FileUtils.fileWrite( locksDirectory.getPath(), "" );
+
+        final List<String> warnings = new ArrayList<String>();
+        Log warningLog = new DependencySilentLog()
+        {
+            public void warn( CharSequence content )
+            {
+                warnings.add( content.toString() );
+            }
+        };
+        DestinationLock lock = DestinationLock.acquire( locksDirectory, directory, artifact, warningLog );
+        try
+        {
+            assertEquals( 1, warnings.size() );
+        }
+        finally
+        {
+            lock.release();
+        }
+        DestinationLock.acquire( locksDirectory, directory, artifact, warningLog ).release();
+        assertEquals( 2, warnings.size() );
+    }
+}
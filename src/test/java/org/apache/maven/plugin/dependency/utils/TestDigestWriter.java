@@ -0,0 +1,55 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.security.MessageDigest;
+
+import junit.framework.TestCase;
+
+public class TestDigestWriter
+    extends TestCase
+{
+    public void testDigest()
+        throws IOException
+    {
+        DigestWriter writer = new DigestWriter();
+        writer.write( "a" );
+        writer.write( "bc".toCharArray() );
+        assertEquals( "a9993e364706816aba3e25717850c26c9cd0d89d", writer.getDigest() );
+
+        assertEquals( "da39a3ee5e6b4b0d3255bfef95601890afd80709", new DigestWriter().getDigest() );
+    }
+
+    /**
+     * The characters are digested in UTF-8, whatever the default encoding.
+     */
+    public void testEncoding()
+        throws Exception
+    {
+        String text = "caf\u00e9 \u20ac";
+        DigestWriter writer = new DigestWriter();
+        writer.write( text.substring( 0, 3 ) );
+        writer.write( text.substring( 3 ) );
+
+        MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+        assertEquals( FileHashIndex.toHex( digest.digest( text.getBytes( "UTF-8" ) ) ), writer.getDigest() );
+    }
+}
@@ -0,0 +1,49 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TestLogWriter
+    extends TestCase
+{
+    public void testLines()
+    {
+        final List<String> lines = new ArrayList<String>();
+        LogWriter writer = new LogWriter( new DependencySilentLog()
+        {
+            public void info( CharSequence content )
+            {
+                lines.add( content.toString() );
+            }
+        } );
+
+        writer.write( "first\nsec".toCharArray(), 0, 9 );
+        assertEquals( Arrays.asList( new String[] { "first" } ), lines );
+
+        writer.write( "ond\r\n\nthird\rlast".toCharArray(), 0, 16 );
+        writer.close();
+        assertEquals( Arrays.asList( new String[] { "first", "second", "", "third", "last" } ), lines );
+    }
+}
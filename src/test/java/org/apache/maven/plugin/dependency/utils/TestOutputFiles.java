@@ -0,0 +1,198 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.dependency.testUtils.DependencyTestUtils;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+public class TestOutputFiles
+    extends TestCase
+{
+    private static final int THREADS = 16;
+
+    private static final int OUTPUTS = 20;
+
+    File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        directory = new File( PlexusTestCase.getBasedir(), "target/unit-tests/output-files" );
+        DependencyTestUtils.removeDirectory( directory );
+    }
+
+    protected void tearDown()
+        throws IOException
+    {
+        DependencyTestUtils.removeDirectory( directory );
+    }
+
+    /**
+     * Concurrent outputs appended to a shared file, written in several chunks each, are not interleaved.
+     */
+    public void testAppend()
+        throws Exception
+    {
+        final File file = new File( directory, "shared.txt" );
+        run( new Task()
+        {
+            public void output( int thread, int output )
+                throws IOException
+            {
+                Writer writer = OutputFiles.openWriter( file, true );
+                try
+                {
+                    for ( int line = 0; line < 10; line++ )
+                    {
+                        writer.write( createLine( thread, output ) );
+                        writer.flush();
+                    }
+                }
+                finally
+                {
+                    IOUtil.close( writer );
+                }
+            }
+        } );
+
+        String[] lines = FileUtils.fileRead( file ).split( "\n" );
+        assertEquals( THREADS * OUTPUTS * 10, lines.length );
+        for ( int i = 0; i < lines.length; i += 10 )
+        {
+            for ( int j = i; j < i + 10; j++ )
+            {
+                assertEquals( "line " + j, lines[i], lines[j] );
+            }
+            assertEquals( createLine( lines[i] ), lines[i] + "\n" );
+        }
+    }
+
+    /**
+     * Concurrent outputs replacing a shared file leave a complete output, and unrelated files are all written.
+     */
+    public void testReplace()
+        throws Exception
+    {
+        final File shared = new File( directory, "replaced.txt" );
+        run( new Task()
+        {
+            public void output( int thread, int output )
+                throws IOException
+            {
+                OutputFiles.write( createLine( thread, output ), shared, false );
+                OutputFiles.write( createLine( thread, output ), new File( directory, thread + ".txt" ), false );
+            }
+        } );
+
+        String content = FileUtils.fileRead( shared );
+        assertEquals( createLine( content ), content );
+        for ( int thread = 0; thread < THREADS; thread++ )
+        {
+            assertEquals( createLine( thread, OUTPUTS - 1 ),
+                          FileUtils.fileRead( new File( directory, thread + ".txt" ) ) );
+        }
+        assertEquals( THREADS + 1, directory.list().length );
+    }
+
+    /**
+     * An output closed without being committed, as when writing it failed, leaves the replaced file untouched.
+     */
+    public void testCloseWithoutCommit()
+        throws Exception
+    {
+        File file = new File( directory, "a" );
+        OutputFiles.write( "complete", file, false );
+        assertEquals( "complete", FileUtils.fileRead( file ) );
+
+        Writer writer = OutputFiles.openWriter( file, false );
+        try
+        {
+            writer.write( "partial" );
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+        assertEquals( "complete", FileUtils.fileRead( file ) );
+        assertEquals( 1, directory.list().length );
+    }
+
+    private interface Task
+    {
+        void output( int thread, int output )
+            throws IOException;
+    }
+
+    private void run( final Task task )
+        throws Exception
+    {
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for ( int i = 0; i < THREADS; i++ )
+        {
+            final int thread = i;
+            tasks.add( new Callable<Object>()
+            {
+                public Object call()
+                    throws IOException
+                {
+                    for ( int output = 0; output < OUTPUTS; output++ )
+                    {
+                        task.output( thread, output );
+                    }
+                    return null;
+                }
+            } );
+        }
+        ParallelTasks.invokeAll( THREADS, tasks, "Cannot write the outputs" );
+    }
+
+    /**
+     * @return the line expected from the thread and output found at the start of a line.
+     */
+    private static String createLine( String line )
+    {
+        String[] first = line.substring( 0, line.indexOf( ' ' ) ).split( "-" );
+        return createLine( Integer.parseInt( first[0] ), Integer.parseInt( first[1] ) );
+    }
+
+    /**
+     * A line long enough to need several writes.
+     */
+    private static String createLine( int thread, int output )
+    {
+        StringBuffer line = new StringBuffer();
+        for ( int i = 0; i < 200; i++ )
+        {
+            line.append( thread ).append( '-' ).append( output ).append( ' ' );
+        }
+        return line.append( '\n' ).toString();
+    }
+}
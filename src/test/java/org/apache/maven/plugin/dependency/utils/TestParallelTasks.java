@@ -0,0 +1,49 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.execution.RuntimeInformation;
+
+public class TestParallelTasks
+    extends TestCase
+{
+    public void testGetResolverThreads()
+    {
+        DependencySilentLog log = new DependencySilentLog();
+        assertEquals( 1, ParallelTasks.getResolverThreads( 4, createRuntimeInformation( "2.2.1" ), log ) );
+        assertEquals( 4, ParallelTasks.getResolverThreads( 4, createRuntimeInformation( "3.0.3" ), log ) );
+        assertEquals( 1, ParallelTasks.getResolverThreads( 1, createRuntimeInformation( "3.0.3" ), log ) );
+    }
+
+    private static RuntimeInformation createRuntimeInformation( final String version )
+    {
+        return new RuntimeInformation()
+        {
+            public ArtifactVersion getApplicationVersion()
+            {
+                return new DefaultArtifactVersion( version );
+            }
+        };
+    }
+}
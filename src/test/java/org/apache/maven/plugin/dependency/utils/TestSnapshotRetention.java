@@ -0,0 +1,106 @@
+package org.apache.maven.plugin.dependency.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.dependency.testUtils.DependencyTestUtils;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+public class TestSnapshotRetention
+    extends TestCase
+{
+    File directory;
+
+    protected void setUp()
+        throws Exception
+    {
+        directory = new File( PlexusTestCase.getBasedir(), "target/unit-tests/snapshot-retention/a/1.0-SNAPSHOT" );
+        DependencyTestUtils.removeDirectory( directory );
+        directory.mkdirs();
+    }
+
+    protected void tearDown()
+        throws IOException
+    {
+        DependencyTestUtils.removeDirectory( directory );
+    }
+
+    public void testTrim()
+        throws Exception
+    {
+        String[] names =
+            { "a-1.0-20110101.120000-1.jar", "a-1.0-20110101.120000-1.jar.sha1", "a-1.0-20110101.120000-1.pom",
+                "a-1.0-20110101.120000-1-sources.jar", "a-1.0-20110102.120000-2.jar", "a-1.0-20110102.120000-2.pom",
+                "a-1.0-20110103.120000-3.jar", "a-1.0-20110103.120000-3.pom", "a-1.0-SNAPSHOT.jar" };
+        for ( int i = 0; i < names.length; i++ )
+        {
+            FileUtils.fileWrite( new File( directory, names[i] ).getPath(), "0123456789" );
+        }
+        String remoteContent = "<metadata><groupId>g</groupId><artifactId>a</artifactId>"
+            + "<version>1.0-SNAPSHOT</version><versioning><snapshot><timestamp>20110104.120000</timestamp>"
+            + "<buildNumber>4</buildNumber></snapshot><lastUpdated>20110104120000</lastUpdated><snapshotVersions>"
+            + "<snapshotVersion><extension>jar</extension><value>1.0-20110104.120000-4</value></snapshotVersion>"
+            + "</snapshotVersions></versioning></metadata>";
+        File remoteMetadata = new File( directory, "maven-metadata-central.xml" );
+        FileUtils.fileWrite( remoteMetadata.getPath(), remoteContent );
+        File metadata = new File( directory, "maven-metadata-local.xml" );
+        FileUtils.fileWrite( metadata.getPath(), "<metadata><groupId>g</groupId><artifactId>a</artifactId>"
+            + "<version>1.0-SNAPSHOT</version><versioning><snapshot><localCopy>true</localCopy></snapshot>"
+            + "<lastUpdated>20110103120000</lastUpdated><snapshotVersions>"
+            + "<snapshotVersion><extension>jar</extension><value>1.0-20110103.120000-3</value></snapshotVersion>"
+            + "<snapshotVersion><extension>jar</extension><value>1.0-20110102.120000-2</value></snapshotVersion>"
+            + "<snapshotVersion><extension>jar</extension><value>1.0-20101231.120000-0</value></snapshotVersion>"
+            + "<snapshotVersion><classifier>sources</classifier><extension>jar</extension>"
+            + "<value>1.0-20110101.120000-1</value></snapshotVersion>"
+            + "</snapshotVersions></versioning></metadata>" );
+
+        long freed = new SnapshotRetention( 1 ).trim( directory, "a" );
+
+        assertEquals( 50, freed );
+        assertTrue( new File( directory, "a-1.0-20110103.120000-3.jar" ).exists() );
+        assertTrue( new File( directory, "a-1.0-20110103.120000-3.pom" ).exists() );
+        assertTrue( new File( directory, "a-1.0-20110101.120000-1-sources.jar" ).exists() );
+        assertTrue( new File( directory, "a-1.0-SNAPSHOT.jar" ).exists() );
+        assertFalse( new File( directory, "a-1.0-20110101.120000-1.jar.sha1" ).exists() );
+        assertFalse( new File( directory, "a-1.0-20110102.120000-2.pom" ).exists() );
+
+        String content = FileUtils.fileRead( metadata );
+        assertTrue( content, content.indexOf( "1.0-20110103.120000-3" ) >= 0 );
+        assertTrue( content, content.indexOf( "1.0-20110101.120000-1" ) >= 0 );
+        assertTrue( content, content.indexOf( "1.0-20110102.120000-2" ) < 0 );
+        // not stored locally, so not deleted
+        assertTrue( content, content.indexOf( "1.0-20101231.120000-0" ) >= 0 );
+        assertTrue( content, content.indexOf( "<localCopy>true</localCopy>" ) >= 0 );
+
+        // what the remote repository published is kept as is
+        assertEquals( remoteContent, FileUtils.fileRead( remoteMetadata ) );
+    }
+
+    public void testGetClassifier()
+    {
+        assertEquals( "", SnapshotRetention.getClassifier( ".jar" ) );
+        assertEquals( "sources", SnapshotRetention.getClassifier( "-sources.jar.sha1" ) );
+    }
+}
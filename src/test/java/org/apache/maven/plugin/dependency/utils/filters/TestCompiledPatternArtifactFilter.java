@@ -0,0 +1,61 @@
+package org.apache.maven.plugin.dependency.utils.filters;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+
+public class TestCompiledPatternArtifactFilter
+    extends TestCase
+{
+    DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/patterns" ), false );
+
+    public void testPatterns()
+        throws Exception
+    {
+        Artifact artifact = fact.createArtifact( "org.apache.maven", "maven-core", "2.0.9" );
+
+        assertTrue( include( artifact, "org.apache.maven" ) );
+        assertTrue( include( artifact, "org.apache.maven:maven-core:jar:2.0.9" ) );
+        assertTrue( include( artifact, "*:maven-*" ) );
+        assertTrue( include( artifact, "*apache*:*-core" ) );
+        assertTrue( include( artifact, "org.apache.maven:*:*:[2.0,2.1)" ) );
+        assertTrue( include( artifact, "junit", ":maven-core" ) );
+        assertFalse( include( artifact, "org.apache" ) );
+        assertFalse( include( artifact, "*:*:*:[3.0,)" ) );
+        assertFalse( include( artifact, "*:*:*:[invalid" ) );
+        assertFalse( include( artifact, "org.apache.maven:maven-core:jar:2.0.9:compile" ) );
+
+        assertFalse( new CompiledPatternArtifactFilter( Arrays.asList( new String[] { "*:maven-core" } ), false )
+            .include( artifact ) );
+        assertTrue( new CompiledPatternArtifactFilter( Arrays.asList( new String[] { "junit" } ), false )
+            .include( artifact ) );
+    }
+
+    private static boolean include( Artifact artifact, String... patterns )
+    {
+        return new CompiledPatternArtifactFilter( Arrays.asList( patterns ), true ).include( artifact );
+    }
+}
@@ -0,0 +1,79 @@
+package org.apache.maven.plugin.dependency.utils.filters;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.apache.maven.plugin.dependency.testUtils.DependencyArtifactStubFactory;
+import org.apache.maven.shared.dependency.tree.DependencyNode;
+import org.apache.maven.shared.dependency.tree.filter.DependencyNodeFilter;
+
+public class TestIndexedAncestorOrSelfDependencyNodeFilter
+    extends TestCase
+{
+    DependencyArtifactStubFactory fact = new DependencyArtifactStubFactory( new File( "target/nodes" ), false );
+
+    public void testAncestorsAreKept()
+        throws Exception
+    {
+        DependencyNode root = createNode( "root" );
+        DependencyNode a = addChild( root, "a" );
+        DependencyNode b = addChild( a, "b" );
+        DependencyNode match = addChild( b, "match" );
+        DependencyNode below = addChild( match, "below" );
+        DependencyNode sibling = addChild( a, "sibling" );
+        DependencyNode other = addChild( root, "other" );
+        DependencyNode otherMatch = addChild( other, "match" );
+
+        DependencyNodeFilter filter = new IndexedAncestorOrSelfDependencyNodeFilter( root, new DependencyNodeFilter()
+        {
+            public boolean accept( DependencyNode node )
+            {
+                return "match".equals( node.getArtifact().getArtifactId() );
+            }
+        } );
+
+        assertTrue( filter.accept( root ) );
+        assertTrue( filter.accept( a ) );
+        assertTrue( filter.accept( b ) );
+        assertTrue( filter.accept( match ) );
+        assertFalse( filter.accept( below ) );
+        assertFalse( filter.accept( sibling ) );
+        assertTrue( filter.accept( other ) );
+        assertTrue( filter.accept( otherMatch ) );
+        assertFalse( filter.accept( createNode( "match" ) ) );
+    }
+
+    private DependencyNode addChild( DependencyNode parent, String artifactId )
+        throws Exception
+    {
+        DependencyNode child = createNode( artifactId );
+        parent.addChild( child );
+        return child;
+    }
+
+    private DependencyNode createNode( String artifactId )
+        throws Exception
+    {
+        return new DependencyNode( fact.createArtifact( "test", artifactId, "1.0" ) );
+    }
+}
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import junit.framework.TestCase;
 
@@ -34,6 +35,7 @@ import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.dependency.testUtils.DependencyTestUtils;
 import org.apache.maven.plugin.dependency.testUtils.stubs.StubDefaultFileMarkerHandler;
+import org.apache.maven.plugin.dependency.utils.ParallelTasks;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugin.testing.SilentLog;
 
@@ -147,6 +149,41 @@ public class TestDefaultMarkerFileHandler
         assertFalse( handler.isMarkerSet() );
     }
 
+    public void testConcurrentMarkers()
+        throws MojoExecutionException, IOException
+    {
+        File theFile = new File( outputFolder, "theFile.jar" );
+        outputFolder.mkdirs();
+        theFile.createNewFile();
+        final Artifact theArtifact = artifacts.get( 0 );
+        theArtifact.setFile( theFile );
+
+        // concurrent builds sharing the markers directory, each with its own handler
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            tasks.add( new Callable<Object>()
+            {
+                public Object call()
+                    throws Exception
+                {
+                    DefaultFileMarkerHandler handler = new DefaultFileMarkerHandler( theArtifact, outputFolder );
+                    for ( int j = 0; j < 100; j++ )
+                    {
+                        handler.setMarker();
+                        assertTrue( handler.isMarkerSet() );
+                        assertFalse( handler.isMarkerOlder( theArtifact ) );
+                    }
+                    return null;
+                }
+            } );
+        }
+        ParallelTasks.invokeAll( 8, tasks, "Concurrent markers failed" );
+
+        assertEquals( theFile.lastModified(), new DefaultFileMarkerHandler( theArtifact, outputFolder )
+            .getMarkerFile().lastModified() );
+    }
+
     public void testMarkerFileException()
     {
         // this stub wraps the file with an object to throw exceptions